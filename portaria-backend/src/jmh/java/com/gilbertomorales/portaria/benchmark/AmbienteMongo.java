@@ -0,0 +1,73 @@
+package com.gilbertomorales.portaria.benchmark;
+
+import com.gilbertomorales.portaria.PortariaApplication;
+import com.gilbertomorales.portaria.service.EstatisticasService;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Aplicação completa (sem a camada web) ligada a um Mongo em memória, com uma massa de reservas gerada.
+ * Os números absolutos não representam um Mongo real; servem para comparar versões do código.
+ */
+@State(Scope.Benchmark)
+public class AmbienteMongo {
+
+    @Param({"10000", "1000000"})
+    public int reservas;
+
+    private MongoServer servidor;
+    private ConfigurableApplicationContext contexto;
+    private MassaDeDados massa;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        servidor = new MongoServer(new MemoryBackend());
+        InetSocketAddress endereco = servidor.bind();
+
+        contexto = new SpringApplicationBuilder(PortariaApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.data.mongodb.host=" + endereco.getHostString(),
+                        "--spring.data.mongodb.port=" + endereco.getPort(),
+                        "--spring.data.mongodb.database=portaria_benchmark",
+                        // O Mongo em memória não respeita o filtro parcial do índice único de reserva ativa
+                        "--portaria.mongo.indexes.criar=false",
+                        // Sem as tarefas periódicas (gravação dos eventos, atrasos, propagação, recargas,
+                        // reconciliação): nada de tráfego de fundo no Mongo durante as iterações medidas.
+                        // A fila de eventos passa a ser gravada por quem registra, quando chega à capacidade
+                        "--portaria.agendamento.ativo=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.gilbertomorales.portaria=WARN",
+                        "--logging.level.org.springframework.data.mongodb=WARN");
+
+        massa = MassaDeDados.gerar(contexto.getBean(MongoTemplate.class), reservas);
+        // A massa é gravada direto no Mongo, sem passar pelos incrementos dos serviços
+        contexto.getBean(EstatisticasService.class).reconciliar();
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+        servidor.shutdownNow();
+    }
+
+    public <T> T bean(Class<T> tipo) {
+        return contexto.getBean(tipo);
+    }
+
+    public MassaDeDados massa() {
+        return massa;
+    }
+}
@@ -0,0 +1,35 @@
+package com.gilbertomorales.portaria.benchmark;
+
+import com.gilbertomorales.portaria.dto.ReservaRequestDTO;
+import com.gilbertomorales.portaria.dto.ReservaResponseDTO;
+import com.gilbertomorales.portaria.dto.RetiradaDevolucaoDTO;
+import com.gilbertomorales.portaria.service.ReservaService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ciclo completo de uma chave na portaria: reserva, retirada e devolução do mesmo item.
+ * Uma única thread, já que o item precisa estar livre no início de cada ciclo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(1)
+public class CicloReservaBenchmark {
+
+    @Benchmark
+    public ReservaResponseDTO reservarRetirarDevolver(AmbienteMongo ambiente) {
+        ReservaService reservaService = ambiente.bean(ReservaService.class);
+        MassaDeDados massa = ambiente.massa();
+        RetiradaDevolucaoDTO matricula = new RetiradaDevolucaoDTO(massa.matriculaCiclo());
+
+        ReservaResponseDTO reserva = reservaService.criarReserva(
+                new ReservaRequestDTO(massa.itemCiclo(), massa.matriculaCiclo()));
+        reservaService.registrarRetirada(reserva.id(), matricula);
+        return reservaService.registrarDevolucao(reserva.id(), matricula);
+    }
+}
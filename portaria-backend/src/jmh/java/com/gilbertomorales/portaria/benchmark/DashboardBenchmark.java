@@ -0,0 +1,31 @@
+package com.gilbertomorales.portaria.benchmark;
+
+import com.gilbertomorales.portaria.model.Estatisticas;
+import com.gilbertomorales.portaria.service.DashboardService;
+import com.gilbertomorales.portaria.service.EstatisticasService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contadores do dashboard (sem o cache de snapshot) conforme o histórico cresce: a leitura do documento
+ * de estatísticas materializadas contra a reconciliação, que recalcula tudo a partir das coleções
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DashboardBenchmark {
+
+    @Benchmark
+    public Map<String, Object> calcularDashboard(AmbienteMongo ambiente) {
+        return ambiente.bean(DashboardService.class).getDashboard();
+    }
+
+    @Benchmark
+    public Estatisticas reconciliarContadores(AmbienteMongo ambiente) {
+        return ambiente.bean(EstatisticasService.class).reconciliar();
+    }
+}
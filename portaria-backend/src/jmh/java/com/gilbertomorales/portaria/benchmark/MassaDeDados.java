@@ -0,0 +1,88 @@
+package com.gilbertomorales.portaria.benchmark;
+
+import com.gilbertomorales.portaria.model.Item;
+import com.gilbertomorales.portaria.model.Reserva;
+import com.gilbertomorales.portaria.model.User;
+import com.gilbertomorales.portaria.model.enums.TipoItem;
+import com.gilbertomorales.portaria.model.enums.TipoUsuario;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Gera itens, usuários e um histórico de reservas já devolvidas, com semente fixa para que as
+ * execuções sejam comparáveis. Um item e um usuário ficam reservados para o benchmark do ciclo.
+ */
+public record MassaDeDados(String itemCiclo, String matriculaCiclo) {
+
+    private static final int TOTAL_ITENS = 200;
+    private static final int TOTAL_USUARIOS = 2000;
+    private static final int TAMANHO_LOTE = 10_000;
+
+    public static MassaDeDados gerar(MongoTemplate mongoTemplate, int totalReservas) {
+        SplittableRandom aleatorio = new SplittableRandom(42);
+
+        List<Item> itens = new ArrayList<>();
+        for (int i = 0; i < TOTAL_ITENS; i++) {
+            itens.add(new Item(new ObjectId().toHexString(), "Sala " + i,
+                    i % 10 == 0 ? TipoItem.CONTROLE : TipoItem.CHAVE, true, "Bloco " + (i % 5), null));
+        }
+        Item itemCiclo = new Item(new ObjectId().toHexString(), "Sala do ciclo", TipoItem.CHAVE, true, "Bloco 0", null);
+        mongoTemplate.insertAll(itens);
+        mongoTemplate.insert(itemCiclo);
+
+        List<User> usuarios = new ArrayList<>();
+        for (int i = 0; i < TOTAL_USUARIOS; i++) {
+            usuarios.add(new User(new ObjectId().toHexString(), "Usuário " + i,
+                    i % 20 == 0 ? TipoUsuario.PROFESSOR : TipoUsuario.ALUNO,
+                    String.format("%06d", i), "usuario" + i + "@ufn.edu.br", null));
+        }
+        User usuarioCiclo = new User(new ObjectId().toHexString(), "Usuário do ciclo", TipoUsuario.PORTEIRO,
+                "999999", "ciclo@ufn.edu.br", null);
+        mongoTemplate.insertAll(usuarios);
+        mongoTemplate.insert(usuarioCiclo);
+
+        // Documentos montados direto no formato gravado pelo Spring, sem passar pelo conversor
+        MongoCollection<Document> colecao = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Reserva.class));
+        Instant agora = Instant.now();
+        long janela = Duration.ofDays(365).toSeconds();
+        List<Document> lote = new ArrayList<>(TAMANHO_LOTE);
+
+        for (int i = 0; i < totalReservas; i++) {
+            Item item = itens.get(aleatorio.nextInt(TOTAL_ITENS));
+            User usuario = usuarios.get(aleatorio.nextInt(TOTAL_USUARIOS));
+            Instant reservadaEm = agora.minusSeconds(aleatorio.nextLong(janela));
+            Instant retiradaEm = reservadaEm.plusSeconds(aleatorio.nextLong(1800));
+            Instant devolvidaEm = retiradaEm.plusSeconds(600 + aleatorio.nextLong(4 * 3600));
+
+            lote.add(new Document("_id", new ObjectId())
+                    .append("itemId", item.getId())
+                    .append("usuarioId", usuario.getId())
+                    .append("dataReserva", Date.from(reservadaEm))
+                    .append("dataRetirada", Date.from(retiradaEm))
+                    .append("dataDevolucao", Date.from(devolvidaEm))
+                    .append("nomeItem", item.getNome())
+                    .append("nomeUsuario", usuario.getNome())
+                    .append("matriculaUsuario", usuario.getMatricula()));
+
+            if (lote.size() == TAMANHO_LOTE) {
+                colecao.insertMany(lote, new InsertManyOptions().ordered(false));
+                lote = new ArrayList<>(TAMANHO_LOTE);
+            }
+        }
+        if (!lote.isEmpty()) {
+            colecao.insertMany(lote, new InsertManyOptions().ordered(false));
+        }
+
+        return new MassaDeDados(itemCiclo.getId(), usuarioCiclo.getMatricula());
+    }
+}
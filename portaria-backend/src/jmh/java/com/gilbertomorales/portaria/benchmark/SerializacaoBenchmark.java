@@ -0,0 +1,57 @@
+package com.gilbertomorales.portaria.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gilbertomorales.portaria.dto.ReservaResponseDTO;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialização para JSON das listas de reservas devolvidas pelos endpoints
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializacaoBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int tamanho;
+
+    private ObjectMapper objectMapper;
+    private List<ReservaResponseDTO> reservas;
+
+    @Setup
+    public void preparar() {
+        // Mesmo construtor usado pelo Spring Boot (módulo de java.time, datas em ISO-8601)
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        LocalDateTime base = LocalDateTime.of(2025, 3, 10, 8, 0);
+        reservas = new ArrayList<>(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            LocalDateTime reservadaEm = base.plusMinutes(i);
+            reservas.add(new ReservaResponseDTO(new ObjectId().toHexString(), new ObjectId().toHexString(),
+                    "Sala " + (i % 200), new ObjectId().toHexString(), "Usuário " + (i % 2000),
+                    String.format("%06d", i % 2000), reservadaEm, reservadaEm.plusMinutes(5),
+                    i % 3 == 0 ? null : reservadaEm.plusHours(2), i % 3 == 0 ? "RETIRADO" : "DEVOLVIDO",
+                    reservadaEm.plusMinutes(5).plusHours(4), i % 10 == 0));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializarLista() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(reservas);
+    }
+}
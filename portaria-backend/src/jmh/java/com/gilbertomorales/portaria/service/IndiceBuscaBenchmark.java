@@ -0,0 +1,63 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.model.User;
+import com.gilbertomorales.portaria.model.enums.TipoUsuario;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Busca de usuários no índice em memória com 100 mil cadastros: prefixo curto (muitos candidatos),
+ * nome e sobrenome, matrícula e palavra com erro de digitação (varredura aproximada).
+ * Fica no pacote do serviço porque o índice é visível apenas dentro dele.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IndiceBuscaBenchmark {
+
+    private static final int USUARIOS = 100_000;
+    private static final String[] NOMES = {"João", "Maria", "José", "Ana", "Antônio", "Fernanda", "Lúcia",
+            "Gilberto", "Márcia", "Luís", "Beatriz", "Conceição", "Sebastião", "Inês", "Otávio", "Érica"};
+    private static final String[] SOBRENOMES = {"Silva", "Souza", "Pereira", "Gonçalves", "Araújo", "Mendonça",
+            "Conceição", "Brandão", "Simões", "Fagundes", "Müller", "Lopes", "Morales", "Ribeiro", "Assunção"};
+
+    @Param({"a", "joao sil", "20240", "fernamda"})
+    private String consulta;
+
+    private IndiceBusca<User> indice;
+
+    @Setup
+    public void preparar() {
+        Random aleatorio = new Random(42);
+        List<User> usuarios = new ArrayList<>(USUARIOS);
+        for (int i = 0; i < USUARIOS; i++) {
+            String nome = NOMES[aleatorio.nextInt(NOMES.length)] + " "
+                    + SOBRENOMES[aleatorio.nextInt(SOBRENOMES.length)] + " "
+                    + SOBRENOMES[aleatorio.nextInt(SOBRENOMES.length)];
+            String matricula = String.format("20%02d%05d", 15 + i % 10, i);
+            usuarios.add(new User(new ObjectId().toHexString(), nome, TipoUsuario.ALUNO, matricula,
+                    "usuario" + i + "@ufn.edu.br", null));
+        }
+        indice = new IndiceBusca<>(User::getId, User::getNome,
+                user -> Arrays.asList(user.getNome(), user.getMatricula(), user.getEmail()), 1000);
+        indice.carregar(() -> usuarios);
+    }
+
+    @Benchmark
+    public List<User> buscar() {
+        return indice.buscar(consulta, 20);
+    }
+}
@@ -0,0 +1,56 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.model.Reserva;
+import com.gilbertomorales.portaria.model.enums.TipoItem;
+import com.gilbertomorales.portaria.model.enums.TipoUsuario;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversão de {@link Reserva} para DTO, feita para cada reserva de toda listagem.
+ * Fica no pacote do serviço porque o conversor é visível apenas dentro dele.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ReservaServiceBenchmark {
+
+    private static final int QUANTIDADE = 1024;
+
+    private final Reserva[] reservas = new Reserva[QUANTIDADE];
+
+    @Setup
+    public void preparar() {
+        LocalDateTime base = LocalDateTime.of(2025, 3, 10, 8, 0);
+        for (int i = 0; i < QUANTIDADE; i++) {
+            LocalDateTime reservadaEm = base.plusMinutes(i);
+            // Mistura dos três status para não favorecer um único ramo
+            reservas[i] = new Reserva(new ObjectId().toHexString(), new ObjectId().toHexString(),
+                    new ObjectId().toHexString(), reservadaEm,
+                    i % 3 > 0 ? reservadaEm.plusMinutes(5) : null,
+                    i % 3 > 1 ? reservadaEm.plusHours(2) : null,
+                    "Sala " + (i % 200), "Usuário " + i, String.format("%06d", i),
+                    TipoItem.CHAVE, TipoUsuario.ALUNO,
+                    i % 3 > 0 ? reservadaEm.plusMinutes(5).plusHours(4) : null, i % 7 == 0, null);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUANTIDADE)
+    public void convertToResponseDTO(Blackhole blackhole) {
+        for (Reserva reserva : reservas) {
+            blackhole.consume(ReservaService.convertToResponseDTO(reserva));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.gilbertomorales.portaria.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gilbertomorales.portaria.service.AdmissaoService;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Aplica o controle de admissão às rotas da API: cada requisição é classificada, ocupa uma vaga da
+ * sua classe enquanto roda e, se recusada, recebe 503 com {@code Retry-After} sem chegar ao controller.
+ * O fluxo de eventos (SSE) e o actuator ficam de fora.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AdmissaoFilter extends OncePerRequestFilter {
+
+    private final AdmissaoService admissaoService;
+    private final AdmissaoProperties propriedades;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String caminho = request.getRequestURI().substring(request.getContextPath().length());
+        ClasseRequisicao classe = propriedades.ativo() ? classificar(request.getMethod(), caminho) : null;
+        if (classe == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Optional<AdmissaoService.Permissao> permissao = admissaoService.admitir(classe);
+        if (permissao.isEmpty()) {
+            recusar(request, response, classe);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Exportações continuam em outra thread: a vaga fica ocupada até a resposta terminar
+                request.getAsyncContext().addListener(new Liberacao(permissao.get()));
+            } else if (transferencia(caminho)) {
+                permissao.get().liberarSemAmostra();
+            } else {
+                permissao.get().liberar();
+            }
+        }
+    }
+
+    static ClasseRequisicao classificar(String metodo, String caminho) {
+        if ("OPTIONS".equals(metodo) || !caminho.startsWith("/api/") || caminho.startsWith("/api/eventos")) {
+            return null;
+        }
+        if (caminho.startsWith("/api/portaria/cracha/")
+                || caminho.startsWith("/api/reservas/ativas/")
+                || caminho.startsWith("/api/users/matricula/")
+                || (caminho.startsWith("/api/reservas") && !"GET".equals(metodo))) {
+            return ClasseRequisicao.PORTARIA;
+        }
+        if (caminho.startsWith("/api/reservas")
+                || caminho.startsWith("/api/relatorios")
+                || caminho.startsWith("/api/auditoria")
+                || caminho.equals("/api/portaria/dashboard")
+                || caminho.equals("/api/portaria/limpar")
+                || transferencia(caminho)) {
+            return ClasseRequisicao.RELATORIOS;
+        }
+        return ClasseRequisicao.CADASTROS;
+    }
+
+    /**
+     * Importação ou exportação em massa: a duração acompanha o volume, não a saúde do banco
+     */
+    private static boolean transferencia(String caminho) {
+        return caminho.endsWith("/exportar") || caminho.endsWith("/importar");
+    }
+
+    private void recusar(HttpServletRequest request, HttpServletResponse response, ClasseRequisicao classe)
+            throws IOException {
+        long repetirApos = admissaoService.repetirAposSegundos(classe);
+
+        Map<String, Object> corpo = new LinkedHashMap<>();
+        corpo.put("timestamp", LocalDateTime.now());
+        corpo.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        corpo.put("error", "Service Unavailable");
+        corpo.put("message", "Servidor sobrecarregado, tente novamente em " + repetirApos + "s");
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(repetirApos));
+        // A recusa não passa pelo @CrossOrigin dos controllers; sem isso o navegador só veria um erro de CORS
+        if (request.getHeader(HttpHeaders.ORIGIN) != null) {
+            response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), corpo);
+    }
+
+    // A duração de uma resposta assíncrona inclui o envio ao cliente e não entra no ajuste do limite
+    private record Liberacao(AdmissaoService.Permissao permissao) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permissao.liberarSemAmostra();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            permissao.liberarSemAmostra();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            permissao.liberarSemAmostra();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
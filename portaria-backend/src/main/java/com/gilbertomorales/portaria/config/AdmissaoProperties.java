@@ -0,0 +1,68 @@
+package com.gilbertomorales.portaria.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Controle de admissão das rotas da API ({@code portaria.admissao.*}). Cada classe de requisição tem
+ * um limite de requisições simultâneas, ajustado pela latência observada entre {@code limite-minimo}
+ * e {@code limite-maximo}, e uma fila de espera limitada. Todas dividem {@code limite-global}: uma
+ * classe só ocupa até {@code fracao-global} dele, o que deixa folga para as de maior prioridade.
+ */
+@ConfigurationProperties(prefix = "portaria.admissao")
+public record AdmissaoProperties(Boolean ativo,
+                                 Integer limiteGlobal,
+                                 Map<ClasseRequisicao, Classe> classes) {
+
+    private static final Map<ClasseRequisicao, Classe> PADROES = Map.of(
+            ClasseRequisicao.PORTARIA, new Classe(40, 5, 120, Duration.ofMillis(300), 50,
+                    Duration.ofSeconds(2), 1.0, Duration.ofSeconds(1)),
+            ClasseRequisicao.CADASTROS, new Classe(20, 2, 60, Duration.ofMillis(500), 10,
+                    Duration.ofSeconds(1), 0.8, Duration.ofSeconds(2)),
+            ClasseRequisicao.RELATORIOS, new Classe(8, 1, 30, Duration.ofSeconds(2), 10,
+                    Duration.ofMillis(500), 0.5, Duration.ofSeconds(5)));
+
+    public AdmissaoProperties {
+        ativo = ativo != null ? ativo : true;
+        limiteGlobal = limiteGlobal != null ? limiteGlobal : 120;
+        Map<ClasseRequisicao, Classe> completas = new EnumMap<>(ClasseRequisicao.class);
+        for (ClasseRequisicao classe : ClasseRequisicao.values()) {
+            Classe configurada = classes != null ? classes.get(classe) : null;
+            completas.put(classe, configurada != null ? configurada.completar(PADROES.get(classe)) : PADROES.get(classe));
+        }
+        classes = completas;
+    }
+
+    public Classe classe(ClasseRequisicao classe) {
+        return classes.get(classe);
+    }
+
+    /**
+     * Configuração de uma classe; o que não for informado vem do padrão da classe
+     */
+    public record Classe(Integer limiteInicial,
+                         Integer limiteMinimo,
+                         Integer limiteMaximo,
+                         // Respostas mais lentas que isso reduzem o limite
+                         Duration latenciaAlvo,
+                         Integer fila,
+                         Duration esperaMaxima,
+                         Double fracaoGlobal,
+                         Duration repetirApos) {
+
+        private Classe completar(Classe padrao) {
+            return new Classe(
+                    limiteInicial != null ? limiteInicial : padrao.limiteInicial,
+                    limiteMinimo != null ? limiteMinimo : padrao.limiteMinimo,
+                    limiteMaximo != null ? limiteMaximo : padrao.limiteMaximo,
+                    latenciaAlvo != null ? latenciaAlvo : padrao.latenciaAlvo,
+                    fila != null ? fila : padrao.fila,
+                    esperaMaxima != null ? esperaMaxima : padrao.esperaMaxima,
+                    fracaoGlobal != null ? fracaoGlobal : padrao.fracaoGlobal,
+                    repetirApos != null ? repetirApos : padrao.repetirApos);
+        }
+    }
+}
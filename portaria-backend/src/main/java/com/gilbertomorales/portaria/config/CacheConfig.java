@@ -0,0 +1,13 @@
+package com.gilbertomorales.portaria.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USUARIOS_POR_MATRICULA = "usuariosPorMatricula";
+
+    public static final String RESPOSTAS_IDEMPOTENTES = "respostasIdempotentes";
+}
@@ -0,0 +1,13 @@
+package com.gilbertomorales.portaria.config;
+
+/**
+ * Classes de requisição do controle de admissão, da maior para a menor prioridade
+ */
+public enum ClasseRequisicao {
+    // Operações de crachá: reserva, retirada, devolução e consulta de reservas ativas
+    PORTARIA,
+    // Cadastro de usuários e itens e sincronização dos terminais
+    CADASTROS,
+    // Histórico, relatórios, auditoria, dashboard, limpeza e importação/exportação em massa
+    RELATORIOS
+}
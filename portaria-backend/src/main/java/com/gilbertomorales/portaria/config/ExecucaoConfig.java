@@ -0,0 +1,76 @@
+package com.gilbertomorales.portaria.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modo de execução das requisições (threads de plataforma do Tomcat, threads virtuais ou
+ * WebFlux no perfil "reativo") e dimensionamento do pool de conexões do Mongo correspondente.
+ * <p>
+ * Com threads de plataforma o Tomcat limita a concorrência (200 threads por padrão); com threads
+ * virtuais esse limite some e o pool do Mongo passa a ser o ponto de espera, por isso o perfil
+ * "threads-virtuais" aumenta o pool e encurta o tempo máximo de espera por uma conexão.
+ */
+@Slf4j
+@Configuration
+public class ExecucaoConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean threadsVirtuais;
+
+    @Value("${spring.main.web-application-type:servlet}")
+    private String tipoAplicacao;
+
+    @Value("${portaria.mongo.pool.max-size:100}")
+    private int poolMaximo;
+
+    @Value("${portaria.mongo.pool.min-size:0}")
+    private int poolMinimo;
+
+    @Value("${portaria.mongo.pool.max-wait:120s}")
+    private Duration esperaMaxima;
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer poolDeConexoesMongo() {
+        return settings -> settings.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(poolMaximo)
+                .minSize(poolMinimo)
+                .maxWaitTime(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * No perfil reativo o Tomcat continua no classpath (modo servlet); sem esta fábrica o Spring Boot o usaria também para o WebFlux
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public NettyReactiveWebServerFactory servidorReativo() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void registrarModo() {
+        if ("reactive".equalsIgnoreCase(tipoAplicacao)) {
+            log.info("Requisições no WebFlux (Netty, sem bloqueio); pool do Mongo: máximo {}, mínimo {}, espera {}",
+                    poolMaximo, poolMinimo, esperaMaxima);
+            return;
+        }
+        // O Spring Boot só ativa threads virtuais a partir do Java 21; antes disso a propriedade é ignorada
+        if (threadsVirtuais && Runtime.version().feature() < 21) {
+            log.warn("Threads virtuais solicitadas, mas a JVM é Java {}: usando threads de plataforma",
+                    Runtime.version().feature());
+        }
+        boolean virtuais = threadsVirtuais && Runtime.version().feature() >= 21;
+        log.info("Requisições em threads {}; pool do Mongo: máximo {}, mínimo {}, espera {}",
+                virtuais ? "virtuais" : "de plataforma", poolMaximo, poolMinimo, esperaMaxima);
+    }
+}
@@ -1,5 +1,9 @@
 package com.gilbertomorales.portaria.config;
 
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -43,6 +47,50 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(response);
     }
 
+    @ExceptionHandler({DataAccessException.class, MongoException.class})
+    public ResponseEntity<Map<String, Object>> handleInfraestrutura(RuntimeException ex) {
+        if (!falhaDeInfraestrutura(ex)) {
+            return handleRuntimeException(ex);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", LocalDateTime.now());
+        response.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.put("error", "Service Unavailable");
+        response.put("message", "Banco de dados indisponível, tente novamente");
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+
+    /**
+     * Resposta de erro de uma operação que falhou: 503 se o banco falhou (conexão, tempo esgotado),
+     * senão o status de negócio informado. Só a de negócio é definitiva e fica gravada na chave de idempotência
+     */
+    public static <T> ResponseEntity<T> falha(RuntimeException ex, HttpStatus negocio) {
+        return ResponseEntity.status(falhaDeInfraestrutura(ex) ? HttpStatus.SERVICE_UNAVAILABLE : negocio).build();
+    }
+
+    /**
+     * Falha do banco, na exceção ou em uma das causas. Chave duplicada e outras violações de
+     * integridade são conflitos de negócio, não falhas de infraestrutura
+     */
+    public static boolean falhaDeInfraestrutura(Throwable ex) {
+        for (Throwable causa = ex; causa != null; causa = causa.getCause()) {
+            if (causa instanceof DataIntegrityViolationException) {
+                return false;
+            }
+            if (causa instanceof DataAccessException) {
+                return true;
+            }
+            if (causa instanceof MongoException mongo) {
+                return ErrorCategory.fromErrorCode(mongo.getCode()) != ErrorCategory.DUPLICATE_KEY;
+            }
+            if (causa.getCause() == causa) {
+                break;
+            }
+        }
+        return false;
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleGenericException(Exception ex) {
         Map<String, Object> response = new HashMap<>();
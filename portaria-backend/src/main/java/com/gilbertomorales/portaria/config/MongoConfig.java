@@ -0,0 +1,36 @@
+package com.gilbertomorales.portaria.config;
+
+import com.gilbertomorales.portaria.repository.ContadorVersoes;
+import com.gilbertomorales.portaria.repository.MongoTemplateVersionado;
+import com.gilbertomorales.portaria.repository.ReactiveMongoTemplateVersionado;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+/**
+ * Templates no lugar dos criados pelo Spring Boot, para que o {@link ContadorVersoes} saiba quando
+ * cada escrita com versão terminou
+ */
+@Configuration
+public class MongoConfig {
+
+    @Bean
+    public MongoTemplate mongoTemplate(MongoDatabaseFactory fabrica, MongoConverter conversor,
+                                       ObjectFactory<ContadorVersoes> contadorVersoes) {
+        return new MongoTemplateVersionado(fabrica, conversor, contadorVersoes);
+    }
+
+    // A configuração reativa do Mongo só é carregada no perfil reativo
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public ReactiveMongoTemplate reactiveMongoTemplate(ReactiveMongoDatabaseFactory fabrica, MongoConverter conversor,
+                                                       ObjectFactory<ContadorVersoes> contadorVersoes) {
+        return new ReactiveMongoTemplateVersionado(fabrica, conversor, contadorVersoes);
+    }
+}
@@ -0,0 +1,245 @@
+package com.gilbertomorales.portaria.config;
+
+import com.gilbertomorales.portaria.model.EventoPortaria;
+import com.gilbertomorales.portaria.model.Item;
+import com.gilbertomorales.portaria.model.Remocao;
+import com.gilbertomorales.portaria.model.Reserva;
+import com.gilbertomorales.portaria.model.RespostaIdempotente;
+import com.gilbertomorales.portaria.model.UsoDiario;
+import com.gilbertomorales.portaria.model.User;
+import com.gilbertomorales.portaria.repository.ReservaRepositoryCustom;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Cria na inicialização os índices usados pelas consultas mais frequentes da portaria
+ * e, opcionalmente, registra no log o plano de execução de cada uma delas.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoIndexInitializer implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${portaria.mongo.indexes.criar:true}")
+    private boolean criarIndices;
+
+    @Value("${portaria.mongo.indexes.verificar:false}")
+    private boolean verificarPlanos;
+
+    @Value("${portaria.idempotencia.validade:24h}")
+    private Duration validadeIdempotencia;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (criarIndices) {
+            criarIndices();
+        }
+        if (verificarPlanos) {
+            verificarPlanos();
+        }
+    }
+
+    private void criarIndices() {
+        // Reserva ativa por item: garante no banco que um item tenha no máximo uma reserva em aberto
+        criar(Reserva.class, new Index().on("itemId", Sort.Direction.ASC)
+                .unique()
+                .partial(PartialIndexFilter.of(Criteria.where("dataDevolucao").is(null)))
+                .named("reserva_ativa_por_item"));
+
+        // Histórico e reservas ativas por matrícula (leitura de crachá)
+        criar(Reserva.class, new Index().on("matriculaUsuario", Sort.Direction.ASC)
+                .on("dataReserva", Sort.Direction.DESC)
+                .named("reserva_matricula_data"));
+
+        // Histórico por item
+        criar(Reserva.class, new Index().on("itemId", Sort.Direction.ASC)
+                .on("dataReserva", Sort.Direction.DESC)
+                .named("reserva_item_data"));
+
+        // Paginação por cursor do histórico completo
+        criar(Reserva.class, new Index().on("dataReserva", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC)
+                .named("reserva_data_id"));
+
+        // Reservas em aberto por prazo de devolução (verificação de atrasos e lista de atrasadas)
+        criar(Reserva.class, new Index().on("prazoDevolucao", Sort.Direction.ASC)
+                .partial(PartialIndexFilter.of(Criteria.where("dataDevolucao").is(null)))
+                .named("reserva_prazo_aberta"));
+
+        // Seleção das devolvidas mais antigas para o arquivamento
+        criar(Reserva.class, new Index().on("dataDevolucao", Sort.Direction.ASC)
+                .partial(PartialIndexFilter.of(Criteria.where("dataDevolucao").exists(true)))
+                .named("reserva_devolucao"));
+
+        // Histórico arquivado: as mesmas consultas de histórico da coleção principal
+        criar(ReservaRepositoryCustom.COLECAO_HISTORICO, new Index().on("matriculaUsuario", Sort.Direction.ASC)
+                .on("dataReserva", Sort.Direction.DESC)
+                .named("historico_matricula_data"));
+        criar(ReservaRepositoryCustom.COLECAO_HISTORICO, new Index().on("itemId", Sort.Direction.ASC)
+                .on("dataReserva", Sort.Direction.DESC)
+                .named("historico_item_data"));
+        criar(ReservaRepositoryCustom.COLECAO_HISTORICO, new Index().on("dataReserva", Sort.Direction.DESC)
+                .on("_id", Sort.Direction.DESC)
+                .named("historico_data_id"));
+
+        // Propagação de nome e matrícula editados no cadastro para as reservas do usuário
+        criar(Reserva.class, new Index().on("usuarioId", Sort.Direction.ASC)
+                .named("reserva_usuario"));
+        criar(ReservaRepositoryCustom.COLECAO_HISTORICO, new Index().on("usuarioId", Sort.Direction.ASC)
+                .named("historico_usuario"));
+
+        // Relatórios de uso: rollups de uma dimensão num intervalo de dias
+        criar(UsoDiario.class, new Index().on("dimensao", Sort.Direction.ASC)
+                .on("dia", Sort.Direction.ASC)
+                .named("uso_dimensao_dia"));
+
+        // Eventos da portaria de uma reserva, item ou usuário, dos mais recentes para os mais antigos
+        criar(EventoPortaria.class, new Index().on("reservaId", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.DESC)
+                .named("evento_reserva"));
+        criar(EventoPortaria.class, new Index().on("itemId", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.DESC)
+                .named("evento_item"));
+        criar(EventoPortaria.class, new Index().on("matriculaUsuario", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.DESC)
+                .named("evento_matricula"));
+
+        // Respostas por Idempotency-Key: o próprio Mongo apaga as vencidas
+        criar(RespostaIdempotente.class, new Index().on("criadaEm", Sort.Direction.ASC)
+                .expire(validadeIdempotencia)
+                .named("idempotencia_validade"));
+
+        // Itens disponíveis (com ou sem filtro por tipo)
+        criar(Item.class, new Index().on("disponivel", Sort.Direction.ASC)
+                .on("tipo", Sort.Direction.ASC)
+                .named("item_disponivel_tipo"));
+
+        criar(User.class, new Index().on("matricula", Sort.Direction.ASC)
+                .unique()
+                .named("user_matricula"));
+
+        criar(User.class, new Index().on("email", Sort.Direction.ASC)
+                .named("user_email"));
+
+        // Sincronização incremental dos terminais: alterados depois de uma versão e remoções por coleção
+        criar(User.class, new Index().on("versao", Sort.Direction.ASC)
+                .named("user_versao"));
+        criar(Item.class, new Index().on("versao", Sort.Direction.ASC)
+                .named("item_versao"));
+        criar(Reserva.class, new Index().on("versao", Sort.Direction.ASC)
+                .named("reserva_versao"));
+        criar(Remocao.class, new Index().on("colecao", Sort.Direction.ASC)
+                .on("versao", Sort.Direction.ASC)
+                .named("remocao_colecao_versao"));
+    }
+
+    private void criar(Class<?> entidade, IndexDefinition indice) {
+        criar(mongoTemplate.getCollectionName(entidade), indice);
+    }
+
+    private void criar(String colecao, IndexDefinition indice) {
+        try {
+            String nome = mongoTemplate.indexOps(colecao).createIndex(indice);
+            log.debug("Índice {} garantido em {}", nome, colecao);
+        } catch (RuntimeException e) {
+            // Um índice com problema (ex.: dados duplicados) não deve impedir a aplicação de subir
+            log.warn("Não foi possível criar o índice {} em {}: {}",
+                    indice.getIndexOptions().get("name"), colecao, e.getMessage());
+        }
+    }
+
+    private void verificarPlanos() {
+        List<ConsultaVerificada> consultas = List.of(
+                new ConsultaVerificada("reserva ativa por item", Reserva.class,
+                        new Document("itemId", "").append("dataDevolucao", null), null),
+                new ConsultaVerificada("reservas ativas por matrícula", Reserva.class,
+                        new Document("matriculaUsuario", "").append("dataDevolucao", null), null),
+                new ConsultaVerificada("histórico por matrícula", Reserva.class,
+                        new Document("matriculaUsuario", ""), new Document("dataReserva", -1)),
+                new ConsultaVerificada("histórico por item", Reserva.class,
+                        new Document("itemId", ""), null),
+                new ConsultaVerificada("histórico paginado", Reserva.class,
+                        new Document(), new Document("dataReserva", -1).append("_id", -1)),
+                new ConsultaVerificada("reservas atrasadas", Reserva.class,
+                        new Document("dataDevolucao", null).append("prazoDevolucao", new Document("$lte", new Date())),
+                        new Document("prazoDevolucao", 1)),
+                new ConsultaVerificada("devolvidas para arquivar", Reserva.class,
+                        new Document("dataDevolucao", new Document("$lt", new Date())), new Document("dataDevolucao", 1)),
+                new ConsultaVerificada("itens disponíveis por tipo", Item.class,
+                        new Document("disponivel", true).append("tipo", "CHAVE"), null),
+                new ConsultaVerificada("usuário por matrícula", User.class,
+                        new Document("matricula", ""), null)
+        );
+
+        consultas.forEach(consulta -> {
+            try {
+                var find = mongoTemplate.getCollection(mongoTemplate.getCollectionName(consulta.entidade()))
+                        .find(consulta.filtro());
+                if (consulta.ordenacao() != null) {
+                    find = find.sort(consulta.ordenacao());
+                }
+                Document plano = find.limit(1).explain();
+                List<String> estagios = estagiosDoPlano(plano);
+
+                if (estagios.contains("COLLSCAN")) {
+                    log.warn("Plano de '{}' faz varredura completa da coleção: {}", consulta.descricao(), estagios);
+                } else {
+                    log.info("Plano de '{}': {}", consulta.descricao(), estagios);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Não foi possível obter o plano de '{}': {}", consulta.descricao(), e.getMessage());
+            }
+        });
+    }
+
+    private static List<String> estagiosDoPlano(Document explain) {
+        List<String> estagios = new ArrayList<>();
+        Document queryPlanner = explain.get("queryPlanner", Document.class);
+        if (queryPlanner == null) {
+            return estagios;
+        }
+        Document plano = queryPlanner.get("winningPlan", Document.class);
+        // Com o motor SBE (Mongo 7+) o plano clássico fica dentro de "queryPlan"
+        if (plano != null && plano.containsKey("queryPlan")) {
+            plano = plano.get("queryPlan", Document.class);
+        }
+        coletarEstagios(plano, estagios);
+        return estagios;
+    }
+
+    private static void coletarEstagios(Document estagio, List<String> estagios) {
+        if (estagio == null) {
+            return;
+        }
+        String nome = estagio.getString("stage");
+        if (nome != null) {
+            String indice = estagio.getString("indexName");
+            estagios.add(indice != null ? nome + "(" + indice + ")" : nome);
+        }
+        coletarEstagios(estagio.get("inputStage", Document.class), estagios);
+        List<Document> entradas = estagio.getList("inputStages", Document.class);
+        if (entradas != null) {
+            entradas.forEach(entrada -> coletarEstagios(entrada, estagios));
+        }
+    }
+
+    private record ConsultaVerificada(String descricao, Class<?> entidade, Document filtro, Document ordenacao) {}
+}
@@ -0,0 +1,35 @@
+package com.gilbertomorales.portaria.config;
+
+import com.gilbertomorales.portaria.model.enums.TipoItem;
+import com.gilbertomorales.portaria.model.enums.TipoUsuario;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Prazos de devolução a partir da retirada ({@code portaria.atrasos.*}). Vale o prazo do tipo de item
+ * (ou o padrão); se o tipo de usuário tiver um prazo maior configurado, ele prevalece.
+ */
+@ConfigurationProperties(prefix = "portaria.atrasos")
+public record PrazosEmprestimo(Duration prazoPadrao,
+                               Map<TipoItem, Duration> prazoPorTipoItem,
+                               Map<TipoUsuario, Duration> prazoPorTipoUsuario) {
+
+    public PrazosEmprestimo {
+        prazoPadrao = prazoPadrao != null ? prazoPadrao : Duration.ofHours(4);
+        prazoPorTipoItem = prazoPorTipoItem != null ? Map.copyOf(prazoPorTipoItem) : Map.of();
+        prazoPorTipoUsuario = prazoPorTipoUsuario != null ? Map.copyOf(prazoPorTipoUsuario) : Map.of();
+    }
+
+    public Duration prazo(TipoItem tipoItem, TipoUsuario tipoUsuario) {
+        Duration prazo = tipoItem != null ? prazoPorTipoItem.getOrDefault(tipoItem, prazoPadrao) : prazoPadrao;
+        Duration doUsuario = tipoUsuario != null ? prazoPorTipoUsuario.get(tipoUsuario) : null;
+        return doUsuario != null && doUsuario.compareTo(prazo) > 0 ? doUsuario : prazo;
+    }
+
+    public LocalDateTime prazoDevolucao(TipoItem tipoItem, TipoUsuario tipoUsuario, LocalDateTime dataRetirada) {
+        return dataRetirada.plus(prazo(tipoItem, tipoUsuario));
+    }
+}
@@ -0,0 +1,42 @@
+package com.gilbertomorales.portaria.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Tarefas periódicas ({@code @Scheduled}); {@code portaria.agendamento.ativo=false} desliga todas,
+ * para medições em que o tráfego de fundo atrapalharia (benchmarks).
+ * <p>
+ * As tarefas longas (arquivamento, relatórios, reconciliação, recargas dos índices) dividem o
+ * agendador padrão, dimensionado por {@code spring.task.scheduling.pool.size}. As curtas e
+ * frequentes, cujo atraso aparece para o usuário (gravação dos eventos, heartbeat do SSE), rodam
+ * no {@link #AGENDADOR_RAPIDO}, que nunca espera por uma tarefa longa.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "portaria.agendamento.ativo", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+
+    public static final String AGENDADOR_RAPIDO = "agendadorRapido";
+
+    /**
+     * Agendador padrão, com as propriedades {@code spring.task.scheduling.*}. Declarado aqui porque
+     * o segundo agendador desliga o criado automaticamente pelo Spring Boot
+     */
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(name = AGENDADOR_RAPIDO)
+    public ThreadPoolTaskScheduler agendadorRapido() {
+        ThreadPoolTaskScheduler agendador = new ThreadPoolTaskScheduler();
+        agendador.setPoolSize(1);
+        agendador.setThreadNamePrefix("agendamento-rapido-");
+        return agendador;
+    }
+}
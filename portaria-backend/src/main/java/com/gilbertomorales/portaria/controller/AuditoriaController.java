@@ -0,0 +1,51 @@
+package com.gilbertomorales.portaria.controller;
+
+import com.gilbertomorales.portaria.model.EventoPortaria;
+import com.gilbertomorales.portaria.service.EventoPortariaService;
+import com.gilbertomorales.portaria.service.ReconstrucaoService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/auditoria")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AuditoriaController {
+
+    private static final int LIMITE_MAXIMO = 1000;
+
+    private final EventoPortariaService eventoPortariaService;
+    private final ReconstrucaoService reconstrucaoService;
+
+    /**
+     * Ações da portaria registradas, das mais recentes para as mais antigas
+     */
+    @GetMapping("/eventos")
+    public ResponseEntity<List<EventoPortaria>> getEventos(@RequestParam(required = false) String reservaId,
+                                                           @RequestParam(required = false) String itemId,
+                                                           @RequestParam(required = false) String matricula,
+                                                           @RequestParam(defaultValue = "100") int limite) {
+        return ResponseEntity.ok(eventoPortariaService.listar(reservaId, itemId, matricula,
+                Math.max(1, Math.min(limite, LIMITE_MAXIMO))));
+    }
+
+    /**
+     * Repete os eventos para reconstruir as reservas e a disponibilidade dos itens; sem aplicar=true só mostra o resultado.
+     * Com a portaria parada; se os eventos não cobrem todas as reservas, não aplica e responde 409
+     */
+    @PostMapping("/reconstruir")
+    public ResponseEntity<Map<String, Object>> reconstruir(@RequestParam(defaultValue = "false") boolean aplicar) {
+        Map<String, Object> resultado = reconstrucaoService.reconstruir(aplicar);
+        if (aplicar && !Boolean.TRUE.equals(resultado.get("aplicado"))) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(resultado);
+        }
+        return ResponseEntity.ok(resultado);
+    }
+}
@@ -0,0 +1,49 @@
+package com.gilbertomorales.portaria.controller;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Rotas do perfil "reativo" que reaproveitam os serviços bloqueantes do modo servlet (cadastros,
+ * lotes, limpeza, relatórios de reservas): a chamada roda no pool boundedElastic, fora das threads do Netty
+ */
+final class Bloqueante {
+
+    private static final int BUFFER_ENTRADA = 256;
+
+    private Bloqueante() {
+    }
+
+    static <T> Mono<T> executar(Callable<T> chamada) {
+        return Mono.fromCallable(chamada).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Corpo de resposta escrito por um serviço que recebe um OutputStream (exportações)
+     */
+    static Flux<DataBuffer> escrever(Consumer<OutputStream> escrita) {
+        return Flux.from(DataBufferUtils.outputStreamPublisher(escrita, DefaultDataBufferFactory.sharedInstance,
+                Schedulers.boundedElastic()::schedule));
+    }
+
+    /**
+     * Corpo da requisição lido por um serviço que recebe um InputStream (importações)
+     */
+    static <T> Mono<T> ler(Flux<DataBuffer> corpo, Function<InputStream, T> leitura) {
+        return executar(() -> {
+            try (InputStream entrada = DataBufferUtils.subscriberInputStream(corpo, BUFFER_ENTRADA)) {
+                return leitura.apply(entrada);
+            }
+        });
+    }
+}
@@ -0,0 +1,26 @@
+package com.gilbertomorales.portaria.controller;
+
+import com.gilbertomorales.portaria.service.NotificacaoService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/eventos")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class EventoController {
+
+    private final NotificacaoService notificacaoService;
+
+    /**
+     * Stream de eventos (item, reserva, reservas-limpas, sincronizar) para os terminais
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter assinarEventos() {
+        return notificacaoService.conectar();
+    }
+}
@@ -0,0 +1,27 @@
+package com.gilbertomorales.portaria.controller;
+
+import com.gilbertomorales.portaria.service.NotificacaoReativaService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/api/eventos")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class EventoReativoController {
+
+    private final NotificacaoReativaService notificacaoService;
+
+    /**
+     * Stream de eventos (item, reserva, reservas-limpas, sincronizar) para os terminais
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> assinarEventos() {
+        return notificacaoService.conectar();
+    }
+}
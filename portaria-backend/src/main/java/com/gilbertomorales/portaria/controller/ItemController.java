@@ -1,23 +1,43 @@
 package com.gilbertomorales.portaria.controller;
 
+import com.gilbertomorales.portaria.config.GlobalExceptionHandler;
+import com.gilbertomorales.portaria.dto.ImportacaoResultadoDTO;
+import com.gilbertomorales.portaria.dto.ItemResumoDTO;
 import com.gilbertomorales.portaria.model.Item;
 import com.gilbertomorales.portaria.model.enums.TipoItem;
+import com.gilbertomorales.portaria.service.BuscaService;
+import com.gilbertomorales.portaria.service.DisponibilidadeService;
+import com.gilbertomorales.portaria.service.ImportacaoExportacaoService;
 import com.gilbertomorales.portaria.service.ItemService;
+import com.gilbertomorales.portaria.service.VersaoCadastrosService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/items")
 @RequiredArgsConstructor
 @CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ItemController {
 
     private final ItemService itemService;
+    private final ImportacaoExportacaoService importacaoExportacaoService;
+    private final VersaoCadastrosService versaoCadastrosService;
+    private final BuscaService buscaService;
+    private final DisponibilidadeService disponibilidadeService;
 
     @GetMapping
     public ResponseEntity<List<Item>> getAllItems() {
@@ -25,10 +45,46 @@ public class ItemController {
         return ResponseEntity.ok(items);
     }
 
+    /**
+     * Lista resumida (id, nome, tipo, disponivel) com ETag: se nada mudou, responde 304 sem consultar o banco
+     */
+    @GetMapping("/resumo")
+    public ResponseEntity<List<ItemResumoDTO>> getResumoItens(@RequestParam(required = false) Boolean disponivel,
+                                                              WebRequest request) {
+        String etag = versaoCadastrosService.etagItens();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        List<ItemResumoDTO> items = itemService.findResumo(disponivel);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(items);
+    }
+
+    /**
+     * Busca por início de nome ou localização, sem diferenciar acentos, em ordem alfabética
+     */
+    @GetMapping("/buscar")
+    public ResponseEntity<List<Item>> buscarItens(@RequestParam String q,
+                                                 @RequestParam(defaultValue = "20") int limite) {
+        return ResponseEntity.ok(buscaService.buscarItens(q, limite));
+    }
+
+    /**
+     * Lida do índice em memória; a versão do índice vai na ETag, e sem alteração desde a última leitura a resposta é 304
+     */
     @GetMapping("/disponiveis")
-    public ResponseEntity<List<Item>> getItensDisponiveis() {
-        List<Item> items = itemService.findDisponiveis();
-        return ResponseEntity.ok(items);
+    public ResponseEntity<List<Item>> getItensDisponiveis(WebRequest request) {
+        return responderDisponiveis(disponibilidadeService.consultar(), request);
+    }
+
+    /**
+     * Quantidade de itens disponíveis por tipo, numa única leitura do documento de contadores
+     */
+    @GetMapping("/disponiveis/por-tipo")
+    public ResponseEntity<Map<String, Long>> contarDisponiveisPorTipo() {
+        return ResponseEntity.ok(itemService.contarDisponiveisPorTipo());
     }
 
     @GetMapping("/tipo/{tipo}")
@@ -38,9 +94,8 @@ public class ItemController {
     }
 
     @GetMapping("/disponiveis/tipo/{tipo}")
-    public ResponseEntity<List<Item>> getItensDisponiveisByTipo(@PathVariable TipoItem tipo) {
-        List<Item> items = itemService.findDisponiveisByTipo(tipo);
-        return ResponseEntity.ok(items);
+    public ResponseEntity<List<Item>> getItensDisponiveisByTipo(@PathVariable TipoItem tipo, WebRequest request) {
+        return responderDisponiveis(disponibilidadeService.consultar(tipo), request);
     }
 
     @GetMapping("/{id}")
@@ -56,13 +111,41 @@ public class ItemController {
         return ResponseEntity.status(HttpStatus.CREATED).body(savedItem);
     }
 
+    /**
+     * Importação em lote (NDJSON ou CSV com cabeçalho), com relatório de erros por linha
+     */
+    @PostMapping(value = "/importar", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<ImportacaoResultadoDTO> importarItens(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream entrada) {
+        ImportacaoExportacaoService.Formato formato = contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? ImportacaoExportacaoService.Formato.NDJSON
+                : ImportacaoExportacaoService.Formato.CSV;
+        ImportacaoResultadoDTO resultado = importacaoExportacaoService.importarItens(entrada, formato);
+        return ResponseEntity.ok(resultado);
+    }
+
+    /**
+     * Exportação completa em NDJSON (padrão) ou CSV, transmitida direto do cursor do Mongo
+     */
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarItens(@RequestParam(defaultValue = "NDJSON") String formato) {
+        ImportacaoExportacaoService.Formato formatoSaida = ImportacaoExportacaoService.Formato.valueOf(formato.toUpperCase());
+        StreamingResponseBody corpo = saida -> importacaoExportacaoService.exportarItens(saida, formatoSaida);
+
+        MediaType tipo = formatoSaida == ImportacaoExportacaoService.Formato.CSV
+                ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                : MediaType.APPLICATION_NDJSON;
+        return ResponseEntity.ok().contentType(tipo).body(corpo);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Item> updateItem(@PathVariable String id, @Valid @RequestBody Item item) {
         try {
             Item updatedItem = itemService.update(id, item);
             return ResponseEntity.ok(updatedItem);
         } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
+            return GlobalExceptionHandler.falha(e, HttpStatus.NOT_FOUND);
         }
     }
 
@@ -74,7 +157,7 @@ public class ItemController {
                     itemService.marcarComoIndisponivel(id);
             return ResponseEntity.ok(item);
         } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
+            return GlobalExceptionHandler.falha(e, HttpStatus.NOT_FOUND);
         }
     }
 
@@ -83,4 +166,15 @@ public class ItemController {
         itemService.deleteById(id);
         return ResponseEntity.noContent().build();
     }
+
+    private ResponseEntity<List<Item>> responderDisponiveis(DisponibilidadeService.Disponiveis disponiveis, WebRequest request) {
+        String etag = disponibilidadeService.etag(disponiveis.versao());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(disponiveis.itens());
+    }
 }
@@ -0,0 +1,158 @@
+package com.gilbertomorales.portaria.controller;
+
+import com.gilbertomorales.portaria.config.GlobalExceptionHandler;
+import com.gilbertomorales.portaria.dto.ImportacaoResultadoDTO;
+import com.gilbertomorales.portaria.dto.ItemResumoDTO;
+import com.gilbertomorales.portaria.model.Item;
+import com.gilbertomorales.portaria.model.enums.TipoItem;
+import com.gilbertomorales.portaria.service.BuscaService;
+import com.gilbertomorales.portaria.service.DisponibilidadeService;
+import com.gilbertomorales.portaria.service.ImportacaoExportacaoService;
+import com.gilbertomorales.portaria.service.ItemService;
+import com.gilbertomorales.portaria.service.VersaoCadastrosService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import jakarta.validation.Valid;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rotas de itens do perfil "reativo", com o mesmo contrato do {@link ItemController}. Os cadastros
+ * continuam nos serviços bloqueantes, chamados fora das threads do Netty
+ */
+@RestController
+@RequestMapping("/api/items")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ItemReativoController {
+
+    private final ItemService itemService;
+    private final ImportacaoExportacaoService importacaoExportacaoService;
+    private final VersaoCadastrosService versaoCadastrosService;
+    private final BuscaService buscaService;
+    private final DisponibilidadeService disponibilidadeService;
+
+    @GetMapping
+    public Mono<List<Item>> getAllItems() {
+        return Bloqueante.executar(itemService::findAll);
+    }
+
+    @GetMapping("/resumo")
+    public Mono<ResponseEntity<List<ItemResumoDTO>>> getResumoItens(@RequestParam(required = false) Boolean disponivel,
+                                                                    ServerWebExchange exchange) {
+        String etag = versaoCadastrosService.etagItens();
+        if (exchange.checkNotModified(etag)) {
+            return Mono.empty();
+        }
+        return Bloqueante.executar(() -> ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(itemService.findResumo(disponivel)));
+    }
+
+    @GetMapping("/buscar")
+    public Mono<List<Item>> buscarItens(@RequestParam String q, @RequestParam(defaultValue = "20") int limite) {
+        // A primeira busca carrega o índice do banco
+        return Bloqueante.executar(() -> buscaService.buscarItens(q, limite));
+    }
+
+    @GetMapping("/disponiveis")
+    public Mono<ResponseEntity<List<Item>>> getItensDisponiveis(ServerWebExchange exchange) {
+        return Bloqueante.executar(disponibilidadeService::consultar)
+                .flatMap(disponiveis -> responderDisponiveis(disponiveis, exchange));
+    }
+
+    @GetMapping("/disponiveis/por-tipo")
+    public Mono<Map<String, Long>> contarDisponiveisPorTipo() {
+        return Bloqueante.executar(itemService::contarDisponiveisPorTipo);
+    }
+
+    @GetMapping("/tipo/{tipo}")
+    public Mono<List<Item>> getItensByTipo(@PathVariable TipoItem tipo) {
+        return Bloqueante.executar(() -> itemService.findByTipo(tipo));
+    }
+
+    @GetMapping("/disponiveis/tipo/{tipo}")
+    public Mono<ResponseEntity<List<Item>>> getItensDisponiveisByTipo(@PathVariable TipoItem tipo,
+                                                                      ServerWebExchange exchange) {
+        return Bloqueante.executar(() -> disponibilidadeService.consultar(tipo))
+                .flatMap(disponiveis -> responderDisponiveis(disponiveis, exchange));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Item>> getItemById(@PathVariable String id) {
+        return Bloqueante.executar(() -> itemService.findById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build()));
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<Item>> createItem(@Valid @RequestBody Item item) {
+        return Bloqueante.executar(() -> ResponseEntity.status(HttpStatus.CREATED).body(itemService.save(item)));
+    }
+
+    @PostMapping(value = "/importar", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public Mono<ImportacaoResultadoDTO> importarItens(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                      @RequestBody Flux<DataBuffer> corpo) {
+        ImportacaoExportacaoService.Formato formato = contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? ImportacaoExportacaoService.Formato.NDJSON
+                : ImportacaoExportacaoService.Formato.CSV;
+        return Bloqueante.ler(corpo, entrada -> importacaoExportacaoService.importarItens(entrada, formato));
+    }
+
+    @GetMapping("/exportar")
+    public ResponseEntity<Flux<DataBuffer>> exportarItens(@RequestParam(defaultValue = "NDJSON") String formato) {
+        ImportacaoExportacaoService.Formato formatoSaida = ImportacaoExportacaoService.Formato.valueOf(formato.toUpperCase());
+        MediaType tipo = formatoSaida == ImportacaoExportacaoService.Formato.CSV
+                ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                : MediaType.APPLICATION_NDJSON;
+        return ResponseEntity.ok().contentType(tipo)
+                .body(Bloqueante.escrever(saida -> importacaoExportacaoService.exportarItens(saida, formatoSaida)));
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Item>> updateItem(@PathVariable String id, @Valid @RequestBody Item item) {
+        return Bloqueante.executar(() -> ResponseEntity.ok(itemService.update(id, item)))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(GlobalExceptionHandler.falha(e, HttpStatus.NOT_FOUND)));
+    }
+
+    @PatchMapping("/{id}/disponibilidade")
+    public Mono<ResponseEntity<Item>> toggleDisponibilidade(@PathVariable String id, @RequestParam boolean disponivel) {
+        return Bloqueante.executar(() -> ResponseEntity.ok(disponivel
+                        ? itemService.marcarComoDisponivel(id)
+                        : itemService.marcarComoIndisponivel(id)))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(GlobalExceptionHandler.falha(e, HttpStatus.NOT_FOUND)));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteItem(@PathVariable String id) {
+        return Bloqueante.executar(() -> {
+            itemService.deleteById(id);
+            return ResponseEntity.noContent().build();
+        });
+    }
+
+    private Mono<ResponseEntity<List<Item>>> responderDisponiveis(DisponibilidadeService.Disponiveis disponiveis,
+                                                                  ServerWebExchange exchange) {
+        String etag = disponibilidadeService.etag(disponiveis.versao());
+        if (exchange.checkNotModified(etag)) {
+            return Mono.empty();
+        }
+        return Mono.just(ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(disponiveis.itens()));
+    }
+}
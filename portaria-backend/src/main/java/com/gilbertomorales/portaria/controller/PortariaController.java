@@ -1,17 +1,23 @@
 package com.gilbertomorales.portaria.controller;
 
+import com.gilbertomorales.portaria.config.GlobalExceptionHandler;
+import com.gilbertomorales.portaria.dto.OperacaoLoteRequestDTO;
+import com.gilbertomorales.portaria.dto.OperacaoLoteResponseDTO;
 import com.gilbertomorales.portaria.dto.ReservaRequestDTO;
 import com.gilbertomorales.portaria.dto.ReservaResponseDTO;
 import com.gilbertomorales.portaria.dto.RetiradaDevolucaoDTO;
-import com.gilbertomorales.portaria.model.Item;
 import com.gilbertomorales.portaria.model.User;
-import com.gilbertomorales.portaria.service.ItemService;
+import com.gilbertomorales.portaria.service.DashboardService;
+import com.gilbertomorales.portaria.service.IdempotenciaService;
 import com.gilbertomorales.portaria.service.ReservaService;
 import com.gilbertomorales.portaria.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.validation.Valid;
 import java.util.List;
 import java.util.Map;
 
@@ -19,11 +25,14 @@ import java.util.Map;
 @RequestMapping("/api/portaria")
 @RequiredArgsConstructor
 @CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class PortariaController {
 
     private final UserService userService;
-    private final ItemService itemService;
     private final ReservaService reservaService;
+    private final DashboardService dashboardService;
+    private final IdempotenciaService idempotenciaService;
+
     /**
      * Busca usuário por matrícula
      */
@@ -40,14 +49,17 @@ public class PortariaController {
     @PostMapping("/cracha/{matricula}/reservar/{itemId}")
     public ResponseEntity<ReservaResponseDTO> reservarPorCracha(
             @PathVariable String matricula,
-            @PathVariable String itemId) {
-        try {
-            ReservaRequestDTO request = new ReservaRequestDTO(itemId, matricula);
-            ReservaResponseDTO reserva = reservaService.criarReserva(request);
-            return ResponseEntity.ok(reserva);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().build();
-        }
+            @PathVariable String itemId,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chave) {
+        return idempotenciaService.executar(chave, "reservar:" + matricula + ":" + itemId, ReservaResponseDTO.class, () -> {
+            try {
+                ReservaRequestDTO request = new ReservaRequestDTO(itemId, matricula);
+                ReservaResponseDTO reserva = reservaService.criarReserva(request);
+                return ResponseEntity.ok(reserva);
+            } catch (RuntimeException e) {
+                return GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST);
+            }
+        });
     }
 
     /**
@@ -56,14 +68,17 @@ public class PortariaController {
     @PostMapping("/cracha/{matricula}/retirar/{reservaId}")
     public ResponseEntity<ReservaResponseDTO> retirarPorCracha(
             @PathVariable String matricula,
-            @PathVariable String reservaId) {
-        try {
-            RetiradaDevolucaoDTO request = new RetiradaDevolucaoDTO(matricula);
-            ReservaResponseDTO reserva = reservaService.registrarRetirada(reservaId, request);
-            return ResponseEntity.ok(reserva);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().build();
-        }
+            @PathVariable String reservaId,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chave) {
+        return idempotenciaService.executar(chave, "retirar:" + matricula + ":" + reservaId, ReservaResponseDTO.class, () -> {
+            try {
+                RetiradaDevolucaoDTO request = new RetiradaDevolucaoDTO(matricula);
+                ReservaResponseDTO reserva = reservaService.registrarRetirada(reservaId, request);
+                return ResponseEntity.ok(reserva);
+            } catch (RuntimeException e) {
+                return GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST);
+            }
+        });
     }
 
     /**
@@ -72,13 +87,32 @@ public class PortariaController {
     @PostMapping("/cracha/{matricula}/devolver/{reservaId}")
     public ResponseEntity<ReservaResponseDTO> devolverPorCracha(
             @PathVariable String matricula,
-            @PathVariable String reservaId) {
+            @PathVariable String reservaId,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chave) {
+        return idempotenciaService.executar(chave, "devolver:" + matricula + ":" + reservaId, ReservaResponseDTO.class, () -> {
+            try {
+                RetiradaDevolucaoDTO request = new RetiradaDevolucaoDTO(matricula);
+                ReservaResponseDTO reserva = reservaService.registrarDevolucao(reservaId, request);
+                return ResponseEntity.ok(reserva);
+            } catch (RuntimeException e) {
+                return GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST);
+            }
+        });
+    }
+
+    /**
+     * Reserva, retirada ou devolução de vários itens de uma vez via matrícula,
+     * com resultado individual para cada ID
+     */
+    @PostMapping("/cracha/{matricula}/lote")
+    public ResponseEntity<OperacaoLoteResponseDTO> operacaoEmLotePorCracha(
+            @PathVariable String matricula,
+            @Valid @RequestBody OperacaoLoteRequestDTO request) {
         try {
-            RetiradaDevolucaoDTO request = new RetiradaDevolucaoDTO(matricula);
-            ReservaResponseDTO reserva = reservaService.registrarDevolucao(reservaId, request);
-            return ResponseEntity.ok(reserva);
+            OperacaoLoteResponseDTO resultado = reservaService.processarLote(matricula, request);
+            return ResponseEntity.ok(resultado);
         } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().build();
+            return GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST);
         }
     }
 
@@ -100,7 +134,7 @@ public class PortariaController {
             Map<String, Object> resultado = reservaService.limparTodasReservas();
             return ResponseEntity.ok(resultado);
         } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().build();
+            return GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST);
         }
     }
 
@@ -109,20 +143,6 @@ public class PortariaController {
      */
     @GetMapping("/dashboard")
     public ResponseEntity<Map<String, Object>> getDashboard() {
-        List<Item> itensDisponiveis = itemService.findDisponiveis();
-        List<ReservaResponseDTO> todasReservas = reservaService.findAll();
-
-        long reservasAtivas = todasReservas.stream()
-                .filter(r -> r.dataDevolucao() == null)
-                .count();
-
-        Map<String, Object> dashboard = Map.of(
-                "itensDisponiveis", itensDisponiveis.size(),
-                "totalItens", itemService.findAll().size(),
-                "reservasAtivas", reservasAtivas,
-                "totalReservas", todasReservas.size()
-        );
-
-        return ResponseEntity.ok(dashboard);
+        return ResponseEntity.ok(dashboardService.getDashboard());
     }
 }
@@ -0,0 +1,128 @@
+package com.gilbertomorales.portaria.controller;
+
+import com.gilbertomorales.portaria.config.GlobalExceptionHandler;
+import com.gilbertomorales.portaria.dto.OperacaoLoteRequestDTO;
+import com.gilbertomorales.portaria.dto.OperacaoLoteResponseDTO;
+import com.gilbertomorales.portaria.dto.ReservaRequestDTO;
+import com.gilbertomorales.portaria.dto.ReservaResponseDTO;
+import com.gilbertomorales.portaria.dto.RetiradaDevolucaoDTO;
+import com.gilbertomorales.portaria.model.User;
+import com.gilbertomorales.portaria.service.IdempotenciaService;
+import com.gilbertomorales.portaria.service.PortariaReativaService;
+import com.gilbertomorales.portaria.service.ReservaService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import jakarta.validation.Valid;
+import java.util.Map;
+
+/**
+ * Rotas de portaria do perfil "reativo" (WebFlux), com o mesmo contrato do {@link PortariaController}
+ */
+@RestController
+@RequestMapping("/api/portaria")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class PortariaReativaController {
+
+    private final PortariaReativaService portariaService;
+    private final IdempotenciaService idempotenciaService;
+    private final ReservaService reservaService;
+
+    /**
+     * Busca usuário por matrícula
+     */
+    @GetMapping("/cracha/{matricula}")
+    public Mono<ResponseEntity<User>> lerCracha(@PathVariable String matricula) {
+        return portariaService.findUsuarioByMatricula(matricula)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Cria reserva via matrícula
+     */
+    @PostMapping("/cracha/{matricula}/reservar/{itemId}")
+    public Mono<ResponseEntity<ReservaResponseDTO>> reservarPorCracha(
+            @PathVariable String matricula,
+            @PathVariable String itemId,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chave) {
+        ReservaRequestDTO request = new ReservaRequestDTO(itemId, matricula);
+        return idempotenciaService.executarReativo(chave, "reservar:" + matricula + ":" + itemId, ReservaResponseDTO.class,
+                () -> portariaService.criarReserva(request)
+                        .map(ResponseEntity::ok)
+                        .onErrorResume(RuntimeException.class, e -> Mono.just(GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST))));
+    }
+
+    /**
+     * Retirada via matrícula
+     */
+    @PostMapping("/cracha/{matricula}/retirar/{reservaId}")
+    public Mono<ResponseEntity<ReservaResponseDTO>> retirarPorCracha(
+            @PathVariable String matricula,
+            @PathVariable String reservaId,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chave) {
+        RetiradaDevolucaoDTO request = new RetiradaDevolucaoDTO(matricula);
+        return idempotenciaService.executarReativo(chave, "retirar:" + matricula + ":" + reservaId, ReservaResponseDTO.class,
+                () -> portariaService.registrarRetirada(reservaId, request)
+                        .map(ResponseEntity::ok)
+                        .onErrorResume(RuntimeException.class, e -> Mono.just(GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST))));
+    }
+
+    /**
+     * Devolução via matrícula
+     */
+    @PostMapping("/cracha/{matricula}/devolver/{reservaId}")
+    public Mono<ResponseEntity<ReservaResponseDTO>> devolverPorCracha(
+            @PathVariable String matricula,
+            @PathVariable String reservaId,
+            @RequestHeader(value = IdempotenciaService.CABECALHO, required = false) String chave) {
+        RetiradaDevolucaoDTO request = new RetiradaDevolucaoDTO(matricula);
+        return idempotenciaService.executarReativo(chave, "devolver:" + matricula + ":" + reservaId, ReservaResponseDTO.class,
+                () -> portariaService.registrarDevolucao(reservaId, request)
+                        .map(ResponseEntity::ok)
+                        .onErrorResume(RuntimeException.class, e -> Mono.just(GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST))));
+    }
+
+    /**
+     * Reserva, retirada ou devolução de vários itens de uma vez via matrícula; usa o mesmo serviço do modo servlet
+     */
+    @PostMapping("/cracha/{matricula}/lote")
+    public Mono<ResponseEntity<OperacaoLoteResponseDTO>> operacaoEmLotePorCracha(
+            @PathVariable String matricula,
+            @Valid @RequestBody OperacaoLoteRequestDTO request) {
+        return Bloqueante.executar(() -> ResponseEntity.ok(reservaService.processarLote(matricula, request)))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST)));
+    }
+
+    /**
+     * Consultar reservas ativas via matrícula
+     */
+    @GetMapping("/cracha/{matricula}/reservas-ativas")
+    public Flux<ReservaResponseDTO> consultarReservasAtivasPorCracha(@PathVariable String matricula) {
+        return portariaService.findReservasAtivasByMatricula(matricula);
+    }
+
+    /**
+     * Limpar todas as reservas (ativas e histórico)
+     */
+    @DeleteMapping("/limpar")
+    public Mono<ResponseEntity<Map<String, Object>>> limparTodasReservas() {
+        return Bloqueante.executar(() -> ResponseEntity.ok(reservaService.limparTodasReservas()))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST)));
+    }
+
+    /**
+     * Dashboard
+     */
+    @GetMapping("/dashboard")
+    public Mono<Map<String, Object>> getDashboard() {
+        return portariaService.getDashboard();
+    }
+}
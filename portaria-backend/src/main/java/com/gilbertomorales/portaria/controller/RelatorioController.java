@@ -0,0 +1,53 @@
+package com.gilbertomorales.portaria.controller;
+
+import com.gilbertomorales.portaria.config.GlobalExceptionHandler;
+import com.gilbertomorales.portaria.dto.UsoDTO;
+import com.gilbertomorales.portaria.model.enums.DimensaoUso;
+import com.gilbertomorales.portaria.service.RelatorioUsoService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/relatorios")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RelatorioController {
+
+    private final RelatorioUsoService relatorioUsoService;
+
+    /**
+     * Empréstimos encerrados e duração média por usuário, item, tipo de item, hora ou dia da retirada
+     */
+    @GetMapping("/uso")
+    public ResponseEntity<List<UsoDTO>> getUso(
+            @RequestParam(defaultValue = "DIA") DimensaoUso por,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate) {
+        try {
+            return ResponseEntity.ok(relatorioUsoService.consultar(por, de, ate));
+        } catch (RuntimeException e) {
+            return GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Recalcula os rollups de uso a partir de todas as reservas devolvidas
+     */
+    @PostMapping("/uso/reconstruir")
+    public ResponseEntity<Map<String, Object>> reconstruirUso() {
+        long processadas = relatorioUsoService.reconstruir();
+        return ResponseEntity.ok(Map.of(
+                "reservasProcessadas", processadas,
+                "timestamp", LocalDateTime.now()));
+    }
+}
@@ -1,41 +1,122 @@
 package com.gilbertomorales.portaria.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gilbertomorales.portaria.config.GlobalExceptionHandler;
+import com.gilbertomorales.portaria.dto.ReservaFiltroDTO;
+import com.gilbertomorales.portaria.dto.ReservaPaginaDTO;
 import com.gilbertomorales.portaria.dto.ReservaRequestDTO;
 import com.gilbertomorales.portaria.dto.ReservaResponseDTO;
 import com.gilbertomorales.portaria.dto.RetiradaDevolucaoDTO;
+import com.gilbertomorales.portaria.service.AtrasoService;
 import com.gilbertomorales.portaria.service.ReservaService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/reservas")
 @RequiredArgsConstructor
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = ReservaController.PROXIMO_CURSOR)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ReservaController {
 
+    static final String PROXIMO_CURSOR = "X-Proximo-Cursor";
+
     private final ReservaService reservaService;
+    private final AtrasoService atrasoService;
+    private final ObjectMapper objectMapper;
 
+    /**
+     * @deprecated devolve só as reservas mais recentes (uma página); use /pagina ou /exportar
+     */
+    @Deprecated
     @GetMapping
     public ResponseEntity<List<ReservaResponseDTO>> getAllReservas() {
-        List<ReservaResponseDTO> reservas = reservaService.findAll();
-        return ResponseEntity.ok(reservas);
+        return primeiraPagina(reservaService.findAll());
+    }
+
+    /**
+     * Histórico paginado por cursor, com filtros opcionais
+     */
+    @GetMapping("/pagina")
+    public ResponseEntity<ReservaPaginaDTO> getReservasPaginadas(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int tamanho,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String itemId,
+            @RequestParam(required = false) String matricula,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate) {
+        try {
+            ReservaFiltroDTO filtro = new ReservaFiltroDTO(status, itemId, matricula, de, ate);
+            ReservaPaginaDTO pagina = reservaService.buscarPagina(filtro, cursor, tamanho);
+            return ResponseEntity.ok(pagina);
+        } catch (RuntimeException e) {
+            return GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Exportação completa em NDJSON (uma reserva por linha), transmitida direto do cursor do Mongo
+     */
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarReservas(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String itemId,
+            @RequestParam(required = false) String matricula,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate) {
+        ReservaFiltroDTO filtro = new ReservaFiltroDTO(status, itemId, matricula, de, ate);
+
+        StreamingResponseBody corpo = saida -> reservaService.exportar(filtro, reserva -> {
+            try {
+                saida.write(objectMapper.writeValueAsBytes(reserva));
+                saida.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(corpo);
     }
 
+    /**
+     * @deprecated devolve só as reservas mais recentes do item (uma página); use /pagina?itemId=
+     */
+    @Deprecated
     @GetMapping("/item/{itemId}")
     public ResponseEntity<List<ReservaResponseDTO>> getReservasByItem(@PathVariable String itemId) {
-        List<ReservaResponseDTO> reservas = reservaService.findByItemId(itemId);
-        return ResponseEntity.ok(reservas);
+        return primeiraPagina(reservaService.findByItemId(itemId));
     }
 
+    /**
+     * @deprecated devolve só as reservas mais recentes da matrícula (uma página); use /pagina?matricula=
+     */
+    @Deprecated
     @GetMapping("/usuario/matricula/{matricula}")
     public ResponseEntity<List<ReservaResponseDTO>> getReservasByMatricula(@PathVariable String matricula) {
-        List<ReservaResponseDTO> reservas = reservaService.findByMatricula(matricula);
-        return ResponseEntity.ok(reservas);
+        return primeiraPagina(reservaService.findByMatricula(matricula));
+    }
+
+    /**
+     * Reservas retiradas e não devolvidas dentro do prazo, da mais antiga para a mais recente
+     */
+    @GetMapping("/atrasadas")
+    public ResponseEntity<List<ReservaResponseDTO>> getReservasAtrasadas() {
+        return ResponseEntity.ok(atrasoService.findAtrasadas());
     }
 
     @GetMapping("/ativas/matricula/{matricula}")
@@ -50,7 +131,7 @@ public class ReservaController {
             ReservaResponseDTO reserva = reservaService.criarReserva(request);
             return ResponseEntity.status(HttpStatus.CREATED).body(reserva);
         } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().build();
+            return GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST);
         }
     }
 
@@ -62,7 +143,7 @@ public class ReservaController {
             ReservaResponseDTO reserva = reservaService.registrarRetirada(reservaId, request);
             return ResponseEntity.ok(reserva);
         } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().build();
+            return GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST);
         }
     }
 
@@ -74,7 +155,16 @@ public class ReservaController {
             ReservaResponseDTO reserva = reservaService.registrarDevolucao(reservaId, request);
             return ResponseEntity.ok(reserva);
         } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().build();
+            return GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Quando a lista foi cortada, o cabeçalho leva o cursor para continuar em /pagina
+    private static ResponseEntity<List<ReservaResponseDTO>> primeiraPagina(ReservaPaginaDTO pagina) {
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok();
+        if (pagina.temMais()) {
+            resposta.header(PROXIMO_CURSOR, pagina.proximoCursor());
         }
+        return resposta.body(pagina.conteudo());
     }
 }
@@ -0,0 +1,117 @@
+package com.gilbertomorales.portaria.controller;
+
+import com.gilbertomorales.portaria.config.GlobalExceptionHandler;
+import com.gilbertomorales.portaria.dto.ReservaFiltroDTO;
+import com.gilbertomorales.portaria.dto.ReservaPaginaDTO;
+import com.gilbertomorales.portaria.dto.ReservaRequestDTO;
+import com.gilbertomorales.portaria.dto.ReservaResponseDTO;
+import com.gilbertomorales.portaria.dto.RetiradaDevolucaoDTO;
+import com.gilbertomorales.portaria.service.AtrasoService;
+import com.gilbertomorales.portaria.service.PortariaReativaService;
+import com.gilbertomorales.portaria.service.ReservaService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import jakarta.validation.Valid;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Rotas de reservas do perfil "reativo" (WebFlux). As listagens são transmitidas conforme chegam do Mongo;
+ * com {@code Accept: application/x-ndjson} saem uma reserva por linha.
+ */
+@RestController
+@RequestMapping("/api/reservas")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReservaReativaController {
+
+    private final PortariaReativaService portariaService;
+    private final ReservaService reservaService;
+    private final AtrasoService atrasoService;
+
+    @GetMapping
+    public Flux<ReservaResponseDTO> getAllReservas() {
+        return portariaService.findAll();
+    }
+
+    @GetMapping("/pagina")
+    public Mono<ResponseEntity<ReservaPaginaDTO>> getReservasPaginadas(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int tamanho,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String itemId,
+            @RequestParam(required = false) String matricula,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate) {
+        ReservaFiltroDTO filtro = new ReservaFiltroDTO(status, itemId, matricula, de, ate);
+        return Bloqueante.executar(() -> ResponseEntity.ok(reservaService.buscarPagina(filtro, cursor, tamanho)))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST)));
+    }
+
+    /**
+     * Exportação completa em NDJSON, transmitida conforme as reservas chegam do Mongo
+     */
+    @GetMapping(value = "/exportar", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ReservaResponseDTO> exportarReservas(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String itemId,
+            @RequestParam(required = false) String matricula,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate) {
+        return portariaService.exportar(new ReservaFiltroDTO(status, itemId, matricula, de, ate));
+    }
+
+    @GetMapping("/item/{itemId}")
+    public Flux<ReservaResponseDTO> getReservasByItem(@PathVariable String itemId) {
+        return portariaService.findByItemId(itemId);
+    }
+
+    @GetMapping("/usuario/matricula/{matricula}")
+    public Flux<ReservaResponseDTO> getReservasByMatricula(@PathVariable String matricula) {
+        return portariaService.findByMatricula(matricula);
+    }
+
+    @GetMapping("/atrasadas")
+    public Mono<List<ReservaResponseDTO>> getReservasAtrasadas() {
+        return Bloqueante.executar(atrasoService::findAtrasadas);
+    }
+
+    @GetMapping("/ativas/matricula/{matricula}")
+    public Flux<ReservaResponseDTO> getReservasAtivasByMatricula(@PathVariable String matricula) {
+        return portariaService.findReservasAtivasByMatricula(matricula);
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<ReservaResponseDTO>> criarReserva(@Valid @RequestBody ReservaRequestDTO request) {
+        return portariaService.criarReserva(request)
+                .map(reserva -> ResponseEntity.status(HttpStatus.CREATED).body(reserva))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST)));
+    }
+
+    @PatchMapping("/{reservaId}/retirada")
+    public Mono<ResponseEntity<ReservaResponseDTO>> registrarRetirada(
+            @PathVariable String reservaId,
+            @Valid @RequestBody RetiradaDevolucaoDTO request) {
+        return portariaService.registrarRetirada(reservaId, request)
+                .map(ResponseEntity::ok)
+                .onErrorResume(RuntimeException.class, e -> Mono.just(GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST)));
+    }
+
+    @PatchMapping("/{reservaId}/devolucao")
+    public Mono<ResponseEntity<ReservaResponseDTO>> registrarDevolucao(
+            @PathVariable String reservaId,
+            @Valid @RequestBody RetiradaDevolucaoDTO request) {
+        return portariaService.registrarDevolucao(reservaId, request)
+                .map(ResponseEntity::ok)
+                .onErrorResume(RuntimeException.class, e -> Mono.just(GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST)));
+    }
+}
@@ -0,0 +1,26 @@
+package com.gilbertomorales.portaria.controller;
+
+import com.gilbertomorales.portaria.dto.SincronizacaoDTO;
+import com.gilbertomorales.portaria.service.SincronizacaoService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/sincronizacao")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class SincronizacaoController {
+
+    private final SincronizacaoService sincronizacaoService;
+
+    /**
+     * Usuários, itens e reservas ativas alterados ou removidos desde a versão informada; sem versão, tudo
+     */
+    @GetMapping
+    public ResponseEntity<SincronizacaoDTO> sincronizar(@RequestParam(required = false) Long desde) {
+        return ResponseEntity.ok(sincronizacaoService.sincronizar(desde));
+    }
+}
@@ -1,22 +1,39 @@
 package com.gilbertomorales.portaria.controller;
 
+import com.gilbertomorales.portaria.config.GlobalExceptionHandler;
+import com.gilbertomorales.portaria.dto.ImportacaoResultadoDTO;
+import com.gilbertomorales.portaria.dto.UsuarioResumoDTO;
 import com.gilbertomorales.portaria.model.User;
+import com.gilbertomorales.portaria.service.BuscaService;
+import com.gilbertomorales.portaria.service.ImportacaoExportacaoService;
 import com.gilbertomorales.portaria.service.UserService;
+import com.gilbertomorales.portaria.service.VersaoCadastrosService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/users")
 @RequiredArgsConstructor
 @CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserController {
 
     private final UserService userService;
+    private final ImportacaoExportacaoService importacaoExportacaoService;
+    private final VersaoCadastrosService versaoCadastrosService;
+    private final BuscaService buscaService;
 
     @GetMapping
     public ResponseEntity<List<User>> getAllUsers() {
@@ -24,6 +41,31 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    /**
+     * Lista resumida (id, nome, tipo, matricula) com ETag: se nada mudou, responde 304 sem consultar o banco
+     */
+    @GetMapping("/resumo")
+    public ResponseEntity<List<UsuarioResumoDTO>> getResumoUsuarios(WebRequest request) {
+        String etag = versaoCadastrosService.etagUsuarios();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        List<UsuarioResumoDTO> users = userService.findResumo();
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(users);
+    }
+
+    /**
+     * Busca por início de nome, matrícula ou email, sem diferenciar acentos, em ordem alfabética
+     */
+    @GetMapping("/buscar")
+    public ResponseEntity<List<User>> buscarUsuarios(@RequestParam String q,
+                                                     @RequestParam(defaultValue = "20") int limite) {
+        return ResponseEntity.ok(buscaService.buscarUsuarios(q, limite));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<User> getUserById(@PathVariable String id) {
         return userService.findById(id)
@@ -44,17 +86,45 @@ public class UserController {
             User savedUser = userService.save(user);
             return ResponseEntity.status(HttpStatus.CREATED).body(savedUser);
         } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().build();
+            return GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST);
         }
     }
 
+    /**
+     * Importação em lote (NDJSON ou CSV com cabeçalho), com relatório de erros por linha
+     */
+    @PostMapping(value = "/importar", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<ImportacaoResultadoDTO> importarUsuarios(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream entrada) {
+        ImportacaoExportacaoService.Formato formato = contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? ImportacaoExportacaoService.Formato.NDJSON
+                : ImportacaoExportacaoService.Formato.CSV;
+        ImportacaoResultadoDTO resultado = importacaoExportacaoService.importarUsuarios(entrada, formato);
+        return ResponseEntity.ok(resultado);
+    }
+
+    /**
+     * Exportação completa em NDJSON (padrão) ou CSV, transmitida direto do cursor do Mongo
+     */
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarUsuarios(@RequestParam(defaultValue = "NDJSON") String formato) {
+        ImportacaoExportacaoService.Formato formatoSaida = ImportacaoExportacaoService.Formato.valueOf(formato.toUpperCase());
+        StreamingResponseBody corpo = saida -> importacaoExportacaoService.exportarUsuarios(saida, formatoSaida);
+
+        MediaType tipo = formatoSaida == ImportacaoExportacaoService.Formato.CSV
+                ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                : MediaType.APPLICATION_NDJSON;
+        return ResponseEntity.ok().contentType(tipo).body(corpo);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<User> updateUser(@PathVariable String id, @Valid @RequestBody User user) {
         try {
             User updatedUser = userService.update(id, user);
             return ResponseEntity.ok(updatedUser);
         } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
+            return GlobalExceptionHandler.falha(e, HttpStatus.NOT_FOUND);
         }
     }
 
@@ -0,0 +1,118 @@
+package com.gilbertomorales.portaria.controller;
+
+import com.gilbertomorales.portaria.config.GlobalExceptionHandler;
+import com.gilbertomorales.portaria.dto.ImportacaoResultadoDTO;
+import com.gilbertomorales.portaria.dto.UsuarioResumoDTO;
+import com.gilbertomorales.portaria.model.User;
+import com.gilbertomorales.portaria.service.BuscaService;
+import com.gilbertomorales.portaria.service.ImportacaoExportacaoService;
+import com.gilbertomorales.portaria.service.UserService;
+import com.gilbertomorales.portaria.service.VersaoCadastrosService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import jakarta.validation.Valid;
+import java.util.List;
+
+/**
+ * Rotas de usuários do perfil "reativo", com o mesmo contrato do {@link UserController}. Os cadastros
+ * continuam nos serviços bloqueantes, chamados fora das threads do Netty
+ */
+@RestController
+@RequestMapping("/api/users")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class UserReativoController {
+
+    private final UserService userService;
+    private final ImportacaoExportacaoService importacaoExportacaoService;
+    private final VersaoCadastrosService versaoCadastrosService;
+    private final BuscaService buscaService;
+
+    @GetMapping
+    public Mono<List<User>> getAllUsers() {
+        return Bloqueante.executar(userService::findAll);
+    }
+
+    @GetMapping("/resumo")
+    public Mono<ResponseEntity<List<UsuarioResumoDTO>>> getResumoUsuarios(ServerWebExchange exchange) {
+        String etag = versaoCadastrosService.etagUsuarios();
+        if (exchange.checkNotModified(etag)) {
+            return Mono.empty();
+        }
+        return Bloqueante.executar(() -> ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(userService.findResumo()));
+    }
+
+    @GetMapping("/buscar")
+    public Mono<List<User>> buscarUsuarios(@RequestParam String q, @RequestParam(defaultValue = "20") int limite) {
+        // A primeira busca carrega o índice do banco
+        return Bloqueante.executar(() -> buscaService.buscarUsuarios(q, limite));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<User>> getUserById(@PathVariable String id) {
+        return Bloqueante.executar(() -> userService.findById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build()));
+    }
+
+    @GetMapping("/matricula/{matricula}")
+    public Mono<ResponseEntity<User>> getUserByMatricula(@PathVariable String matricula) {
+        return Bloqueante.executar(() -> userService.findByMatricula(matricula)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build()));
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<User>> createUser(@Valid @RequestBody User user) {
+        return Bloqueante.executar(() -> ResponseEntity.status(HttpStatus.CREATED).body(userService.save(user)))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(GlobalExceptionHandler.falha(e, HttpStatus.BAD_REQUEST)));
+    }
+
+    @PostMapping(value = "/importar", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public Mono<ImportacaoResultadoDTO> importarUsuarios(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                         @RequestBody Flux<DataBuffer> corpo) {
+        ImportacaoExportacaoService.Formato formato = contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? ImportacaoExportacaoService.Formato.NDJSON
+                : ImportacaoExportacaoService.Formato.CSV;
+        return Bloqueante.ler(corpo, entrada -> importacaoExportacaoService.importarUsuarios(entrada, formato));
+    }
+
+    @GetMapping("/exportar")
+    public ResponseEntity<Flux<DataBuffer>> exportarUsuarios(@RequestParam(defaultValue = "NDJSON") String formato) {
+        ImportacaoExportacaoService.Formato formatoSaida = ImportacaoExportacaoService.Formato.valueOf(formato.toUpperCase());
+        MediaType tipo = formatoSaida == ImportacaoExportacaoService.Formato.CSV
+                ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                : MediaType.APPLICATION_NDJSON;
+        return ResponseEntity.ok().contentType(tipo)
+                .body(Bloqueante.escrever(saida -> importacaoExportacaoService.exportarUsuarios(saida, formatoSaida)));
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<User>> updateUser(@PathVariable String id, @Valid @RequestBody User user) {
+        return Bloqueante.executar(() -> ResponseEntity.ok(userService.update(id, user)))
+                .onErrorResume(RuntimeException.class, e -> Mono.just(GlobalExceptionHandler.falha(e, HttpStatus.NOT_FOUND)));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteUser(@PathVariable String id) {
+        return Bloqueante.executar(() -> {
+            userService.deleteById(id);
+            return ResponseEntity.noContent().build();
+        });
+    }
+}
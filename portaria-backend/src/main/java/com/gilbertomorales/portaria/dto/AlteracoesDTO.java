@@ -0,0 +1,9 @@
+package com.gilbertomorales.portaria.dto;
+
+import java.util.List;
+
+public record AlteracoesDTO<T>(
+    boolean completo, // true: a lista traz tudo e substitui a cópia local
+    List<T> alterados,
+    List<String> removidos
+) {}
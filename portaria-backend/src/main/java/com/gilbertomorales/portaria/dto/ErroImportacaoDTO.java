@@ -0,0 +1,6 @@
+package com.gilbertomorales.portaria.dto;
+
+public record ErroImportacaoDTO(
+    long linha,
+    String mensagem
+) {}
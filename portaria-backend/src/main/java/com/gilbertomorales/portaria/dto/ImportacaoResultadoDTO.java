@@ -0,0 +1,10 @@
+package com.gilbertomorales.portaria.dto;
+
+import java.util.List;
+
+public record ImportacaoResultadoDTO(
+    long totalRegistros,
+    long importados,
+    long falhas,
+    List<ErroImportacaoDTO> erros // limitado às primeiras falhas
+) {}
@@ -0,0 +1,10 @@
+package com.gilbertomorales.portaria.dto;
+
+import com.gilbertomorales.portaria.model.enums.TipoItem;
+
+public record ItemResumoDTO(
+    String id,
+    String nome,
+    TipoItem tipo,
+    Boolean disponivel
+) {}
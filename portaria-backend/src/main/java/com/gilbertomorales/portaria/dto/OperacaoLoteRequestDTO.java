@@ -0,0 +1,19 @@
+package com.gilbertomorales.portaria.dto;
+
+import com.gilbertomorales.portaria.model.enums.OperacaoPortaria;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record OperacaoLoteRequestDTO(
+    @NotNull(message = "Operação é obrigatória")
+    OperacaoPortaria operacao,
+
+    // IDs de itens para RESERVAR; IDs de reservas para RETIRAR e DEVOLVER
+    @NotEmpty(message = "Informe ao menos um ID")
+    @Size(max = 100, message = "No máximo 100 IDs por lote")
+    List<@NotBlank(message = "ID não pode ser vazio") String> ids
+) {}
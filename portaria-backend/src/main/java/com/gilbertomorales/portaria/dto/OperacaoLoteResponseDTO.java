@@ -0,0 +1,12 @@
+package com.gilbertomorales.portaria.dto;
+
+import com.gilbertomorales.portaria.model.enums.OperacaoPortaria;
+
+import java.util.List;
+
+public record OperacaoLoteResponseDTO(
+    OperacaoPortaria operacao,
+    long sucessos,
+    long falhas,
+    List<ResultadoItemLoteDTO> resultados
+) {}
@@ -0,0 +1,20 @@
+package com.gilbertomorales.portaria.dto;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+public record ReservaFiltroDTO(
+    String status, // RESERVADO, RETIRADO, DEVOLVIDO
+    String itemId,
+    String matriculaUsuario,
+    LocalDateTime de,
+    LocalDateTime ate
+) {
+    private static final Set<String> STATUS_VALIDOS = Set.of("RESERVADO", "RETIRADO", "DEVOLVIDO");
+
+    public ReservaFiltroDTO {
+        if (status != null && !STATUS_VALIDOS.contains(status)) {
+            throw new RuntimeException("Status inválido: " + status);
+        }
+    }
+}
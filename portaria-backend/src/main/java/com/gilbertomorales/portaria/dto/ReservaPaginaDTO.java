@@ -0,0 +1,9 @@
+package com.gilbertomorales.portaria.dto;
+
+import java.util.List;
+
+public record ReservaPaginaDTO(
+    List<ReservaResponseDTO> conteudo,
+    String proximoCursor, // null quando não há mais páginas
+    boolean temMais
+) {}
@@ -12,5 +12,7 @@ public record ReservaResponseDTO(
     LocalDateTime dataReserva,
     LocalDateTime dataRetirada,
     LocalDateTime dataDevolucao,
-    String status // RESERVADO, RETIRADO, DEVOLVIDO
+    String status, // RESERVADO, RETIRADO, DEVOLVIDO
+    LocalDateTime prazoDevolucao,
+    boolean atrasada
 ) {}
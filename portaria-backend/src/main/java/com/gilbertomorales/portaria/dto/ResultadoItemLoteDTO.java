@@ -0,0 +1,8 @@
+package com.gilbertomorales.portaria.dto;
+
+public record ResultadoItemLoteDTO(
+    String id,
+    boolean sucesso,
+    ReservaResponseDTO reserva, // preenchido quando sucesso
+    String erro // preenchido quando falha
+) {}
@@ -0,0 +1,11 @@
+package com.gilbertomorales.portaria.dto;
+
+import com.gilbertomorales.portaria.model.Item;
+import com.gilbertomorales.portaria.model.User;
+
+public record SincronizacaoDTO(
+    long versao, // enviar como "desde" na próxima sincronização
+    AlteracoesDTO<User> usuarios,
+    AlteracoesDTO<Item> itens,
+    AlteracoesDTO<ReservaResponseDTO> reservas // só reservas ativas; devolvidas aparecem em removidos
+) {}
@@ -0,0 +1,8 @@
+package com.gilbertomorales.portaria.dto;
+
+public record UsoDTO(
+    String chave,
+    String descricao,
+    long emprestimos,
+    double duracaoMediaMinutos
+) {}
@@ -0,0 +1,10 @@
+package com.gilbertomorales.portaria.dto;
+
+import com.gilbertomorales.portaria.model.enums.TipoUsuario;
+
+public record UsuarioResumoDTO(
+    String id,
+    String nome,
+    TipoUsuario tipo,
+    String matricula
+) {}
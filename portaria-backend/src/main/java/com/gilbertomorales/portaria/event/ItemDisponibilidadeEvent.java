@@ -0,0 +1,19 @@
+package com.gilbertomorales.portaria.event;
+
+import com.gilbertomorales.portaria.model.Item;
+
+/**
+ * Mudança de disponibilidade de um item. Leva o item como ficou, para que os terminais o apliquem
+ * sem recarregar a lista, e a versão da escrita, para descartar eventos que cheguem fora de ordem
+ */
+public record ItemDisponibilidadeEvent(
+    String itemId,
+    boolean disponivel,
+    Long versao,
+    Item item
+) {
+
+    public static ItemDisponibilidadeEvent de(Item item) {
+        return new ItemDisponibilidadeEvent(item.getId(), Boolean.TRUE.equals(item.getDisponivel()), item.getVersao(), item);
+    }
+}
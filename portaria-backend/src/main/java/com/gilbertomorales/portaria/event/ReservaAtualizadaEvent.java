@@ -0,0 +1,7 @@
+package com.gilbertomorales.portaria.event;
+
+import com.gilbertomorales.portaria.dto.ReservaResponseDTO;
+
+public record ReservaAtualizadaEvent(
+    ReservaResponseDTO reserva
+) {}
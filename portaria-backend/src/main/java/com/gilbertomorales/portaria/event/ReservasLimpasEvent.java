@@ -0,0 +1,8 @@
+package com.gilbertomorales.portaria.event;
+
+import java.util.List;
+
+public record ReservasLimpasEvent(
+    long totalRemovidas,
+    List<String> itensDisponibilizados
+) {}
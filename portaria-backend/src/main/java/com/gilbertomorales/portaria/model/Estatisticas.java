@@ -0,0 +1,36 @@
+package com.gilbertomorales.portaria.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Contadores materializados da portaria, num documento único mantido com $inc a cada operação.
+ * As chaves dos mapas são os nomes de {@link com.gilbertomorales.portaria.model.enums.TipoItem}
+ * e os status de reserva (RESERVADO, RETIRADO, DEVOLVIDO).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "estatisticas")
+public class Estatisticas {
+
+    public static final String ID = "portaria";
+
+    @Id
+    private String id;
+
+    private Map<String, Long> itensPorTipo = new HashMap<>();
+
+    private Map<String, Long> disponiveisPorTipo = new HashMap<>();
+
+    private Map<String, Long> reservasPorStatus = new HashMap<>();
+
+    private LocalDateTime reconciliadoEm;
+}
@@ -0,0 +1,65 @@
+package com.gilbertomorales.portaria.model;
+
+import com.gilbertomorales.portaria.model.enums.TipoEventoPortaria;
+import com.gilbertomorales.portaria.model.enums.TipoItem;
+import com.gilbertomorales.portaria.model.enums.TipoUsuario;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ação da portaria gravada uma única vez e nunca alterada. O id é gerado no momento do registro,
+ * então a ordem dos ids é a ordem em que as ações aconteceram neste processo. Cada evento leva os
+ * dados da reserva naquele momento, o que basta para reconstruir as reservas sem outra fonte.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "eventos_portaria")
+public class EventoPortaria {
+
+    @Id
+    private String id;
+
+    private TipoEventoPortaria tipo;
+
+    private LocalDateTime ocorridoEm;
+
+    private String reservaId;
+    private String itemId;
+    private String nomeItem;
+    private TipoItem tipoItem;
+    private String usuarioId;
+    private String nomeUsuario;
+    private String matriculaUsuario;
+    private TipoUsuario tipoUsuario;
+
+    // Prazo calculado na retirada
+    private LocalDateTime prazoDevolucao;
+
+    public static EventoPortaria de(TipoEventoPortaria tipo, Reserva reserva) {
+        LocalDateTime ocorridoEm = switch (tipo) {
+            case RESERVA -> reserva.getDataReserva();
+            case RETIRADA -> reserva.getDataRetirada();
+            case DEVOLUCAO -> reserva.getDataDevolucao();
+            case LIMPEZA -> LocalDateTime.now();
+        };
+        return new EventoPortaria(new ObjectId().toHexString(), tipo, ocorridoEm, reserva.getId(),
+                reserva.getItemId(), reserva.getNomeItem(), reserva.getTipoItem(), reserva.getUsuarioId(),
+                reserva.getNomeUsuario(), reserva.getMatriculaUsuario(), reserva.getTipoUsuario(),
+                reserva.getPrazoDevolucao());
+    }
+
+    public static EventoPortaria limpeza() {
+        EventoPortaria evento = new EventoPortaria();
+        evento.setId(new ObjectId().toHexString());
+        evento.setTipo(TipoEventoPortaria.LIMPEZA);
+        evento.setOcorridoEm(LocalDateTime.now());
+        return evento;
+    }
+}
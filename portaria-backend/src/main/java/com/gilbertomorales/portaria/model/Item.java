@@ -14,7 +14,7 @@ import jakarta.validation.constraints.NotNull;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "items")
-public class Item {
+public class Item implements Sincronizavel {
 
     @Id
     private String id;
@@ -30,4 +30,7 @@ public class Item {
 
     @NotBlank(message = "Localização é obrigatória")
     private String localizacao;
+
+    // Versão da última escrita, para a sincronização incremental dos terminais
+    private Long versao;
 }
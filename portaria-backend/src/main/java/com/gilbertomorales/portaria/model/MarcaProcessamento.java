@@ -0,0 +1,27 @@
+package com.gilbertomorales.portaria.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Até onde um processamento incremental já chegou; o id identifica o processamento
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "processamentos")
+public class MarcaProcessamento {
+
+    @Id
+    private String id;
+
+    private LocalDateTime processadoAte;
+
+    // Fim da janela em processamento; se a execução parar antes de confirmá-la, a próxima repete a mesma janela
+    private LocalDateTime emAndamentoAte;
+}
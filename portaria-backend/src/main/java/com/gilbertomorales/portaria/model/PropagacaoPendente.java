@@ -0,0 +1,35 @@
+package com.gilbertomorales.portaria.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Cópias de nome e matrícula a atualizar nas reservas de um usuário ou item. Há no máximo uma por
+ * usuário ou item (id = campo:id): uma edição nova substitui a pendente, e só os valores mais
+ * recentes são propagados.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "propagacoes")
+public class PropagacaoPendente {
+
+    @Id
+    private String id;
+
+    // Campo da reserva que aponta para o usuário ou item (usuarioId ou itemId)
+    private String campo;
+
+    private String referencia;
+
+    // Campo da reserva -> valor atual no cadastro
+    private Map<String, String> valores;
+
+    private LocalDateTime solicitadaEm;
+}
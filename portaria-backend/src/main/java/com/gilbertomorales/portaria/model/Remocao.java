@@ -0,0 +1,32 @@
+package com.gilbertomorales.portaria.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marca de um usuário ou item removido, para os terminais apagarem a cópia local na próxima
+ * sincronização. Fica guardada por {@code portaria.sincronizacao.manter-remocoes}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "remocoes")
+public class Remocao {
+
+    // colecao:documentoId
+    @Id
+    private String id;
+
+    private String colecao;
+
+    private String documentoId;
+
+    private Long versao;
+
+    private LocalDateTime removidaEm;
+}
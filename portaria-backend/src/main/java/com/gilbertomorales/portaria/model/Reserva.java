@@ -1,5 +1,7 @@
 package com.gilbertomorales.portaria.model;
 
+import com.gilbertomorales.portaria.model.enums.TipoItem;
+import com.gilbertomorales.portaria.model.enums.TipoUsuario;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,7 +16,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "reservas")
-public class Reserva {
+public class Reserva implements Sincronizavel {
 
     @Id
     private String id;
@@ -35,4 +37,14 @@ public class Reserva {
     private String nomeItem;
     private String nomeUsuario;
     private String matriculaUsuario;
+
+    // Tipos copiados na criação, para calcular o prazo na retirada sem consultar item e usuário
+    private TipoItem tipoItem;
+    private TipoUsuario tipoUsuario;
+
+    private LocalDateTime prazoDevolucao;
+    private Boolean atrasada;
+
+    // Versão da última escrita, para a sincronização incremental dos terminais
+    private Long versao;
 }
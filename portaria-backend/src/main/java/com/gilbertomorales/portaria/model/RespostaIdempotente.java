@@ -0,0 +1,36 @@
+package com.gilbertomorales.portaria.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resposta gravada para um Idempotency-Key. Enquanto a operação roda o documento existe com
+ * {@code concluida = false}, o que bloqueia repetições concorrentes da mesma chave; o índice TTL
+ * sobre {@code criadaEm} apaga as chaves vencidas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "idempotencia")
+public class RespostaIdempotente {
+
+    @Id
+    private String id;
+
+    // Operação e parâmetros da requisição original; a mesma chave em outra requisição é recusada
+    private String requisicao;
+
+    private boolean concluida;
+
+    private int status;
+
+    // Corpo da resposta em JSON (nulo quando a resposta não tinha corpo)
+    private String corpo;
+
+    private LocalDateTime criadaEm;
+}
@@ -0,0 +1,12 @@
+package com.gilbertomorales.portaria.model;
+
+/**
+ * Documento acompanhado pela sincronização incremental dos terminais: toda escrita grava em
+ * {@code versao} um número maior que o de qualquer escrita anterior
+ */
+public interface Sincronizavel {
+
+    Long getVersao();
+
+    void setVersao(Long versao);
+}
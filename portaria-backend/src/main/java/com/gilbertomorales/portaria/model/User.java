@@ -16,7 +16,7 @@ import jakarta.validation.constraints.NotNull;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "users")
-public class User {
+public class User implements Sincronizavel {
 
     @Id
     private String id;
@@ -34,4 +34,7 @@ public class User {
     @Email(message = "Email deve ter formato válido")
     @NotBlank(message = "Email é obrigatório")
     private String email;
+
+    // Versão da última escrita, para a sincronização incremental dos terminais
+    private Long versao;
 }
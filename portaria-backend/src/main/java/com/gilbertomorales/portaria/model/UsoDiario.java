@@ -0,0 +1,46 @@
+package com.gilbertomorales.portaria.model;
+
+import com.gilbertomorales.portaria.model.enums.DimensaoUso;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Rollup diário de empréstimos encerrados: um documento por dia de retirada, dimensão e chave
+ * (matrícula, id do item, tipo de item, hora do dia ou o próprio dia).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "uso_diario")
+public class UsoDiario {
+
+    @Id
+    private String id;
+
+    private LocalDate dia;
+
+    private DimensaoUso dimensao;
+
+    private String chave;
+
+    // Nome do usuário ou do item no empréstimo mais recente
+    private String descricao;
+
+    private long emprestimos;
+
+    // Soma de dataDevolucao - dataRetirada, para a duração média
+    private long duracaoTotalMs;
+
+    // Fim da última janela de processamento somada aqui: uma janela repetida não é somada de novo
+    private LocalDateTime ultimaJanela;
+
+    public static String idDe(LocalDate dia, DimensaoUso dimensao, String chave) {
+        return dia + ":" + dimensao + ":" + chave;
+    }
+}
@@ -0,0 +1,9 @@
+package com.gilbertomorales.portaria.model.enums;
+
+public enum DimensaoUso {
+    USUARIO,
+    ITEM,
+    TIPO_ITEM,
+    HORA,
+    DIA
+}
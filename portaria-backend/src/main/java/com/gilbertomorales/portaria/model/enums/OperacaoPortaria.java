@@ -0,0 +1,7 @@
+package com.gilbertomorales.portaria.model.enums;
+
+public enum OperacaoPortaria {
+    RESERVAR,
+    RETIRAR,
+    DEVOLVER
+}
@@ -0,0 +1,8 @@
+package com.gilbertomorales.portaria.model.enums;
+
+public enum TipoEventoPortaria {
+    RESERVA,
+    RETIRADA,
+    DEVOLUCAO,
+    LIMPEZA
+}
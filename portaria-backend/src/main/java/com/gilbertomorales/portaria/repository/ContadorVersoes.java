@@ -0,0 +1,136 @@
+package com.gilbertomorales.portaria.repository;
+
+import com.gilbertomorales.portaria.model.Sincronizavel;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongFunction;
+
+/**
+ * Versões crescentes das escritas em usuários, itens e reservas, para a sincronização incremental.
+ * O contador fica no documento {@code versao} da coleção {@code sincronizacao}, reservado em blocos
+ * de {@code bloco-versoes}: só o início de cada bloco vai ao banco, e os números de um bloco
+ * abandonado num reinício são pulados, sem nunca se repetir.
+ * <p>
+ * Uma versão é reservada antes da escrita e fica em andamento até a escrita terminar (com sucesso
+ * ou erro): os templates ({@link MongoTemplateVersionado}) liberam as versões dos documentos
+ * inseridos e salvos, e os updates que definem a versão usam {@link #escrever}. A
+ * {@link #versaoConsistente() versão consistente}, que os terminais guardam, fica logo abaixo da
+ * menor versão em andamento. Pressupõe uma única instância da aplicação.
+ */
+@Component
+@RequiredArgsConstructor
+public class ContadorVersoes {
+
+    public static final String COLECAO = "sincronizacao";
+
+    private final MongoTemplate mongoTemplate;
+
+    private final ConcurrentSkipListSet<Long> emAndamento = new ConcurrentSkipListSet<>();
+
+    private long proxima = 1;
+    private long limite;
+    private long ultimaReservada = -1;
+
+    @Value("${portaria.sincronizacao.bloco-versoes:1000}")
+    private int tamanhoBloco;
+
+    /**
+     * Reserva uma versão, em andamento até ser {@link #liberar liberada}
+     */
+    public synchronized long proxima() {
+        if (proxima > limite) {
+            reservarBloco();
+        }
+        ultimaReservada = proxima;
+        emAndamento.add(proxima);
+        return proxima++;
+    }
+
+    /**
+     * Marca a escrita da versão como terminada; versões que não estão em andamento são ignoradas
+     */
+    public void liberar(long versao) {
+        emAndamento.remove(versao);
+    }
+
+    /**
+     * Libera a versão que uma escrita deu ao documento; a que ele já trazia pode ser de outra escrita
+     * ainda em andamento e fica como está
+     */
+    void liberarSeNova(Object documento, Long antes) {
+        Long versao = versaoDe(documento);
+        if (versao != null && !versao.equals(antes)) {
+            liberar(versao);
+        }
+    }
+
+    /**
+     * Libera as versões dadas pelo callback a documentos novos gravados em lote ({@code bulkOps}),
+     * que não passam pelos templates; chamado quando o lote termina, com sucesso ou erro
+     */
+    public void liberarVersoes(Collection<? extends Sincronizavel> documentos) {
+        documentos.forEach(documento -> liberarSeNova(documento, null));
+    }
+
+    static Long versaoDe(Object documento) {
+        return documento instanceof Sincronizavel sincronizavel ? sincronizavel.getVersao() : null;
+    }
+
+    /**
+     * Executa um update com uma versão nova, liberada quando ele termina
+     */
+    public <T> T escrever(LongFunction<T> escrita) {
+        long versao = proxima();
+        try {
+            return escrita.apply(versao);
+        } finally {
+            liberar(versao);
+        }
+    }
+
+    /**
+     * Versão do {@link #escrever} para o ReactiveMongoTemplate: a reserva, que pode ir ao banco,
+     * roda fora do event loop, e a versão é liberada quando o Mono termina ou é cancelado
+     */
+    public <T> Mono<T> escreverReativo(LongFunction<Mono<T>> escrita) {
+        return Mono.using(this::proxima, escrita::apply, this::liberar)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Versão até a qual todas as escritas já estão gravadas: logo abaixo da menor em andamento ou,
+     * sem nenhuma, a mais alta reservada
+     */
+    public synchronized long versaoConsistente() {
+        if (ultimaReservada < 0) {
+            reservarBloco();
+        }
+        // Sob o monitor nenhuma versão é reservada durante a leitura; liberações só fazem a menor subir
+        Long menor = emAndamento.ceiling(Long.MIN_VALUE);
+        return menor != null ? menor - 1 : ultimaReservada;
+    }
+
+    private void reservarBloco() {
+        Document contador = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is("versao")),
+                new Update().inc("valor", tamanhoBloco),
+                FindAndModifyOptions.options().upsert(true).returnNew(true), Document.class, COLECAO);
+        limite = contador.get("valor", Number.class).longValue();
+        proxima = limite - tamanhoBloco + 1;
+        if (ultimaReservada < 0) {
+            // Tudo abaixo do bloco veio de execuções anteriores e já está gravado
+            ultimaReservada = proxima - 1;
+        }
+    }
+}
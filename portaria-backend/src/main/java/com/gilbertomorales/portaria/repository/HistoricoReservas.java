@@ -0,0 +1,161 @@
+package com.gilbertomorales.portaria.repository;
+
+import com.gilbertomorales.portaria.dto.ReservaFiltroDTO;
+import com.gilbertomorales.portaria.model.Reserva;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Leitura conjunta de {@code reservas} (reservas recentes) e {@code reservas_historico} (devolvidas
+ * arquivadas): as duas coleções são lidas na mesma ordem e intercaladas, como se fossem uma só.
+ */
+final class HistoricoReservas {
+
+    static final String COLECAO = ReservaRepositoryCustom.COLECAO_HISTORICO;
+
+    static final Sort ORDEM = Sort.by(Sort.Direction.DESC, "dataReserva")
+            .and(Sort.by(Sort.Direction.DESC, "id"));
+
+    static final Comparator<Reserva> COMPARADOR = Comparator.comparing(Reserva::getDataReserva)
+            .thenComparing(Reserva::getId)
+            .reversed();
+
+    private HistoricoReservas() {
+    }
+
+    /**
+     * Só reservas devolvidas são arquivadas: filtros de reservas em aberto ficam na coleção principal
+     */
+    static boolean incluiArquivadas(ReservaFiltroDTO filtro) {
+        return filtro == null || filtro.status() == null || "DEVOLVIDO".equals(filtro.status());
+    }
+
+    /**
+     * Mesma consulta sobre o histórico. Cópias de reservas em aberto feitas pela limpeza antiga
+     * (que arquivava tudo) são ignoradas: ali só valem as devolvidas
+     */
+    static Query queryArquivadas(List<Criteria> criterios) {
+        List<Criteria> arquivadas = new ArrayList<>(criterios);
+        arquivadas.add(Criteria.where("dataDevolucao").ne(null));
+        return montarQuery(arquivadas);
+    }
+
+    static Query montarQuery(List<Criteria> criterios) {
+        return criterios.isEmpty()
+                ? new Query()
+                : new Query(new Criteria().andOperator(criterios));
+    }
+
+    static List<Criteria> criteriosDoFiltro(ReservaFiltroDTO filtro) {
+        List<Criteria> criterios = new ArrayList<>();
+        if (filtro == null) {
+            return criterios;
+        }
+
+        if (filtro.status() != null) {
+            switch (filtro.status()) {
+                case "RESERVADO" -> {
+                    criterios.add(Criteria.where("dataRetirada").is(null));
+                    criterios.add(Criteria.where("dataDevolucao").is(null));
+                }
+                case "RETIRADO" -> {
+                    criterios.add(Criteria.where("dataRetirada").ne(null));
+                    criterios.add(Criteria.where("dataDevolucao").is(null));
+                }
+                case "DEVOLVIDO" -> criterios.add(Criteria.where("dataDevolucao").ne(null));
+                default -> {
+                    // ReservaFiltroDTO já rejeita status desconhecidos
+                }
+            }
+        }
+        if (filtro.itemId() != null) {
+            criterios.add(Criteria.where("itemId").is(filtro.itemId()));
+        }
+        if (filtro.matriculaUsuario() != null) {
+            criterios.add(Criteria.where("matriculaUsuario").is(filtro.matriculaUsuario()));
+        }
+        if (filtro.de() != null) {
+            criterios.add(Criteria.where("dataReserva").gte(filtro.de()));
+        }
+        if (filtro.ate() != null) {
+            criterios.add(Criteria.where("dataReserva").lt(filtro.ate()));
+        }
+        return criterios;
+    }
+
+    /**
+     * Intercala dois fluxos já ordenados por {@link #ORDEM}. Uma reserva presente nas duas coleções
+     * (arquivamento interrompido entre a cópia e a remoção) aparece uma única vez
+     */
+    static Stream<Reserva> intercalar(Stream<Reserva> recentes, Stream<Reserva> arquivadas) {
+        Iterator<Reserva> iterador = new Intercalacao(recentes.iterator(), arquivadas.iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterador, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try {
+                        recentes.close();
+                    } finally {
+                        arquivadas.close();
+                    }
+                });
+    }
+
+    private static final class Intercalacao implements Iterator<Reserva> {
+
+        private final Iterator<Reserva> a;
+        private final Iterator<Reserva> b;
+        private Reserva proximaA;
+        private Reserva proximaB;
+        private String ultimoId;
+
+        private Intercalacao(Iterator<Reserva> a, Iterator<Reserva> b) {
+            this.a = a;
+            this.b = b;
+            proximaA = a.hasNext() ? a.next() : null;
+            proximaB = b.hasNext() ? b.next() : null;
+            pularRepetidas();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return proximaA != null || proximaB != null;
+        }
+
+        @Override
+        public Reserva next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Reserva atual;
+            if (proximaB == null || (proximaA != null && COMPARADOR.compare(proximaA, proximaB) <= 0)) {
+                atual = proximaA;
+                proximaA = a.hasNext() ? a.next() : null;
+            } else {
+                atual = proximaB;
+                proximaB = b.hasNext() ? b.next() : null;
+            }
+            ultimoId = atual.getId();
+            pularRepetidas();
+            return atual;
+        }
+
+        private void pularRepetidas() {
+            while (proximaA != null && proximaA.getId().equals(ultimoId)) {
+                proximaA = a.hasNext() ? a.next() : null;
+            }
+            while (proximaB != null && proximaB.getId().equals(ultimoId)) {
+                proximaB = b.hasNext() ? b.next() : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.gilbertomorales.portaria.repository;
+
+import com.gilbertomorales.portaria.model.Item;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Versão não bloqueante do {@link ItemRepository}, usada no perfil "reativo"
+ */
+@Repository
+public interface ItemReativoRepository extends ReactiveMongoRepository<Item, String>, ItemReativoRepositoryCustom {
+
+    Flux<Item> findByDisponivelTrue();
+}
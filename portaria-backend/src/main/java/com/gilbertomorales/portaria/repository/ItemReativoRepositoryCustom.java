@@ -0,0 +1,18 @@
+package com.gilbertomorales.portaria.repository;
+
+import com.gilbertomorales.portaria.model.Item;
+import reactor.core.publisher.Mono;
+
+public interface ItemReativoRepositoryCustom {
+
+    /**
+     * Marca o item como indisponível somente se ele ainda estiver disponível, numa única operação atômica
+     */
+    Mono<Item> reservarSeDisponivel(String id);
+
+    /**
+     * Altera a disponibilidade somente se ela for diferente da atual, numa única operação atômica;
+     * vazio se o item já estava nesse estado ou não existe
+     */
+    Mono<Item> alterarDisponibilidade(String id, boolean disponivel);
+}
@@ -0,0 +1,33 @@
+package com.gilbertomorales.portaria.repository;
+
+import com.gilbertomorales.portaria.model.Item;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class ItemReativoRepositoryImpl implements ItemReativoRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ContadorVersoes contadorVersoes;
+
+    @Override
+    public Mono<Item> reservarSeDisponivel(String id) {
+        Query query = new Query(Criteria.where("id").is(id).and("disponivel").is(true));
+        return contadorVersoes.escreverReativo(versao -> mongoTemplate.findAndModify(query,
+                new Update().set("disponivel", false).set("versao", versao),
+                FindAndModifyOptions.options().returnNew(true), Item.class));
+    }
+
+    @Override
+    public Mono<Item> alterarDisponibilidade(String id, boolean disponivel) {
+        Query query = new Query(Criteria.where("id").is(id).and("disponivel").ne(disponivel));
+        return contadorVersoes.escreverReativo(versao -> mongoTemplate.findAndModify(query,
+                new Update().set("disponivel", disponivel).set("versao", versao),
+                FindAndModifyOptions.options().returnNew(true), Item.class));
+    }
+}
@@ -1,18 +1,28 @@
 package com.gilbertomorales.portaria.repository;
 
+import com.gilbertomorales.portaria.dto.ItemResumoDTO;
 import com.gilbertomorales.portaria.model.Item;
 import com.gilbertomorales.portaria.model.enums.TipoItem;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ItemRepository extends MongoRepository<Item, String> {
+public interface ItemRepository extends MongoRepository<Item, String>, ItemRepositoryCustom {
 
     List<Item> findByDisponivelTrue();
 
     List<Item> findByTipo(TipoItem tipo);
 
     List<Item> findByDisponivelTrueAndTipo(TipoItem tipo);
+
+    Stream<Item> streamAllBy();
+
+    // Projeções: o Mongo devolve apenas os campos do DTO
+    List<ItemResumoDTO> findResumoBy(Sort sort);
+
+    List<ItemResumoDTO> findResumoByDisponivel(boolean disponivel, Sort sort);
 }
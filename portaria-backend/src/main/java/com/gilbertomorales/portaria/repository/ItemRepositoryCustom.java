@@ -0,0 +1,27 @@
+package com.gilbertomorales.portaria.repository;
+
+import com.gilbertomorales.portaria.model.Item;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ItemRepositoryCustom {
+
+    /**
+     * Marca o item como indisponível somente se ele ainda estiver disponível, numa única operação atômica
+     */
+    Optional<Item> reservarSeDisponivel(String id);
+
+    /**
+     * Altera a disponibilidade somente se ela for diferente da atual, numa única operação atômica;
+     * vazio se o item já estava nesse estado ou não existe
+     */
+    Optional<Item> alterarDisponibilidade(String id, boolean disponivel);
+
+    /**
+     * Versão em lote de {@link #alterarDisponibilidade}: altera, com um updateMulti, os itens da lista que
+     * ainda não estão nesse estado e devolve só os que foram alterados por esta chamada
+     */
+    List<Item> atualizarDisponibilidade(Collection<String> ids, boolean disponivel);
+}
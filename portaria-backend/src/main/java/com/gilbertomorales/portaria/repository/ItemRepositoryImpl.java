@@ -0,0 +1,54 @@
+package com.gilbertomorales.portaria.repository;
+
+import com.gilbertomorales.portaria.model.Item;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+    private final ContadorVersoes contadorVersoes;
+
+    @Override
+    public Optional<Item> reservarSeDisponivel(String id) {
+        Query query = new Query(Criteria.where("id").is(id).and("disponivel").is(true));
+        Item item = contadorVersoes.escrever(versao -> mongoTemplate.findAndModify(query,
+                new Update().set("disponivel", false).set("versao", versao),
+                FindAndModifyOptions.options().returnNew(true), Item.class));
+        return Optional.ofNullable(item);
+    }
+
+    @Override
+    public Optional<Item> alterarDisponibilidade(String id, boolean disponivel) {
+        Query query = new Query(Criteria.where("id").is(id).and("disponivel").ne(disponivel));
+        Item item = contadorVersoes.escrever(versao -> mongoTemplate.findAndModify(query,
+                new Update().set("disponivel", disponivel).set("versao", versao),
+                FindAndModifyOptions.options().returnNew(true), Item.class));
+        return Optional.ofNullable(item);
+    }
+
+    @Override
+    public List<Item> atualizarDisponibilidade(Collection<String> ids, boolean disponivel) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Query query = new Query(Criteria.where("id").in(ids).and("disponivel").ne(disponivel));
+        return contadorVersoes.escrever(versao -> {
+            Update update = new Update().set("disponivel", disponivel).set("versao", versao);
+            if (mongoTemplate.updateMulti(query, update, Item.class).getModifiedCount() == 0) {
+                return List.of();
+            }
+            // A versão é única por escrita: identifica os itens que esta chamada alterou, e não outro terminal
+            return mongoTemplate.find(new Query(Criteria.where("id").in(ids).and("versao").is(versao)), Item.class);
+        });
+    }
+}
@@ -0,0 +1,61 @@
+package com.gilbertomorales.portaria.repository;
+
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoWriter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * MongoTemplate que libera no {@link ContadorVersoes} a versão dada pelo {@link VersaoCallback}
+ * quando a inserção ou o save termina, com sucesso ou erro
+ */
+public class MongoTemplateVersionado extends MongoTemplate {
+
+    // Resolvido no primeiro uso: o contador depende deste template
+    private final ObjectFactory<ContadorVersoes> contadorVersoes;
+
+    public MongoTemplateVersionado(MongoDatabaseFactory fabrica, MongoConverter conversor,
+                                   ObjectFactory<ContadorVersoes> contadorVersoes) {
+        super(fabrica, conversor);
+        this.contadorVersoes = contadorVersoes;
+    }
+
+    @Override
+    protected <T> T doInsert(String colecao, T documento, MongoWriter<T> writer) {
+        Long antes = ContadorVersoes.versaoDe(documento);
+        try {
+            return super.doInsert(colecao, documento, writer);
+        } finally {
+            contadorVersoes.getObject().liberarSeNova(documento, antes);
+        }
+    }
+
+    @Override
+    protected <T> T doSave(String colecao, T documento, MongoWriter<T> writer) {
+        Long antes = ContadorVersoes.versaoDe(documento);
+        try {
+            return super.doSave(colecao, documento, writer);
+        } finally {
+            contadorVersoes.getObject().liberarSeNova(documento, antes);
+        }
+    }
+
+    @Override
+    protected <T> Collection<T> doInsertBatch(String colecao, Collection<? extends T> documentos, MongoWriter<T> writer) {
+        List<Long> antes = new ArrayList<>(documentos.size());
+        documentos.forEach(documento -> antes.add(ContadorVersoes.versaoDe(documento)));
+        try {
+            return super.doInsertBatch(colecao, documentos, writer);
+        } finally {
+            int i = 0;
+            for (T documento : documentos) {
+                contadorVersoes.getObject().liberarSeNova(documento, antes.get(i++));
+            }
+        }
+    }
+}
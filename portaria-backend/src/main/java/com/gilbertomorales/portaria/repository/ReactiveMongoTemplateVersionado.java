@@ -0,0 +1,60 @@
+package com.gilbertomorales.portaria.repository;
+
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoWriter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Versão do {@link MongoTemplateVersionado} para o perfil reativo: a versão dada pelo
+ * {@link VersaoReativaCallback} é liberada quando a escrita termina, falha ou é cancelada
+ */
+public class ReactiveMongoTemplateVersionado extends ReactiveMongoTemplate {
+
+    private final ObjectFactory<ContadorVersoes> contadorVersoes;
+
+    public ReactiveMongoTemplateVersionado(ReactiveMongoDatabaseFactory fabrica, MongoConverter conversor,
+                                           ObjectFactory<ContadorVersoes> contadorVersoes) {
+        super(fabrica, conversor);
+        this.contadorVersoes = contadorVersoes;
+    }
+
+    @Override
+    protected <T> Mono<T> doInsert(String colecao, T documento, MongoWriter<Object> writer) {
+        return Mono.defer(() -> {
+            Long antes = ContadorVersoes.versaoDe(documento);
+            return super.doInsert(colecao, documento, writer)
+                    .doFinally(sinal -> contadorVersoes.getObject().liberarSeNova(documento, antes));
+        });
+    }
+
+    @Override
+    protected <T> Mono<T> doSave(String colecao, T documento, MongoWriter<Object> writer) {
+        return Mono.defer(() -> {
+            Long antes = ContadorVersoes.versaoDe(documento);
+            return super.doSave(colecao, documento, writer)
+                    .doFinally(sinal -> contadorVersoes.getObject().liberarSeNova(documento, antes));
+        });
+    }
+
+    @Override
+    protected <T> Flux<T> doInsertBatch(String colecao, Collection<? extends T> documentos, MongoWriter<Object> writer) {
+        return Flux.defer(() -> {
+            List<Long> antes = new ArrayList<>(documentos.size());
+            documentos.forEach(documento -> antes.add(ContadorVersoes.versaoDe(documento)));
+            return super.<T>doInsertBatch(colecao, documentos, writer).doFinally(sinal -> {
+                int i = 0;
+                for (Object documento : documentos) {
+                    contadorVersoes.getObject().liberarSeNova(documento, antes.get(i++));
+                }
+            });
+        });
+    }
+}
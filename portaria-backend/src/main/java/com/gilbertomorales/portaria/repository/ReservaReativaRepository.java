@@ -0,0 +1,15 @@
+package com.gilbertomorales.portaria.repository;
+
+import com.gilbertomorales.portaria.model.Reserva;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+/**
+ * Versão não bloqueante do {@link ReservaRepository}, usada no perfil "reativo"
+ */
+@Repository
+public interface ReservaReativaRepository extends ReactiveMongoRepository<Reserva, String>, ReservaReativaRepositoryCustom {
+
+    Flux<Reserva> findByMatriculaUsuarioAndDataDevolucaoIsNull(String matriculaUsuario);
+}
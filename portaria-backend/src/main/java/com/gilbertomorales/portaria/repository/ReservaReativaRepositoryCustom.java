@@ -0,0 +1,28 @@
+package com.gilbertomorales.portaria.repository;
+
+import com.gilbertomorales.portaria.dto.ReservaFiltroDTO;
+import com.gilbertomorales.portaria.model.Reserva;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public interface ReservaReativaRepositoryCustom {
+
+    /**
+     * Reservas do filtro, recentes e arquivadas, ordenadas por dataReserva e id (decrescente)
+     */
+    Flux<Reserva> buscarComHistorico(ReservaFiltroDTO filtro);
+
+    /**
+     * Registra a retirada somente se a reserva ainda não foi retirada nem devolvida, numa única operação
+     * atômica; vazio se outro terminal já a registrou
+     */
+    Mono<Reserva> registrarRetirada(String id, LocalDateTime dataRetirada, LocalDateTime prazoDevolucao);
+
+    /**
+     * Registra a devolução somente se a reserva foi retirada e ainda está em aberto, numa única operação
+     * atômica; vazio se outro terminal já a registrou
+     */
+    Mono<Reserva> registrarDevolucao(String id, LocalDateTime dataDevolucao);
+}
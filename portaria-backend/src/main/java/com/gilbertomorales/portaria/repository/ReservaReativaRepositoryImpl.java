@@ -0,0 +1,57 @@
+package com.gilbertomorales.portaria.repository;
+
+import com.gilbertomorales.portaria.dto.ReservaFiltroDTO;
+import com.gilbertomorales.portaria.model.Reserva;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ReservaReativaRepositoryImpl implements ReservaReativaRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ContadorVersoes contadorVersoes;
+
+    @Override
+    public Flux<Reserva> buscarComHistorico(ReservaFiltroDTO filtro) {
+        List<Criteria> criterios = HistoricoReservas.criteriosDoFiltro(filtro);
+        Flux<Reserva> recentes = mongoTemplate.find(
+                HistoricoReservas.montarQuery(criterios).with(HistoricoReservas.ORDEM), Reserva.class);
+        if (!HistoricoReservas.incluiArquivadas(filtro)) {
+            return recentes;
+        }
+        Query queryArquivadas = HistoricoReservas.queryArquivadas(criterios).with(HistoricoReservas.ORDEM);
+        return Flux.mergeComparing(HistoricoReservas.COMPARADOR,
+                        recentes, mongoTemplate.find(queryArquivadas, Reserva.class, HistoricoReservas.COLECAO))
+                // Reserva presente nas duas coleções (arquivamento interrompido) aparece uma única vez
+                .distinctUntilChanged(Reserva::getId);
+    }
+
+    @Override
+    public Mono<Reserva> registrarRetirada(String id, LocalDateTime dataRetirada, LocalDateTime prazoDevolucao) {
+        Query query = new Query(Criteria.where("id").is(id)
+                .and("dataRetirada").is(null)
+                .and("dataDevolucao").is(null));
+        return contadorVersoes.escreverReativo(versao -> mongoTemplate.findAndModify(query,
+                new Update().set("dataRetirada", dataRetirada).set("prazoDevolucao", prazoDevolucao).set("versao", versao),
+                FindAndModifyOptions.options().returnNew(true), Reserva.class));
+    }
+
+    @Override
+    public Mono<Reserva> registrarDevolucao(String id, LocalDateTime dataDevolucao) {
+        Query query = new Query(Criteria.where("id").is(id)
+                .and("dataRetirada").ne(null)
+                .and("dataDevolucao").is(null));
+        return contadorVersoes.escreverReativo(versao -> mongoTemplate.findAndModify(query,
+                new Update().set("dataDevolucao", dataDevolucao).set("versao", versao),
+                FindAndModifyOptions.options().returnNew(true), Reserva.class));
+    }
+}
@@ -4,11 +4,13 @@ import com.gilbertomorales.portaria.model.Reserva;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ReservaRepository extends MongoRepository<Reserva, String> {
+public interface ReservaRepository extends MongoRepository<Reserva, String>, ReservaRepositoryCustom {
 
     List<Reserva> findByItemId(String itemId);
 
@@ -18,7 +20,11 @@ public interface ReservaRepository extends MongoRepository<Reserva, String> {
 
     Optional<Reserva> findByItemIdAndDataDevolucaoIsNull(String itemId);
 
+    List<Reserva> findByItemIdInAndDataDevolucaoIsNull(Collection<String> itemIds);
+
     List<Reserva> findByUsuarioIdAndDataDevolucaoIsNull(String usuarioId);
 
     List<Reserva> findByMatriculaUsuarioAndDataDevolucaoIsNull(String matriculaUsuario);
+
+    List<Reserva> findByDataDevolucaoIsNullAndPrazoDevolucaoLessThanEqualOrderByPrazoDevolucao(LocalDateTime agora);
 }
@@ -0,0 +1,85 @@
+package com.gilbertomorales.portaria.repository;
+
+import com.gilbertomorales.portaria.dto.ReservaFiltroDTO;
+import com.gilbertomorales.portaria.model.Reserva;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface ReservaRepositoryCustom {
+
+    /**
+     * Coleção das reservas devolvidas arquivadas, lida junto com {@code reservas} nas consultas de histórico
+     */
+    String COLECAO_HISTORICO = "reservas_historico";
+
+    /**
+     * Busca uma página ordenada por dataReserva e id (decrescente), a partir da posição do cursor,
+     * incluindo as reservas arquivadas
+     */
+    List<Reserva> buscarPagina(ReservaFiltroDTO filtro, LocalDateTime aposData, String aposId, int limite);
+
+    /**
+     * Percorre as reservas do filtro (recentes e arquivadas) com cursores do Mongo; o stream deve ser fechado pelo chamador
+     */
+    Stream<Reserva> streamByFiltro(ReservaFiltroDTO filtro);
+
+    /**
+     * Insere as reservas num único bulk não ordenado e retorna as posições da lista que falharam
+     */
+    Set<Integer> inserirEmLote(List<Reserva> reservas);
+
+    /**
+     * Registra a retirada das reservas ainda não retiradas; retorna quantas foram alteradas
+     */
+    long registrarRetiradas(Collection<String> reservaIds, LocalDateTime dataRetirada, LocalDateTime prazoDevolucao);
+
+    /**
+     * Registra a devolução das reservas retiradas e ainda em aberto; retorna quantas foram alteradas
+     */
+    long registrarDevolucoes(Collection<String> reservaIds, LocalDateTime dataDevolucao);
+
+    /**
+     * Conta todas as reservas e as ativas, junto com os itens que têm reserva ativa, numa única agregação
+     */
+    ResumoReservas resumirReservas();
+
+    /**
+     * Remove, em lotes, as reservas feitas até a data; com {@code arquivarDevolvidas}, as devolvidas vão
+     * antes para a coleção de histórico. As contagens e os itens devolvidos são os das reservas que de
+     * fato saíram; reservas mais novas ficam na coleção
+     */
+    RemocaoReservas removerAte(LocalDateTime reservadasAte, boolean arquivarDevolvidas);
+
+    /**
+     * IDs das reservas devolvidas antes da data, das mais antigas para as mais recentes
+     */
+    List<String> buscarIdsParaArquivar(LocalDateTime devolvidasAntesDe, int limite);
+
+    /**
+     * Copia as reservas devolvidas para a coleção de histórico e as remove da principal; retorna quantas saíram
+     */
+    long moverParaHistorico(Collection<String> reservaIds);
+
+    /**
+     * Maior versão entre as reservas informadas; 0 se nenhuma tiver versão
+     */
+    long maiorVersao(Collection<String> reservaIds);
+
+    /**
+     * Reservas devolvidas na coleção de histórico
+     */
+    long contarArquivadas();
+
+    /**
+     * Apaga todas as reservas arquivadas; retorna quantas eram
+     */
+    long removerHistorico();
+
+    record ResumoReservas(long total, long ativas, List<String> itensComReservaAtiva) {}
+
+    record RemocaoReservas(long total, long ativas, long arquivadas, List<String> itensComReservaAtiva) {}
+}
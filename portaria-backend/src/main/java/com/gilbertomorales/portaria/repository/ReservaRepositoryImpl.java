@@ -0,0 +1,235 @@
+package com.gilbertomorales.portaria.repository;
+
+import com.gilbertomorales.portaria.dto.ReservaFiltroDTO;
+import com.gilbertomorales.portaria.model.Reserva;
+import com.mongodb.bulk.BulkWriteError;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class ReservaRepositoryImpl implements ReservaRepositoryCustom {
+
+    private static final int TAMANHO_LOTE_REMOCAO = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ContadorVersoes contadorVersoes;
+
+    @Override
+    public List<Reserva> buscarPagina(ReservaFiltroDTO filtro, LocalDateTime aposData, String aposId, int limite) {
+        List<Criteria> criterios = HistoricoReservas.criteriosDoFiltro(filtro);
+
+        // Keyset: continua exatamente depois do último documento da página anterior
+        if (aposData != null && aposId != null) {
+            criterios.add(new Criteria().orOperator(
+                    Criteria.where("dataReserva").lt(aposData),
+                    new Criteria().andOperator(
+                            Criteria.where("dataReserva").is(aposData),
+                            Criteria.where("id").lt(aposId))));
+        }
+
+        Query query = HistoricoReservas.montarQuery(criterios).with(HistoricoReservas.ORDEM).limit(limite);
+        List<Reserva> recentes = mongoTemplate.find(query, Reserva.class);
+        if (!HistoricoReservas.incluiArquivadas(filtro)) {
+            return recentes;
+        }
+        // Cada coleção devolve no máximo "limite" reservas já ordenadas; a página sai da intercalação
+        Query queryArquivadas = HistoricoReservas.queryArquivadas(criterios).with(HistoricoReservas.ORDEM).limit(limite);
+        List<Reserva> arquivadas = mongoTemplate.find(queryArquivadas, Reserva.class, HistoricoReservas.COLECAO);
+        return HistoricoReservas.intercalar(recentes.stream(), arquivadas.stream())
+                .limit(limite)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<Reserva> streamByFiltro(ReservaFiltroDTO filtro) {
+        List<Criteria> criterios = HistoricoReservas.criteriosDoFiltro(filtro);
+        Stream<Reserva> recentes = mongoTemplate.stream(
+                HistoricoReservas.montarQuery(criterios).with(HistoricoReservas.ORDEM), Reserva.class);
+        if (!HistoricoReservas.incluiArquivadas(filtro)) {
+            return recentes;
+        }
+        Query queryArquivadas = HistoricoReservas.queryArquivadas(criterios).with(HistoricoReservas.ORDEM);
+        return HistoricoReservas.intercalar(recentes, mongoTemplate.stream(queryArquivadas, Reserva.class, HistoricoReservas.COLECAO));
+    }
+
+    @Override
+    public Set<Integer> inserirEmLote(List<Reserva> reservas) {
+        if (reservas.isEmpty()) {
+            return Set.of();
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Reserva.class)
+                    .insert(reservas)
+                    .execute();
+            return Set.of();
+        } catch (BulkOperationException e) {
+            return e.getErrors().stream()
+                    .map(BulkWriteError::getIndex)
+                    .collect(Collectors.toCollection(HashSet::new));
+        } finally {
+            contadorVersoes.liberarVersoes(reservas);
+        }
+    }
+
+    @Override
+    public long registrarRetiradas(Collection<String> reservaIds, LocalDateTime dataRetirada, LocalDateTime prazoDevolucao) {
+        if (reservaIds.isEmpty()) {
+            return 0;
+        }
+        Query query = new Query(Criteria.where("id").in(reservaIds)
+                .and("dataRetirada").is(null)
+                .and("dataDevolucao").is(null));
+        return contadorVersoes.escrever(versao -> mongoTemplate.updateMulti(query,
+                new Update().set("dataRetirada", dataRetirada).set("prazoDevolucao", prazoDevolucao).set("versao", versao),
+                Reserva.class).getModifiedCount());
+    }
+
+    @Override
+    public long registrarDevolucoes(Collection<String> reservaIds, LocalDateTime dataDevolucao) {
+        if (reservaIds.isEmpty()) {
+            return 0;
+        }
+        Query query = new Query(Criteria.where("id").in(reservaIds)
+                .and("dataRetirada").ne(null)
+                .and("dataDevolucao").is(null));
+        return contadorVersoes.escrever(versao -> mongoTemplate.updateMulti(query,
+                new Update().set("dataDevolucao", dataDevolucao).set("versao", versao),
+                Reserva.class).getModifiedCount());
+    }
+
+    @Override
+    public ResumoReservas resumirReservas() {
+        Aggregation agg = Aggregation.newAggregation(
+                Aggregation.facet(Aggregation.count().as("n")).as("total")
+                        .and(Aggregation.match(Criteria.where("dataDevolucao").is(null)),
+                                Aggregation.group().count().as("n").addToSet("itemId").as("itens")).as("ativas"));
+
+        Document resultado = mongoTemplate.aggregate(agg, Reserva.class, Document.class).getUniqueMappedResult();
+        if (resultado == null) {
+            return new ResumoReservas(0, 0, List.of());
+        }
+
+        List<Document> total = resultado.getList("total", Document.class);
+        List<Document> ativas = resultado.getList("ativas", Document.class);
+        long quantidadeTotal = total.isEmpty() ? 0 : total.get(0).get("n", Number.class).longValue();
+        if (ativas.isEmpty()) {
+            return new ResumoReservas(quantidadeTotal, 0, List.of());
+        }
+
+        Document grupo = ativas.get(0);
+        return new ResumoReservas(quantidadeTotal, grupo.get("n", Number.class).longValue(),
+                grupo.getList("itens", String.class));
+    }
+
+    @Override
+    public RemocaoReservas removerAte(LocalDateTime reservadasAte, boolean arquivarDevolvidas) {
+        // "Não depois de": inclui reservas sem data
+        Query query = new Query(Criteria.where("dataReserva").not().gt(reservadasAte)).limit(TAMANHO_LOTE_REMOCAO);
+        query.fields().include("id").include("itemId").include("dataDevolucao");
+
+        long total = 0;
+        long ativas = 0;
+        long arquivadas = 0;
+        Set<String> itens = new LinkedHashSet<>();
+        List<Reserva> lote;
+        while (!(lote = mongoTemplate.find(query, Reserva.class)).isEmpty()) {
+            List<String> remover = new ArrayList<>();
+            List<String> devolvidas = new ArrayList<>();
+            for (Reserva reserva : lote) {
+                if (reserva.getDataDevolucao() == null) {
+                    remover.add(reserva.getId());
+                    itens.add(reserva.getItemId());
+                } else {
+                    devolvidas.add(reserva.getId());
+                }
+            }
+            long movidas = 0;
+            if (arquivarDevolvidas) {
+                movidas = moverParaHistorico(devolvidas);
+            } else {
+                remover.addAll(devolvidas);
+            }
+            long removidas = remover.isEmpty() ? 0
+                    : mongoTemplate.remove(new Query(Criteria.where("id").in(remover)), Reserva.class).getDeletedCount();
+            if (movidas + removidas == 0) {
+                // Nada saiu (removidas por outra escrita entre a leitura e a remoção): não repete o mesmo lote
+                break;
+            }
+            total += lote.size();
+            ativas += lote.size() - devolvidas.size();
+            arquivadas += movidas;
+        }
+        return new RemocaoReservas(total, ativas, arquivadas, new ArrayList<>(itens));
+    }
+
+    @Override
+    public List<String> buscarIdsParaArquivar(LocalDateTime devolvidasAntesDe, int limite) {
+        Query query = new Query(Criteria.where("dataDevolucao").lt(devolvidasAntesDe))
+                .with(Sort.by(Sort.Direction.ASC, "dataDevolucao"))
+                .limit(limite);
+        query.fields().include("id");
+        return mongoTemplate.find(query, Reserva.class).stream()
+                .map(Reserva::getId)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public long moverParaHistorico(Collection<String> reservaIds) {
+        if (reservaIds.isEmpty()) {
+            return 0;
+        }
+        // Cópia feita no próprio servidor; só depois as reservas saem da coleção principal. Se a remoção
+        // falhar, a próxima execução copia de novo (mantendo a existente) e remove
+        Criteria devolvidas = Criteria.where("id").in(reservaIds).and("dataDevolucao").ne(null);
+        mongoTemplate.aggregate(Aggregation.newAggregation(Aggregation.match(devolvidas), mesclarNoHistorico()),
+                Reserva.class, Document.class);
+        return mongoTemplate.remove(new Query(devolvidas), Reserva.class).getDeletedCount();
+    }
+
+    @Override
+    public long maiorVersao(Collection<String> reservaIds) {
+        Query query = new Query(Criteria.where("id").in(reservaIds))
+                .with(Sort.by(Sort.Direction.DESC, "versao"))
+                .limit(1);
+        query.fields().include("versao");
+        Reserva reserva = mongoTemplate.findOne(query, Reserva.class);
+        return reserva != null && reserva.getVersao() != null ? reserva.getVersao() : 0;
+    }
+
+    @Override
+    public long contarArquivadas() {
+        return mongoTemplate.count(HistoricoReservas.queryArquivadas(List.of()), HistoricoReservas.COLECAO);
+    }
+
+    @Override
+    public long removerHistorico() {
+        return mongoTemplate.remove(new Query(), HistoricoReservas.COLECAO).getDeletedCount();
+    }
+
+    private static MergeOperation mesclarNoHistorico() {
+        return Aggregation.merge()
+                .intoCollection(HistoricoReservas.COLECAO)
+                .whenMatched(MergeOperation.WhenDocumentsMatch.keepExistingDocument())
+                .whenNotMatched(MergeOperation.WhenDocumentsDontMatch.insertNewDocument())
+                .build();
+    }
+}
@@ -0,0 +1,15 @@
+package com.gilbertomorales.portaria.repository;
+
+import com.gilbertomorales.portaria.model.User;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Versão não bloqueante do {@link UserRepository}, usada no perfil "reativo"
+ */
+@Repository
+public interface UserReativoRepository extends ReactiveMongoRepository<User, String> {
+
+    Mono<User> findByMatricula(String matricula);
+}
@@ -1,10 +1,15 @@
 package com.gilbertomorales.portaria.repository;
 
+import com.gilbertomorales.portaria.dto.UsuarioResumoDTO;
 import com.gilbertomorales.portaria.model.User;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends MongoRepository<User, String> {
@@ -14,4 +19,11 @@ public interface UserRepository extends MongoRepository<User, String> {
     boolean existsByMatricula(String matricula);
 
     boolean existsByEmail(String email);
+
+    List<User> findByMatriculaInOrEmailIn(Collection<String> matriculas, Collection<String> emails);
+
+    Stream<User> streamAllBy();
+
+    // Projeção: o Mongo devolve apenas os campos do DTO
+    List<UsuarioResumoDTO> findResumoBy(Sort sort);
 }
@@ -0,0 +1,26 @@
+package com.gilbertomorales.portaria.repository;
+
+import com.gilbertomorales.portaria.model.Sincronizavel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+/**
+ * Grava uma nova versão em todo usuário, item e reserva salvo ou inserido pelo MongoTemplate e
+ * pelos repositórios. Updates ({@code updateMulti}, {@code findAndModify}) não passam por aqui e
+ * definem a versão eles mesmos
+ */
+@Component
+@RequiredArgsConstructor
+public class VersaoCallback implements BeforeConvertCallback<Sincronizavel> {
+
+    // Resolvido no primeiro uso: o contador depende do MongoTemplate, que depende deste callback
+    private final ObjectFactory<ContadorVersoes> contadorVersoes;
+
+    @Override
+    public Sincronizavel onBeforeConvert(Sincronizavel entidade, String colecao) {
+        entidade.setVersao(contadorVersoes.getObject().proxima());
+        return entidade;
+    }
+}
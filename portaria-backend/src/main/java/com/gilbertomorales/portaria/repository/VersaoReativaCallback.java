@@ -0,0 +1,31 @@
+package com.gilbertomorales.portaria.repository;
+
+import com.gilbertomorales.portaria.model.Sincronizavel;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeConvertCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Versão do {@link VersaoCallback} para o ReactiveMongoTemplate. O contador é sincronizado e a
+ * reserva de um novo bloco de versões vai ao banco (uma vez a cada {@code bloco-versoes} escritas),
+ * então roda fora do event loop
+ */
+@Component
+@RequiredArgsConstructor
+public class VersaoReativaCallback implements ReactiveBeforeConvertCallback<Sincronizavel> {
+
+    // Resolvido no primeiro uso, como no VersaoCallback
+    private final ObjectFactory<ContadorVersoes> contadorVersoes;
+
+    @Override
+    public Publisher<Sincronizavel> onBeforeConvert(Sincronizavel entidade, String colecao) {
+        return Mono.fromCallable(() -> {
+            entidade.setVersao(contadorVersoes.getObject().proxima());
+            return entidade;
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,255 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.config.AdmissaoProperties;
+import com.gilbertomorales.portaria.config.ClasseRequisicao;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limita as requisições simultâneas por classe para que um Mongo lento não prenda todas as threads
+ * do Tomcat. Acima do limite a requisição espera numa fila limitada; com a fila cheia, ou passado
+ * {@code espera-maxima}, é recusada na hora. Quando uma vaga abre, as filas são atendidas em ordem
+ * de prioridade (portaria, cadastros, relatórios).
+ * <p>
+ * O limite de cada classe segue a latência (aumento aditivo, redução multiplicativa): cresce cerca
+ * de uma vaga a cada rodada de respostas dentro de {@code latencia-alvo} enquanto o limite está em
+ * uso, e cai 10% quando as respostas passam do alvo, no máximo uma vez por intervalo do alvo.
+ * Importações e exportações, cuja duração depende do volume transferido, liberam a vaga sem entrar
+ * nessa conta.
+ */
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AdmissaoService implements MeterBinder {
+
+    static final String LIMITE = "portaria.admissao.limite";
+    static final String ATIVAS = "portaria.admissao.ativas";
+    static final String FILA = "portaria.admissao.fila";
+    static final String RECUSADAS = "portaria.admissao.recusadas";
+    static final String ESPERA = "portaria.admissao.espera";
+
+    private static final double FATOR_REDUCAO = 0.9;
+
+    private final MeterRegistry registry;
+    private final int limiteGlobal;
+    private final Map<ClasseRequisicao, Estado> estados = new EnumMap<>(ClasseRequisicao.class);
+
+    // Protege os estados, as filas e ativasTotal; as métricas leem os campos voláteis sem ela
+    private final ReentrantLock trava = new ReentrantLock();
+    private int ativasTotal;
+
+    public AdmissaoService(AdmissaoProperties propriedades, MeterRegistry registry) {
+        this.registry = registry;
+        this.limiteGlobal = propriedades.limiteGlobal();
+        for (ClasseRequisicao classe : ClasseRequisicao.values()) {
+            estados.put(classe, new Estado(classe, propriedades.classe(classe)));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        estados.values().forEach(estado -> {
+            Gauge.builder(LIMITE, estado, e -> e.limite)
+                    .description("Requisições simultâneas permitidas na classe")
+                    .tag("classe", estado.tag)
+                    .register(registry);
+            Gauge.builder(ATIVAS, estado, e -> e.ativas)
+                    .description("Requisições da classe em andamento")
+                    .tag("classe", estado.tag)
+                    .register(registry);
+            Gauge.builder(FILA, estado, e -> e.tamanhoFila)
+                    .description("Requisições da classe esperando vaga")
+                    .tag("classe", estado.tag)
+                    .register(registry);
+        });
+    }
+
+    /**
+     * Ocupa uma vaga da classe, esperando na fila se preciso; vazio se a requisição foi recusada.
+     * A permissão deve ser liberada ao fim da requisição
+     */
+    public Optional<Permissao> admitir(ClasseRequisicao classe) {
+        Estado estado = estados.get(classe);
+        trava.lock();
+        try {
+            if (estado.fila.isEmpty() && podeEntrar(estado)) {
+                entrar(estado);
+                return Optional.of(new Permissao(estado));
+            }
+            if (estado.fila.size() >= estado.config.fila()) {
+                recusar(estado, "fila_cheia");
+                return Optional.empty();
+            }
+            return esperar(estado);
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    public long repetirAposSegundos(ClasseRequisicao classe) {
+        long milis = estados.get(classe).config.repetirApos().toMillis();
+        return Math.max(1, (milis + 999) / 1000);
+    }
+
+    // Chamado com a trava; awaitNanos a solta enquanto espera
+    private Optional<Permissao> esperar(Estado estado) {
+        Espera espera = new Espera(trava.newCondition());
+        estado.fila.addLast(espera);
+        estado.tamanhoFila = estado.fila.size();
+
+        long inicio = System.nanoTime();
+        long restante = estado.config.esperaMaxima().toNanos();
+        try {
+            while (!espera.admitida && restante > 0) {
+                restante = espera.condicao.awaitNanos(restante);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        registry.timer(ESPERA, "classe", estado.tag).record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+
+        if (!espera.admitida) {
+            estado.fila.remove(espera);
+            estado.tamanhoFila = estado.fila.size();
+            recusar(estado, "espera_esgotada");
+            return Optional.empty();
+        }
+        return Optional.of(new Permissao(estado));
+    }
+
+    private void liberar(Estado estado, long latencia, boolean amostrar) {
+        trava.lock();
+        try {
+            int ativasAntes = estado.ativas;
+            estado.ativas--;
+            ativasTotal--;
+            if (amostrar) {
+                ajustarLimite(estado, latencia, ativasAntes);
+            }
+            despachar();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    private void ajustarLimite(Estado estado, long latencia, int ativasAntes) {
+        AdmissaoProperties.Classe config = estado.config;
+        long alvo = config.latenciaAlvo().toNanos();
+        if (latencia > alvo) {
+            // Respostas lentas da mesma rajada reduzem o limite uma vez só
+            long agora = System.nanoTime();
+            if (agora - estado.ultimaReducao >= alvo) {
+                estado.limite = Math.max(config.limiteMinimo(), estado.limite * FATOR_REDUCAO);
+                estado.ultimaReducao = agora;
+                log.debug("Limite de {} reduzido para {} (resposta em {} ms)",
+                        estado.tag, (int) estado.limite, TimeUnit.NANOSECONDS.toMillis(latencia));
+            }
+        } else if (ativasAntes >= estado.limite / 2) {
+            // Só cresce enquanto o limite está de fato em uso
+            estado.limite = Math.min(config.limiteMaximo(), estado.limite + 1 / estado.limite);
+        }
+    }
+
+    /**
+     * Passa as vagas livres para quem espera, da classe de maior prioridade para a de menor
+     */
+    private void despachar() {
+        for (Estado estado : estados.values()) {
+            while (!estado.fila.isEmpty() && podeEntrar(estado)) {
+                Espera espera = estado.fila.pollFirst();
+                entrar(estado);
+                espera.admitida = true;
+                espera.condicao.signal();
+            }
+            estado.tamanhoFila = estado.fila.size();
+        }
+    }
+
+    private boolean podeEntrar(Estado estado) {
+        return estado.ativas < (int) estado.limite
+                && ativasTotal < limiteGlobal * estado.config.fracaoGlobal();
+    }
+
+    private void entrar(Estado estado) {
+        estado.ativas++;
+        ativasTotal++;
+    }
+
+    private void recusar(Estado estado, String motivo) {
+        registry.counter(RECUSADAS, "classe", estado.tag, "motivo", motivo).increment();
+    }
+
+    /**
+     * Vaga ocupada por uma requisição; liberar mais de uma vez não tem efeito
+     */
+    public final class Permissao {
+
+        private final Estado estado;
+        private final long inicio = System.nanoTime();
+        private final AtomicBoolean liberada = new AtomicBoolean();
+
+        private Permissao(Estado estado) {
+            this.estado = estado;
+        }
+
+        public void liberar() {
+            liberar(true);
+        }
+
+        /**
+         * Libera a vaga sem usar a duração da requisição para ajustar o limite
+         */
+        public void liberarSemAmostra() {
+            liberar(false);
+        }
+
+        private void liberar(boolean amostrar) {
+            if (liberada.compareAndSet(false, true)) {
+                AdmissaoService.this.liberar(estado, System.nanoTime() - inicio, amostrar);
+            }
+        }
+    }
+
+    private static final class Estado {
+
+        private final AdmissaoProperties.Classe config;
+        private final String tag;
+        private final ArrayDeque<Espera> fila = new ArrayDeque<>();
+
+        private volatile double limite;
+        private volatile int ativas;
+        private volatile int tamanhoFila;
+        private long ultimaReducao;
+
+        private Estado(ClasseRequisicao classe, AdmissaoProperties.Classe config) {
+            this.config = config;
+            this.tag = classe.name().toLowerCase(Locale.ROOT);
+            this.limite = Math.min(Math.max(config.limiteInicial(), config.limiteMinimo()), config.limiteMaximo());
+            this.ultimaReducao = System.nanoTime() - config.latenciaAlvo().toNanos();
+        }
+    }
+
+    private static final class Espera {
+
+        private final Condition condicao;
+        private boolean admitida;
+
+        private Espera(Condition condicao) {
+            this.condicao = condicao;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.repository.ReservaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Move as reservas devolvidas há mais de {@code portaria.arquivamento.idade-minima} para
+ * {@code reservas_historico}, em lotes, para a coleção principal guardar só o movimento recente.
+ * As consultas de histórico leem as duas coleções, então o arquivamento não muda nenhuma resposta.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ArquivamentoService {
+
+    private final ReservaRepository reservaRepository;
+    private final SincronizacaoService sincronizacaoService;
+
+    @Value("${portaria.arquivamento.idade-minima:30d}")
+    private Duration idadeMinima;
+
+    @Value("${portaria.arquivamento.tamanho-lote:1000}")
+    private int tamanhoLote;
+
+    @Scheduled(fixedDelayString = "${portaria.arquivamento.executar-a-cada:1h}",
+            initialDelayString = "${portaria.arquivamento.executar-a-cada:1h}")
+    public void executarArquivamento() {
+        try {
+            long arquivadas = arquivar(LocalDateTime.now().minus(idadeMinima));
+            if (arquivadas > 0) {
+                log.info("{} reserva(s) devolvida(s) movida(s) para o histórico", arquivadas);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Falha ao arquivar reservas devolvidas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Arquiva lote a lote até não sobrar devolvida anterior ao corte; cada lote é uma cópia ($merge)
+     * e uma remoção, então uma falha no meio só atrasa o restante para a próxima execução
+     */
+    synchronized long arquivar(LocalDateTime devolvidasAntesDe) {
+        long total = 0;
+        List<String> ids = reservaRepository.buscarIdsParaArquivar(devolvidasAntesDe, tamanhoLote);
+        while (!ids.isEmpty()) {
+            // Os terminais que ainda não viram essas devoluções passam a receber as reservas ativas completas
+            sincronizacaoService.reservasArquivadas(reservaRepository.maiorVersao(ids));
+            long movidas = reservaRepository.moverParaHistorico(ids);
+            total += movidas;
+            if (movidas == 0) {
+                // Nada saiu da coleção principal: evita repetir o mesmo lote indefinidamente
+                break;
+            }
+            ids = ids.size() < tamanhoLote ? List.of() : reservaRepository.buscarIdsParaArquivar(devolvidasAntesDe, tamanhoLote);
+        }
+        return total;
+    }
+}
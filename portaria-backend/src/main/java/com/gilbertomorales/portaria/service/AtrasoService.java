@@ -0,0 +1,126 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.config.PrazosEmprestimo;
+import com.gilbertomorales.portaria.dto.ReservaResponseDTO;
+import com.gilbertomorales.portaria.event.ReservaAtualizadaEvent;
+import com.gilbertomorales.portaria.model.Reserva;
+import com.gilbertomorales.portaria.repository.ContadorVersoes;
+import com.gilbertomorales.portaria.repository.ReservaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Detecta reservas retiradas e não devolvidas dentro do prazo. O prazo é gravado na retirada, então
+ * cada verificação só lê as reservas em aberto cujo prazo venceu desde a verificação anterior
+ * (índice parcial reserva_prazo_aberta) e as marca como atrasadas com um único updateMulti.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AtrasoService {
+
+    private final ReservaRepository reservaRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PrazosEmprestimo prazos;
+    private final ContadorVersoes contadorVersoes;
+
+    // Prazo vencido até onde a última verificação já olhou; vazio até a primeira rodar
+    private LocalDateTime verificadoAte;
+
+    public LocalDateTime calcularPrazo(Reserva reserva, LocalDateTime dataRetirada) {
+        return prazos.prazoDevolucao(reserva.getTipoItem(), reserva.getTipoUsuario(), dataRetirada);
+    }
+
+    /**
+     * Reservas em aberto com prazo vencido, das mais antigas para as mais recentes. Consulta o prazo
+     * diretamente, então inclui as que venceram depois da última verificação agendada
+     */
+    public List<ReservaResponseDTO> findAtrasadas() {
+        return reservaRepository.findByDataDevolucaoIsNullAndPrazoDevolucaoLessThanEqualOrderByPrazoDevolucao(LocalDateTime.now())
+                .stream()
+                .map(ReservaService::convertToResponseDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Scheduled(fixedDelayString = "${portaria.atrasos.verificar-a-cada:1m}",
+            initialDelayString = "${portaria.atrasos.verificar-a-cada:1m}")
+    public void verificarAtrasos() {
+        try {
+            int marcadas = marcarAtrasadas(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+            if (marcadas > 0) {
+                log.info("{} reserva(s) marcada(s) como atrasada(s)", marcadas);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Falha ao verificar reservas atrasadas: {}", e.getMessage());
+        }
+    }
+
+    synchronized int marcarAtrasadas(LocalDateTime agora) {
+        if (verificadoAte == null) {
+            preencherPrazosAusentes();
+        }
+
+        Criteria vencidas = Criteria.where("dataDevolucao").is(null).and("atrasada").ne(true);
+        vencidas = verificadoAte == null
+                ? vencidas.and("prazoDevolucao").lte(agora)
+                : vencidas.and("prazoDevolucao").gt(verificadoAte).lte(agora);
+        List<Reserva> atrasadas = mongoTemplate.find(new Query(vencidas), Reserva.class);
+
+        if (!atrasadas.isEmpty()) {
+            List<String> ids = atrasadas.stream().map(Reserva::getId).collect(Collectors.toList());
+            // Só marca as que continuam em aberto: uma devolução pode ter chegado entre a leitura e a escrita
+            Query query = new Query(Criteria.where("id").in(ids).and("dataDevolucao").is(null));
+            long marcadas = contadorVersoes.escrever(versao -> mongoTemplate.updateMulti(query,
+                    new Update().set("atrasada", true).set("versao", versao), Reserva.class).getModifiedCount());
+            if (marcadas < ids.size()) {
+                atrasadas = mongoTemplate.find(new Query(Criteria.where("id").in(ids)
+                        .and("dataDevolucao").is(null).and("atrasada").is(true)), Reserva.class);
+            }
+
+            atrasadas.forEach(reserva -> {
+                reserva.setAtrasada(true);
+                eventPublisher.publishEvent(new ReservaAtualizadaEvent(ReservaService.convertToResponseDTO(reserva)));
+            });
+        }
+
+        verificadoAte = agora;
+        return atrasadas.size();
+    }
+
+    /**
+     * Reservas retiradas antes de existir o prazo: recebem o prazo calculado a partir da retirada,
+     * numa única escrita em lote
+     */
+    private void preencherPrazosAusentes() {
+        Query semPrazo = new Query(Criteria.where("dataDevolucao").is(null)
+                .and("dataRetirada").ne(null)
+                .and("prazoDevolucao").exists(false));
+        List<Reserva> reservas = mongoTemplate.find(semPrazo, Reserva.class);
+        if (reservas.isEmpty()) {
+            return;
+        }
+
+        contadorVersoes.escrever(versao -> {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Reserva.class);
+            reservas.forEach(reserva -> bulk.updateOne(
+                    new Query(Criteria.where("id").is(reserva.getId())),
+                    new Update().set("prazoDevolucao", calcularPrazo(reserva, reserva.getDataRetirada())).set("versao", versao)));
+            return bulk.execute();
+        });
+        log.info("Prazo de devolução preenchido em {} reserva(s) retirada(s) antes da configuração de prazos", reservas.size());
+    }
+}
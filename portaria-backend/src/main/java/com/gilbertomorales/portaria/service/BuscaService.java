@@ -0,0 +1,115 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.event.ItemDisponibilidadeEvent;
+import com.gilbertomorales.portaria.model.Item;
+import com.gilbertomorales.portaria.model.User;
+import com.gilbertomorales.portaria.repository.ItemRepository;
+import com.gilbertomorales.portaria.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Busca por prefixo em usuários (nome, matrícula, email) e itens (nome, localização), sem acentos,
+ * respondida por índices em memória ({@link IndiceBusca}). Os índices são carregados na
+ * inicialização, acompanham as escritas feitas pelos serviços e são recarregados periodicamente,
+ * o que cobre escritas feitas direto no banco.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BuscaService {
+
+    public static final int LIMITE_MAXIMO = 100;
+
+    // Alterações acumuladas antes de reconstruir a base do índice
+    private static final int LIMITE_ALTERACOES = 1000;
+
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+
+    private final IndiceBusca<User> usuarios = new IndiceBusca<>(User::getId, User::getNome,
+            user -> Arrays.asList(user.getNome(), user.getMatricula(), user.getEmail()), LIMITE_ALTERACOES);
+
+    private final IndiceBusca<Item> itens = new IndiceBusca<>(Item::getId, Item::getNome,
+            item -> Arrays.asList(item.getNome(), item.getLocalizacao()), LIMITE_ALTERACOES);
+
+    @Value("${portaria.busca.carregar-na-inicializacao:true}")
+    private boolean carregarNaInicializacao;
+
+    public List<User> buscarUsuarios(String consulta, int limite) {
+        if (!usuarios.carregado()) {
+            recarregarUsuarios();
+        }
+        return usuarios.buscar(consulta, Math.min(limite, LIMITE_MAXIMO));
+    }
+
+    public List<Item> buscarItens(String consulta, int limite) {
+        if (!itens.carregado()) {
+            recarregarItens();
+        }
+        return itens.buscar(consulta, Math.min(limite, LIMITE_MAXIMO));
+    }
+
+    public void usuarioSalvo(User user) {
+        usuarios.atualizar(user);
+    }
+
+    public void usuarioRemovido(String id) {
+        usuarios.remover(id);
+    }
+
+    public void itemSalvo(Item item) {
+        itens.atualizar(item);
+    }
+
+    public void itemRemovido(String id) {
+        itens.remover(id);
+    }
+
+    /**
+     * Reservas, devoluções e limpezas não passam por {@link ItemService#save}: chegam como evento de disponibilidade
+     */
+    @EventListener(ItemDisponibilidadeEvent.class)
+    public void disponibilidadeAlterada(ItemDisponibilidadeEvent evento) {
+        Item atual = itens.buscarPorId(evento.itemId());
+        if (atual != null && !Boolean.valueOf(evento.disponivel()).equals(atual.getDisponivel())) {
+            itens.atualizar(new Item(atual.getId(), atual.getNome(), atual.getTipo(), evento.disponivel(),
+                    atual.getLocalizacao(), atual.getVersao()));
+        }
+    }
+
+    public void recarregarUsuarios() {
+        usuarios.carregar(userRepository::findAll);
+    }
+
+    public void recarregarItens() {
+        itens.carregar(itemRepository::findAll);
+    }
+
+    @Scheduled(fixedDelayString = "${portaria.busca.recarregar-a-cada:10m}",
+            initialDelayString = "${portaria.busca.recarregar-a-cada:10m}")
+    public void recarregar() {
+        try {
+            recarregarUsuarios();
+            recarregarItens();
+            log.debug("Índices de busca recarregados: {} usuário(s), {} item(ns)", usuarios.tamanho(), itens.tamanho());
+        } catch (RuntimeException e) {
+            log.warn("Falha ao recarregar os índices de busca: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregarNaInicializacao() {
+        if (carregarNaInicializacao) {
+            recarregar();
+        }
+    }
+}
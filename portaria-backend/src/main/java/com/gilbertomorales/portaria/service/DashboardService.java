@@ -0,0 +1,76 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.event.ItemDisponibilidadeEvent;
+import com.gilbertomorales.portaria.event.ReservaAtualizadaEvent;
+import com.gilbertomorales.portaria.event.ReservasLimpasEvent;
+import com.gilbertomorales.portaria.model.Estatisticas;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class DashboardService {
+
+    private final EstatisticasService estatisticasService;
+
+    @Value("${portaria.dashboard.cache-ttl:0s}")
+    private Duration cacheTtl;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Retorna os contadores do dashboard, usando o snapshot em cache enquanto ele for válido
+     */
+    public Map<String, Object> getDashboard() {
+        Snapshot atual = snapshot;
+        if (atual != null && atual.validoAte().isAfter(Instant.now())) {
+            return atual.dados();
+        }
+
+        Map<String, Object> dados = calcularDashboard();
+        if (!cacheTtl.isZero() && !cacheTtl.isNegative()) {
+            snapshot = new Snapshot(dados, Instant.now().plus(cacheTtl));
+        }
+        return dados;
+    }
+
+    /**
+     * Descarta o snapshot em cache sempre que um item ou reserva muda, forçando a próxima leitura a consultar o banco
+     */
+    @EventListener({ItemDisponibilidadeEvent.class, ReservaAtualizadaEvent.class, ReservasLimpasEvent.class})
+    public void invalidarCache() {
+        snapshot = null;
+    }
+
+    private Map<String, Object> calcularDashboard() {
+        // Leitura por chave do documento de contadores, sem contar as coleções
+        return montarDashboard(estatisticasService.getEstatisticas());
+    }
+
+    /**
+     * Contadores do dashboard a partir das estatísticas materializadas, compartilhado com a versão reativa
+     */
+    static Map<String, Object> montarDashboard(Estatisticas estatisticas) {
+        Map<String, Long> porStatus = estatisticas.getReservasPorStatus();
+        return Map.of(
+                "itensDisponiveis", somar(estatisticas.getDisponiveisPorTipo()),
+                "totalItens", somar(estatisticas.getItensPorTipo()),
+                "reservasAtivas", porStatus.getOrDefault(EstatisticasService.RESERVADO, 0L)
+                        + porStatus.getOrDefault(EstatisticasService.RETIRADO, 0L),
+                "totalReservas", somar(porStatus),
+                "disponiveisPorTipo", estatisticas.getDisponiveisPorTipo()
+        );
+    }
+
+    private static long somar(Map<String, Long> contadores) {
+        return contadores.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private record Snapshot(Map<String, Object> dados, Instant validoAte) {}
+}
@@ -0,0 +1,257 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.event.ItemDisponibilidadeEvent;
+import com.gilbertomorales.portaria.model.Item;
+import com.gilbertomorales.portaria.model.enums.TipoItem;
+import com.gilbertomorales.portaria.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Itens disponíveis respondidos da memória, sem consultar o banco. Os itens ficam num array e a
+ * disponibilidade num bitset por tipo de item, dentro de um instantâneo imutável com número de
+ * versão: a leitura pega o instantâneo atual sem bloquear e a lista e a versão devolvidas sempre
+ * correspondem ao mesmo estado.
+ * <p>
+ * O instantâneo acompanha as escritas feitas pelo {@link ItemService} e os eventos de
+ * disponibilidade (reservas, devoluções, limpezas e o perfil reativo), e é recarregado
+ * periodicamente, o que cobre escritas feitas direto no banco. Cada item guarda a sua versão e
+ * uma alteração com versão mais antiga que a do índice é ignorada.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DisponibilidadeService {
+
+    private final ItemRepository itemRepository;
+
+    // Prefixo das ETags: invalida as emitidas antes de um reinício, quando a versão volta a zero
+    private final String inicializacao = Long.toString(System.currentTimeMillis(), 36);
+
+    private volatile Indice indice;
+
+    // Protegidos pelo monitor do serviço: numeração das alterações e as feitas durante recargas em andamento
+    private long geracao;
+    private int cargasEmAndamento;
+    private final Map<String, Alteracao> alteradosDuranteCarga = new HashMap<>();
+
+    @Value("${portaria.disponibilidade.carregar-na-inicializacao:true}")
+    private boolean carregarNaInicializacao;
+
+    /**
+     * Itens disponíveis e a versão do índice em que foram lidos
+     */
+    public record Disponiveis(long versao, List<Item> itens) {
+    }
+
+    public Disponiveis consultar() {
+        Indice atual = indiceCarregado();
+        return new Disponiveis(atual.versao, atual.listar(atual.disponiveis));
+    }
+
+    public Disponiveis consultar(TipoItem tipo) {
+        Indice atual = indiceCarregado();
+        BitSet doTipo = atual.disponiveisPorTipo.get(tipo);
+        return new Disponiveis(atual.versao, doTipo != null ? atual.listar(doTipo) : List.of());
+    }
+
+    public String etag(long versao) {
+        return "disponiveis-" + inicializacao + "-" + versao;
+    }
+
+    public void itemSalvo(Item item) {
+        aplicar(item.getId(), copiar(item, Boolean.TRUE.equals(item.getDisponivel())));
+    }
+
+    public void itemRemovido(String id) {
+        aplicar(id, null);
+    }
+
+    /**
+     * Reservas, devoluções e limpezas não passam por {@link ItemService#save}: chegam como evento de disponibilidade
+     */
+    @EventListener(ItemDisponibilidadeEvent.class)
+    public void disponibilidadeAlterada(ItemDisponibilidadeEvent evento) {
+        Indice atual = indice;
+        Integer posicao = atual != null ? atual.posicaoPorId.get(evento.itemId()) : null;
+        Item conhecido = posicao != null ? atual.itens[posicao] : null;
+        if (conhecido != null && conhecido.getDisponivel() == evento.disponivel()
+                && Objects.equals(conhecido.getVersao(), evento.versao())) {
+            return;
+        }
+        Item origem = evento.item() != null ? evento.item() : conhecido;
+        if (origem == null) {
+            return;
+        }
+        Item item = copiar(origem, evento.disponivel());
+        item.setVersao(evento.versao() != null ? evento.versao() : origem.getVersao());
+        aplicar(evento.itemId(), item);
+    }
+
+    /**
+     * Relê todos os itens do banco fora do bloqueio, para não segurar reservas e devoluções durante a
+     * leitura. As alterações recebidas depois que a leitura começou são reaplicadas sobre o que foi
+     * lido, para que um estado mais antigo não as sobrescreva
+     */
+    public void recarregar() {
+        long desde;
+        synchronized (this) {
+            desde = geracao;
+            cargasEmAndamento++;
+        }
+        List<Item> lidos = null;
+        try {
+            lidos = itemRepository.findAll();
+        } finally {
+            synchronized (this) {
+                Map<String, Alteracao> posteriores = new LinkedHashMap<>();
+                alteradosDuranteCarga.forEach((id, alteracao) -> {
+                    if (alteracao.geracao() > desde) {
+                        posteriores.put(id, alteracao);
+                    }
+                });
+                if (--cargasEmAndamento == 0) {
+                    alteradosDuranteCarga.clear();
+                }
+                if (lidos != null) {
+                    Map<String, Item> itens = new LinkedHashMap<>();
+                    lidos.forEach(item -> itens.put(item.getId(), copiar(item, Boolean.TRUE.equals(item.getDisponivel()))));
+                    posteriores.forEach((id, alteracao) -> {
+                        if (alteracao.item() == null) {
+                            itens.remove(id);
+                        } else if (!maisAntigo(alteracao.item(), itens.get(id))) {
+                            itens.put(id, alteracao.item());
+                        }
+                    });
+                    Indice atual = indice;
+                    indice = new Indice(atual != null ? atual.versao + 1 : 0, itens.values().toArray(Item[]::new));
+                }
+            }
+        }
+    }
+
+    /**
+     * Troca (ou remove, com {@code item} nulo) um item do índice, a menos que a versão recebida seja
+     * mais antiga que a do índice: eventos de reservas concorrentes podem chegar fora de ordem
+     */
+    private synchronized void aplicar(String id, Item item) {
+        geracao++;
+        if (cargasEmAndamento > 0) {
+            alteradosDuranteCarga.put(id, new Alteracao(geracao, item));
+        }
+        Indice atual = indice;
+        if (atual == null) {
+            return;
+        }
+        Integer posicao = atual.posicaoPorId.get(id);
+        Item[] itens;
+        if (item == null) {
+            if (posicao == null) {
+                return;
+            }
+            itens = Arrays.stream(atual.itens)
+                    .filter(existente -> !id.equals(existente.getId()))
+                    .toArray(Item[]::new);
+        } else if (posicao != null) {
+            if (maisAntigo(item, atual.itens[posicao])) {
+                return;
+            }
+            itens = atual.itens.clone();
+            itens[posicao] = item;
+        } else {
+            itens = Arrays.copyOf(atual.itens, atual.itens.length + 1);
+            itens[itens.length - 1] = item;
+        }
+        indice = new Indice(atual.versao + 1, itens);
+    }
+
+    private static boolean maisAntigo(Item item, Item conhecido) {
+        return conhecido != null && item.getVersao() != null && conhecido.getVersao() != null
+                && item.getVersao() < conhecido.getVersao();
+    }
+
+    @Scheduled(fixedDelayString = "${portaria.disponibilidade.recarregar-a-cada:10m}",
+            initialDelayString = "${portaria.disponibilidade.recarregar-a-cada:10m}")
+    public void recarregarPeriodicamente() {
+        try {
+            recarregar();
+            log.debug("Índice de disponibilidade recarregado: {} item(ns), versão {}", indice.itens.length, indice.versao);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao recarregar o índice de disponibilidade: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregarNaInicializacao() {
+        if (carregarNaInicializacao) {
+            recarregarPeriodicamente();
+        }
+    }
+
+    private Indice indiceCarregado() {
+        Indice atual = indice;
+        if (atual == null) {
+            recarregar();
+            atual = indice;
+        }
+        return atual;
+    }
+
+    // Cópia própria: o item salvo continua nas mãos de quem chamou e pode ser alterado depois
+    private static Item copiar(Item item, boolean disponivel) {
+        return new Item(item.getId(), item.getNome(), item.getTipo(), disponivel, item.getLocalizacao(), item.getVersao());
+    }
+
+    // Item nulo: removido
+    private record Alteracao(long geracao, Item item) {
+    }
+
+    private static final class Indice {
+
+        private final long versao;
+        private final Item[] itens;
+        private final Map<String, Integer> posicaoPorId;
+        private final BitSet disponiveis;
+        private final Map<TipoItem, BitSet> disponiveisPorTipo = new EnumMap<>(TipoItem.class);
+
+        private Indice(long versao, Item[] itens) {
+            this.versao = versao;
+            this.itens = itens;
+            this.posicaoPorId = new HashMap<>(itens.length * 2);
+            this.disponiveis = new BitSet(itens.length);
+            for (int i = 0; i < itens.length; i++) {
+                Item item = itens[i];
+                posicaoPorId.put(item.getId(), i);
+                if (Boolean.TRUE.equals(item.getDisponivel())) {
+                    disponiveis.set(i);
+                    if (item.getTipo() != null) {
+                        disponiveisPorTipo.computeIfAbsent(item.getTipo(), tipo -> new BitSet(itens.length)).set(i);
+                    }
+                }
+            }
+        }
+
+        private List<Item> listar(BitSet posicoes) {
+            List<Item> resultado = new ArrayList<>(posicoes.cardinality());
+            for (int i = posicoes.nextSetBit(0); i >= 0; i = posicoes.nextSetBit(i + 1)) {
+                resultado.add(itens[i]);
+            }
+            return resultado;
+        }
+    }
+}
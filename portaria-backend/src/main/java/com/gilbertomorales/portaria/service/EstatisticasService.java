@@ -0,0 +1,260 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.model.Estatisticas;
+import com.gilbertomorales.portaria.model.Item;
+import com.gilbertomorales.portaria.model.Reserva;
+import com.gilbertomorales.portaria.model.enums.TipoItem;
+import com.gilbertomorales.portaria.repository.ReservaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mantém o documento de {@link Estatisticas}: cada operação de item ou reserva aplica um $inc com a
+ * variação que causou, e o dashboard e a contagem de disponíveis por tipo viram uma leitura por chave.
+ * <p>
+ * Um incremento que falhe ou concorra com a reconciliação pode deixar os contadores desviados;
+ * a reconciliação periódica recalcula tudo a partir das coleções de itens e reservas.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EstatisticasService {
+
+    static final String RESERVADO = "RESERVADO";
+    static final String RETIRADO = "RETIRADO";
+    static final String DEVOLVIDO = "DEVOLVIDO";
+
+    private static final List<String> STATUS = List.of(RESERVADO, RETIRADO, DEVOLVIDO);
+
+    private final MongoTemplate mongoTemplate;
+    private final ReservaRepository reservaRepository;
+
+    @Value("${portaria.estatisticas.reconciliar-na-inicializacao:true}")
+    private boolean reconciliarNaInicializacao;
+
+    /**
+     * Leitura do documento de contadores; se ele ainda não existir, é calculado na hora
+     */
+    public Estatisticas getEstatisticas() {
+        Estatisticas estatisticas = mongoTemplate.findById(Estatisticas.ID, Estatisticas.class);
+        return estatisticas != null ? estatisticas : reconciliar();
+    }
+
+    public long reservasAtivas() {
+        Map<String, Long> porStatus = getEstatisticas().getReservasPorStatus();
+        return porStatus.getOrDefault(RESERVADO, 0L) + porStatus.getOrDefault(RETIRADO, 0L);
+    }
+
+    public void itemCadastrado(Item item) {
+        aplicar(atualizacao(variacaoItem(item, 1)));
+    }
+
+    public void itemRemovido(Item item) {
+        aplicar(atualizacao(variacaoItem(item, -1)));
+    }
+
+    /**
+     * Troca a contribuição do item antigo pela do novo (tipo e disponibilidade podem ter mudado)
+     */
+    public void itemAlterado(Item anterior, Item atual) {
+        Map<String, Long> variacoes = variacaoItem(anterior, -1);
+        variacaoItem(atual, 1).forEach((campo, valor) -> variacoes.merge(campo, valor, Long::sum));
+        aplicar(atualizacao(variacoes));
+    }
+
+    public void disponibilidadeAlterada(TipoItem tipo, boolean disponivel) {
+        aplicar(atualizacao(variacaoDisponibilidade(tipo, disponivel, 1)));
+    }
+
+    /**
+     * Registra itens que de fato mudaram de disponibilidade, agrupados por tipo
+     */
+    public void disponibilidadeAlterada(Map<TipoItem, Long> alteradosPorTipo, boolean disponivel) {
+        Map<String, Long> variacoes = new HashMap<>();
+        alteradosPorTipo.forEach((tipo, quantidade) -> variacoes.putAll(variacaoDisponibilidade(tipo, disponivel, quantidade)));
+        aplicar(atualizacao(variacoes));
+    }
+
+    public void reservasCriadas(long quantidade) {
+        aplicar(atualizacao(variacaoReservas(null, RESERVADO, quantidade)));
+    }
+
+    public void reservasRetiradas(long quantidade) {
+        aplicar(atualizacao(variacaoReservas(RESERVADO, RETIRADO, quantidade)));
+    }
+
+    public void reservasDevolvidas(long quantidade) {
+        aplicar(atualizacao(variacaoReservas(RETIRADO, DEVOLVIDO, quantidade)));
+    }
+
+    public void reservasRemovidas() {
+        Update update = new Update();
+        STATUS.forEach(status -> update.set("reservasPorStatus." + status, 0L));
+        aplicar(update);
+    }
+
+    /**
+     * Recalcula os contadores a partir das coleções de itens, reservas e histórico e grava o documento inteiro
+     */
+    public synchronized Estatisticas reconciliar() {
+        Estatisticas novas = new Estatisticas();
+        novas.setId(Estatisticas.ID);
+        for (TipoItem tipo : TipoItem.values()) {
+            novas.getItensPorTipo().put(tipo.name(), 0L);
+            novas.getDisponiveisPorTipo().put(tipo.name(), 0L);
+        }
+
+        Aggregation itensAgg = Aggregation.newAggregation(
+                Aggregation.group("tipo", "disponivel").count().as("n"));
+        for (Document grupo : mongoTemplate.aggregate(itensAgg, Item.class, Document.class)) {
+            Document chave = grupo.get("_id", Document.class);
+            String tipo = chave.getString("tipo");
+            if (tipo == null) {
+                continue;
+            }
+            long quantidade = ((Number) grupo.get("n")).longValue();
+            novas.getItensPorTipo().merge(tipo, quantidade, Long::sum);
+            if (Boolean.TRUE.equals(chave.getBoolean("disponivel"))) {
+                novas.getDisponiveisPorTipo().merge(tipo, quantidade, Long::sum);
+            }
+        }
+
+        // Uma única agregação: total, retiradas em aberto e devolvidas; o resto está só reservado
+        Aggregation reservasAgg = Aggregation.newAggregation(
+                Aggregation.facet(Aggregation.count().as("n")).as("total")
+                        .and(Aggregation.match(Criteria.where("dataRetirada").ne(null).and("dataDevolucao").is(null)),
+                                Aggregation.count().as("n")).as("retiradas")
+                        .and(Aggregation.match(Criteria.where("dataDevolucao").ne(null)),
+                                Aggregation.count().as("n")).as("devolvidas"));
+        Document reservas = mongoTemplate.aggregate(reservasAgg, Reserva.class, Document.class).getUniqueMappedResult();
+
+        long retiradas = extrairContagem(reservas, "retiradas");
+        long devolvidas = extrairContagem(reservas, "devolvidas");
+        long total = extrairContagem(reservas, "total");
+        novas.getReservasPorStatus().put(RESERVADO, total - retiradas - devolvidas);
+        // O histórico só recebe reservas devolvidas; mover para lá não altera os contadores
+        devolvidas += reservaRepository.contarArquivadas();
+        novas.getReservasPorStatus().put(RETIRADO, retiradas);
+        novas.getReservasPorStatus().put(DEVOLVIDO, devolvidas);
+        novas.setReconciliadoEm(LocalDateTime.now());
+
+        Estatisticas anteriores = mongoTemplate.findById(Estatisticas.ID, Estatisticas.class);
+        if (anteriores != null && !mesmosContadores(anteriores, novas)) {
+            log.info("Contadores corrigidos na reconciliação: {} -> {}", anteriores, novas);
+        }
+        return mongoTemplate.save(novas);
+    }
+
+    /**
+     * Reconciliação periódica; o intervalo é configurável (padrão: 10 minutos)
+     */
+    @Scheduled(fixedDelayString = "${portaria.estatisticas.reconciliar-a-cada:10m}",
+            initialDelayString = "${portaria.estatisticas.reconciliar-a-cada:10m}")
+    public void tentarReconciliar() {
+        try {
+            reconciliar();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao reconciliar os contadores: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconciliarNaInicializacao() {
+        if (reconciliarNaInicializacao) {
+            tentarReconciliar();
+        }
+    }
+
+    static Query documento() {
+        return new Query(Criteria.where("id").is(Estatisticas.ID));
+    }
+
+    /**
+     * Monta o $inc das variações diferentes de zero; o update é compartilhado com a versão reativa
+     */
+    static Update atualizacao(Map<String, Long> variacoes) {
+        Update update = new Update();
+        variacoes.forEach((campo, valor) -> {
+            if (valor != 0) {
+                update.inc(campo, valor);
+            }
+        });
+        return update;
+    }
+
+    static Map<String, Long> variacaoItem(Item item, long sinal) {
+        Map<String, Long> variacoes = new HashMap<>();
+        if (item.getTipo() == null) {
+            return variacoes;
+        }
+        variacoes.put("itensPorTipo." + item.getTipo().name(), sinal);
+        if (Boolean.TRUE.equals(item.getDisponivel())) {
+            variacoes.put("disponiveisPorTipo." + item.getTipo().name(), sinal);
+        }
+        return variacoes;
+    }
+
+    static Map<String, Long> variacaoDisponibilidade(TipoItem tipo, boolean disponivel, long quantidade) {
+        if (tipo == null) {
+            return Map.of();
+        }
+        return Map.of("disponiveisPorTipo." + tipo.name(), disponivel ? quantidade : -quantidade);
+    }
+
+    static Map<String, Long> variacaoReservas(String de, String para, long quantidade) {
+        Map<String, Long> variacoes = new HashMap<>();
+        if (de != null) {
+            variacoes.put("reservasPorStatus." + de, -quantidade);
+        }
+        variacoes.put("reservasPorStatus." + para, quantidade);
+        return variacoes;
+    }
+
+    /**
+     * Sem upsert: enquanto o documento não existir, a primeira leitura ou a reconciliação o cria completo.
+     * Os contadores são secundários, então uma falha aqui não desfaz a operação que a causou
+     */
+    private void aplicar(Update update) {
+        if (update.getUpdateObject().isEmpty()) {
+            return;
+        }
+        try {
+            mongoTemplate.updateFirst(documento(), update, Estatisticas.class);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao atualizar os contadores, corrigidos na próxima reconciliação: {}", e.getMessage());
+        }
+    }
+
+    private static boolean mesmosContadores(Estatisticas a, Estatisticas b) {
+        return a.getItensPorTipo().equals(b.getItensPorTipo())
+                && a.getDisponiveisPorTipo().equals(b.getDisponiveisPorTipo())
+                && a.getReservasPorStatus().equals(b.getReservasPorStatus());
+    }
+
+    private static long extrairContagem(Document resultado, String faceta) {
+        if (resultado == null) {
+            return 0;
+        }
+        List<Document> valores = resultado.getList(faceta, Document.class);
+        if (valores == null || valores.isEmpty()) {
+            return 0;
+        }
+        return ((Number) valores.get(0).get("n")).longValue();
+    }
+}
@@ -0,0 +1,206 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.config.SchedulingConfig;
+import com.gilbertomorales.portaria.model.EventoPortaria;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.model.InsertManyOptions;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registro das ações da portaria (reserva, retirada, devolução e limpeza) na coleção
+ * {@code eventos_portaria}, só com inserções. Quem registra só coloca o evento numa fila sem
+ * bloqueio; a gravação junta os eventos em lotes de um insertMany.
+ * <p>
+ * A durabilidade é configurável em {@code portaria.eventos.durabilidade}:
+ * <ul>
+ *     <li>ASSINCRONA: a fila é gravada a cada {@code gravar-a-cada}; eventos ainda na fila se perdem se o processo cair</li>
+ *     <li>SINCRONA: a operação só termina depois que o seu evento foi gravado; requisições que chegam
+ *     durante uma gravação entram juntas no lote seguinte</li>
+ * </ul>
+ * Em ambos os modos a gravação usa o write concern de {@code portaria.eventos.write-concern}, e um
+ * lote que falha volta para o início da fila e é tentado de novo.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EventoPortariaService implements MeterBinder {
+
+    static final String PENDENTES = "portaria.eventos.pendentes";
+
+    public enum Durabilidade {
+        ASSINCRONA,
+        SINCRONA
+    }
+
+    private final MongoTemplate mongoTemplate;
+
+    private final ConcurrentLinkedDeque<EventoPortaria> fila = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger pendentes = new AtomicInteger();
+
+    @Value("${portaria.eventos.durabilidade:ASSINCRONA}")
+    private Durabilidade durabilidade;
+
+    @Value("${portaria.eventos.tamanho-lote:500}")
+    private int tamanhoLote;
+
+    // Acima disso quem registra grava a fila na hora, em vez de deixá-la crescer
+    @Value("${portaria.eventos.capacidade:10000}")
+    private int capacidade;
+
+    @Value("${portaria.eventos.write-concern:ACKNOWLEDGED}")
+    private String writeConcern;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(PENDENTES, pendentes, AtomicInteger::get)
+                .description("Eventos da portaria ainda não gravados")
+                .register(registry);
+    }
+
+    public void registrar(EventoPortaria evento) {
+        registrarTodos(List.of(evento));
+    }
+
+    public void registrarTodos(List<EventoPortaria> eventos) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        eventos.forEach(fila::offer);
+        int total = pendentes.addAndGet(eventos.size());
+        if (durabilidade == Durabilidade.ASSINCRONA && total < capacidade) {
+            return;
+        }
+
+        try {
+            gravarPendentes();
+        } catch (RuntimeException e) {
+            if (durabilidade == Durabilidade.SINCRONA) {
+                // A operação já foi aplicada; o evento continua na fila para a próxima tentativa
+                throw new RuntimeException("Não foi possível gravar o evento da portaria: " + e.getMessage(), e);
+            }
+            log.warn("Falha ao gravar os eventos da portaria ({} na fila): {}", pendentes.get(), e.getMessage());
+        }
+    }
+
+    /**
+     * Versão para o perfil reativo: no modo síncrono a espera pela gravação roda fora do event loop
+     */
+    public Mono<Void> registrarReativo(EventoPortaria evento) {
+        Mono<Void> registro = Mono.fromRunnable(() -> registrar(evento));
+        return durabilidade == Durabilidade.SINCRONA ? registro.subscribeOn(Schedulers.boundedElastic()) : registro;
+    }
+
+    /**
+     * Eventos mais recentes primeiro, opcionalmente de uma reserva, item ou matrícula
+     */
+    public List<EventoPortaria> listar(String reservaId, String itemId, String matricula, int limite) {
+        Criteria criteria = new Criteria();
+        if (reservaId != null) {
+            criteria.and("reservaId").is(reservaId);
+        }
+        if (itemId != null) {
+            criteria.and("itemId").is(itemId);
+        }
+        if (matricula != null) {
+            criteria.and("matriculaUsuario").is(matricula);
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.DESC, "_id")).limit(limite);
+        return mongoTemplate.find(query, EventoPortaria.class);
+    }
+
+    @Scheduled(fixedDelayString = "${portaria.eventos.gravar-a-cada:200ms}",
+            initialDelayString = "${portaria.eventos.gravar-a-cada:200ms}", scheduler = SchedulingConfig.AGENDADOR_RAPIDO)
+    public void gravarAgendado() {
+        try {
+            gravarPendentes();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao gravar os eventos da portaria ({} na fila): {}", pendentes.get(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        gravarAgendado();
+    }
+
+    /**
+     * Esvazia a fila em lotes de {@code tamanhoLote}. Terminando sem exceção, todo evento que estava
+     * na fila quando a chamada começou está gravado: ou por esta chamada, ou por uma anterior que
+     * segurava o bloqueio (um lote que falha volta para a fila antes de o bloqueio ser liberado)
+     */
+    synchronized void gravarPendentes() {
+        while (true) {
+            List<EventoPortaria> lote = new ArrayList<>(tamanhoLote);
+            EventoPortaria evento;
+            while (lote.size() < tamanhoLote && (evento = fila.poll()) != null) {
+                lote.add(evento);
+            }
+            if (lote.isEmpty()) {
+                return;
+            }
+
+            try {
+                inserir(lote);
+            } catch (RuntimeException e) {
+                // De volta ao início da fila, na ordem original
+                for (int i = lote.size() - 1; i >= 0; i--) {
+                    fila.offerFirst(lote.get(i));
+                }
+                throw e;
+            }
+            pendentes.addAndGet(-lote.size());
+        }
+    }
+
+    private void inserir(List<EventoPortaria> lote) {
+        List<Document> documentos = new ArrayList<>(lote.size());
+        for (EventoPortaria evento : lote) {
+            Document documento = new Document();
+            mongoTemplate.getConverter().write(evento, documento);
+            documentos.add(documento);
+        }
+
+        try {
+            mongoTemplate.getCollection(mongoTemplate.getCollectionName(EventoPortaria.class))
+                    .withWriteConcern(writeConcern())
+                    .insertMany(documentos, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            // Repetição de um lote gravado em parte: os eventos que já estão lá não contam como falha
+            boolean soDuplicados = e.getWriteErrors().stream()
+                    .allMatch(erro -> ErrorCategory.fromErrorCode(erro.getCode()) == ErrorCategory.DUPLICATE_KEY);
+            if (!soDuplicados || e.getWriteConcernError() != null) {
+                throw e;
+            }
+        }
+    }
+
+    private WriteConcern writeConcern() {
+        WriteConcern concern = WriteConcern.valueOf(writeConcern);
+        if (concern == null) {
+            throw new RuntimeException("Write concern desconhecido: " + writeConcern);
+        }
+        return concern;
+    }
+}
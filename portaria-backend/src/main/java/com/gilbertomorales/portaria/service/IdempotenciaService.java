@@ -0,0 +1,196 @@
+package com.gilbertomorales.portaria.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gilbertomorales.portaria.config.CacheConfig;
+import com.gilbertomorales.portaria.model.RespostaIdempotente;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicação das operações da portaria pelo cabeçalho Idempotency-Key: a primeira requisição
+ * com a chave executa a operação e grava a resposta; as repetições (terminal que reenviou após
+ * perder a resposta) recebem a resposta gravada sem executar nada de novo.
+ * <p>
+ * As respostas concluídas ficam no cache em memória e na coleção {@code idempotencia}, que o
+ * índice TTL esvazia após {@code portaria.idempotencia.validade}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotenciaService {
+
+    public static final String CABECALHO = "Idempotency-Key";
+    public static final String CABECALHO_REPETIDA = "Idempotent-Replayed";
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final CacheManager cacheManager;
+
+    @Value("${portaria.idempotencia.validade:24h}")
+    private Duration validade;
+
+    @Value("${portaria.idempotencia.espera-maxima:30s}")
+    private Duration esperaMaxima;
+
+    /**
+     * Executa a operação uma única vez por chave; sem chave, executa normalmente
+     */
+    public <T> ResponseEntity<T> executar(String chave, String requisicao, Class<T> tipo,
+                                          Supplier<ResponseEntity<T>> operacao) {
+        if (chave == null || chave.isBlank()) {
+            return operacao.get();
+        }
+
+        Optional<ResponseEntity<T>> existente = reservarChave(chave, requisicao, tipo);
+        if (existente.isPresent()) {
+            return existente.get();
+        }
+
+        ResponseEntity<T> resposta;
+        try {
+            resposta = operacao.get();
+        } catch (RuntimeException e) {
+            liberarChave(chave);
+            throw e;
+        }
+        return concluir(chave, requisicao, resposta);
+    }
+
+    /**
+     * Versão para o perfil reativo: as leituras e escritas da chave rodam fora do event loop
+     */
+    public <T> Mono<ResponseEntity<T>> executarReativo(String chave, String requisicao, Class<T> tipo,
+                                                       Supplier<Mono<ResponseEntity<T>>> operacao) {
+        if (chave == null || chave.isBlank()) {
+            return operacao.get();
+        }
+
+        return Mono.fromCallable(() -> reservarChave(chave, requisicao, tipo))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(existente -> existente.isPresent()
+                        ? Mono.just(existente.get())
+                        : operacao.get()
+                                .flatMap(resposta -> Mono.fromCallable(() -> concluir(chave, requisicao, resposta))
+                                        .subscribeOn(Schedulers.boundedElastic()))
+                                .onErrorResume(e -> Mono.fromRunnable(() -> liberarChave(chave))
+                                        .subscribeOn(Schedulers.boundedElastic())
+                                        .then(Mono.error(e))));
+    }
+
+    /**
+     * Registra a chave como em andamento. Retorna vazio se esta requisição deve executar a operação,
+     * ou a resposta a devolver no lugar dela (gravada, conflito ou chave reutilizada)
+     */
+    private <T> Optional<ResponseEntity<T>> reservarChave(String chave, String requisicao, Class<T> tipo) {
+        RespostaIdempotente emCache = cache().get(chave, RespostaIdempotente.class);
+        if (emCache != null && !vencida(emCache)) {
+            return Optional.of(repetir(emCache, requisicao, tipo));
+        }
+
+        for (int tentativa = 0; tentativa < 2; tentativa++) {
+            try {
+                mongoTemplate.insert(new RespostaIdempotente(chave, requisicao, false, 0, null, LocalDateTime.now()));
+                return Optional.empty();
+            } catch (DuplicateKeyException e) {
+                RespostaIdempotente existente = mongoTemplate.findById(chave, RespostaIdempotente.class);
+                if (existente == null) {
+                    continue;
+                }
+                if (existente.isConcluida() && !vencida(existente)) {
+                    cache().put(chave, existente);
+                    return Optional.of(repetir(existente, requisicao, tipo));
+                }
+                if (!existente.isConcluida() && !abandonada(existente)) {
+                    // A requisição original ainda está em execução
+                    return Optional.of(ResponseEntity.status(HttpStatus.CONFLICT).build());
+                }
+                // Chave vencida ainda não removida pelo TTL, ou operação interrompida sem resposta
+                mongoTemplate.remove(new Query(Criteria.where("id").is(chave)
+                        .and("criadaEm").is(existente.getCriadaEm())), RespostaIdempotente.class);
+            }
+        }
+        return Optional.of(ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    private <T> ResponseEntity<T> concluir(String chave, String requisicao, ResponseEntity<T> resposta) {
+        if (resposta.getStatusCode().is5xxServerError()) {
+            // Falha do servidor não é resposta definitiva: a repetição executa de novo
+            liberarChave(chave);
+            return resposta;
+        }
+
+        try {
+            String corpo = resposta.getBody() != null ? objectMapper.writeValueAsString(resposta.getBody()) : null;
+            Update update = new Update()
+                    .set("concluida", true)
+                    .set("status", resposta.getStatusCode().value())
+                    .set("corpo", corpo);
+            RespostaIdempotente gravada = mongoTemplate.findAndModify(new Query(Criteria.where("id").is(chave)),
+                    update, RespostaIdempotente.class);
+            if (gravada != null) {
+                gravada.setConcluida(true);
+                gravada.setStatus(resposta.getStatusCode().value());
+                gravada.setCorpo(corpo);
+                cache().put(chave, gravada);
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            // A operação já foi feita; a chave fica em andamento e, passada a espera máxima, uma repetição a executa de novo
+            log.warn("Não foi possível gravar a resposta da chave {} ({}): {}", chave, requisicao, e.getMessage());
+        }
+        return resposta;
+    }
+
+    private void liberarChave(String chave) {
+        try {
+            mongoTemplate.remove(new Query(Criteria.where("id").is(chave).and("concluida").is(false)),
+                    RespostaIdempotente.class);
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível liberar a chave {}: {}", chave, e.getMessage());
+        }
+    }
+
+    private <T> ResponseEntity<T> repetir(RespostaIdempotente gravada, String requisicao, Class<T> tipo) {
+        if (!gravada.getRequisicao().equals(requisicao)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build();
+        }
+        try {
+            T corpo = gravada.getCorpo() != null ? objectMapper.readValue(gravada.getCorpo(), tipo) : null;
+            return ResponseEntity.status(gravada.getStatus())
+                    .header(CABECALHO_REPETIDA, "true")
+                    .body(corpo);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Resposta gravada inválida para a chave " + gravada.getId(), e);
+        }
+    }
+
+    private boolean vencida(RespostaIdempotente resposta) {
+        return resposta.getCriadaEm().plus(validade).isBefore(LocalDateTime.now());
+    }
+
+    private boolean abandonada(RespostaIdempotente resposta) {
+        return resposta.getCriadaEm().plus(esperaMaxima).isBefore(LocalDateTime.now());
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(CacheConfig.RESPOSTAS_IDEMPOTENTES);
+    }
+}
@@ -0,0 +1,336 @@
+package com.gilbertomorales.portaria.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.gilbertomorales.portaria.dto.ErroImportacaoDTO;
+import com.gilbertomorales.portaria.dto.ImportacaoResultadoDTO;
+import com.gilbertomorales.portaria.model.Item;
+import com.gilbertomorales.portaria.model.Sincronizavel;
+import com.gilbertomorales.portaria.model.User;
+import com.gilbertomorales.portaria.repository.ContadorVersoes;
+import com.gilbertomorales.portaria.repository.ItemRepository;
+import com.gilbertomorales.portaria.repository.UserRepository;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Importação e exportação em lote de usuários e itens, em NDJSON ou CSV com cabeçalho.
+ * Os arquivos são lidos e escritos em fluxo, processando no máximo um lote por vez em memória.
+ */
+@Service
+@RequiredArgsConstructor
+public class ImportacaoExportacaoService {
+
+    public enum Formato { NDJSON, CSV }
+
+    private static final int TAMANHO_LOTE = 500;
+    private static final int MAXIMO_ERROS_RELATADOS = 1000;
+
+    private static final List<String> COLUNAS_USUARIO = List.of("id", "nome", "tipo", "matricula", "email");
+    private static final List<String> COLUNAS_ITEM = List.of("id", "nome", "tipo", "disponivel", "localizacao");
+
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final VersaoCadastrosService versaoCadastrosService;
+    private final EstatisticasService estatisticasService;
+    private final BuscaService buscaService;
+    private final DisponibilidadeService disponibilidadeService;
+    private final ContadorVersoes contadorVersoes;
+
+    public ImportacaoResultadoDTO importarUsuarios(InputStream entrada, Formato formato) {
+        ImportacaoResultadoDTO resultado = importar(entrada, formato, User.class, this::descartarUsuariosDuplicados);
+        if (resultado.importados() > 0) {
+            versaoCadastrosService.usuariosAlterados();
+            buscaService.recarregarUsuarios();
+        }
+        return resultado;
+    }
+
+    public ImportacaoResultadoDTO importarItens(InputStream entrada, Formato formato) {
+        ImportacaoResultadoDTO resultado = importar(entrada, formato, Item.class, (lote, relatorio) -> lote);
+        if (resultado.importados() > 0) {
+            versaoCadastrosService.itensAlterados();
+            // Os tipos importados não são acompanhados no lote: os contadores são recalculados de uma vez
+            estatisticasService.tentarReconciliar();
+            buscaService.recarregarItens();
+            disponibilidadeService.recarregar();
+        }
+        return resultado;
+    }
+
+    public void exportarUsuarios(OutputStream saida, Formato formato) {
+        try (Stream<User> usuarios = userRepository.streamAllBy()) {
+            exportar(usuarios, saida, formato, COLUNAS_USUARIO);
+        }
+    }
+
+    public void exportarItens(OutputStream saida, Formato formato) {
+        try (Stream<Item> itens = itemRepository.streamAllBy()) {
+            exportar(itens, saida, formato, COLUNAS_ITEM);
+        }
+    }
+
+    private <T extends Sincronizavel> ImportacaoResultadoDTO importar(
+            InputStream entrada, Formato formato, Class<T> tipo,
+            BiFunction<List<Linha<T>>, Relatorio, List<Linha<T>>> filtroDoLote) {
+        Relatorio relatorio = new Relatorio();
+
+        try (BufferedReader leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            List<String> cabecalho = null;
+            List<Linha<T>> lote = new ArrayList<>(TAMANHO_LOTE);
+            long numeroLinha = 0;
+            String texto;
+
+            while ((texto = leitor.readLine()) != null) {
+                numeroLinha++;
+                if (texto.isBlank()) {
+                    continue;
+                }
+                if (formato == Formato.CSV && cabecalho == null) {
+                    cabecalho = lerLinhaCsv(texto);
+                    continue;
+                }
+
+                relatorio.totalRegistros++;
+                T registro;
+                try {
+                    registro = formato == Formato.CSV
+                            ? converterLinhaCsv(cabecalho, texto, tipo)
+                            : objectMapper.readValue(texto, tipo);
+                } catch (IOException | IllegalArgumentException e) {
+                    relatorio.registrarErro(numeroLinha, "Registro mal formatado");
+                    continue;
+                }
+
+                String violacoes = validar(registro);
+                if (violacoes != null) {
+                    relatorio.registrarErro(numeroLinha, violacoes);
+                    continue;
+                }
+
+                lote.add(new Linha<>(numeroLinha, registro));
+                if (lote.size() == TAMANHO_LOTE) {
+                    gravarLote(filtroDoLote.apply(lote, relatorio), tipo, relatorio);
+                    lote = new ArrayList<>(TAMANHO_LOTE);
+                }
+            }
+
+            if (!lote.isEmpty()) {
+                gravarLote(filtroDoLote.apply(lote, relatorio), tipo, relatorio);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return relatorio.toDTO();
+    }
+
+    /**
+     * Remove do lote matrículas/emails repetidos no próprio arquivo ou já cadastrados,
+     * consultando o banco uma única vez por lote
+     */
+    private List<Linha<User>> descartarUsuariosDuplicados(List<Linha<User>> lote, Relatorio relatorio) {
+        Set<String> matriculas = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        List<Linha<User>> unicos = new ArrayList<>(lote.size());
+
+        for (Linha<User> linha : lote) {
+            User usuario = linha.registro();
+            if (matriculas.contains(usuario.getMatricula())) {
+                relatorio.registrarErro(linha.numero(), "Matrícula repetida no arquivo");
+            } else if (emails.contains(usuario.getEmail())) {
+                relatorio.registrarErro(linha.numero(), "Email repetido no arquivo");
+            } else {
+                matriculas.add(usuario.getMatricula());
+                emails.add(usuario.getEmail());
+                unicos.add(linha);
+            }
+        }
+
+        List<User> existentes = userRepository.findByMatriculaInOrEmailIn(matriculas, emails);
+        if (existentes.isEmpty()) {
+            return unicos;
+        }
+
+        Set<String> matriculasExistentes = existentes.stream().map(User::getMatricula).collect(Collectors.toSet());
+        Set<String> emailsExistentes = existentes.stream().map(User::getEmail).collect(Collectors.toSet());
+
+        List<Linha<User>> novos = new ArrayList<>(unicos.size());
+        for (Linha<User> linha : unicos) {
+            if (matriculasExistentes.contains(linha.registro().getMatricula())) {
+                relatorio.registrarErro(linha.numero(), "Já existe um usuário com esta matrícula");
+            } else if (emailsExistentes.contains(linha.registro().getEmail())) {
+                relatorio.registrarErro(linha.numero(), "Já existe um usuário com este email");
+            } else {
+                novos.add(linha);
+            }
+        }
+        return novos;
+    }
+
+    private <T extends Sincronizavel> void gravarLote(List<Linha<T>> lote, Class<T> tipo, Relatorio relatorio) {
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        // Modo não ordenado: uma linha com erro não impede a gravação das demais
+        List<T> registros = lote.stream().map(Linha::registro).collect(Collectors.toList());
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, tipo);
+        bulk.insert(registros);
+
+        try {
+            relatorio.importados += bulk.execute().getInsertedCount();
+        } catch (BulkOperationException e) {
+            relatorio.importados += e.getResult().getInsertedCount();
+            for (BulkWriteError erro : e.getErrors()) {
+                relatorio.registrarErro(lote.get(erro.getIndex()).numero(), mensagemDoErro(erro));
+            }
+        } finally {
+            contadorVersoes.liberarVersoes(registros);
+        }
+    }
+
+    private static String mensagemDoErro(BulkWriteError erro) {
+        if (ErrorCategory.fromErrorCode(erro.getCode()) == ErrorCategory.DUPLICATE_KEY) {
+            return "Registro duplicado";
+        }
+        return erro.getMessage();
+    }
+
+    private String validar(Object registro) {
+        Set<ConstraintViolation<Object>> violacoes = validator.validate(registro);
+        if (violacoes.isEmpty()) {
+            return null;
+        }
+        return violacoes.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private <T> T converterLinhaCsv(List<String> cabecalho, String texto, Class<T> tipo) throws IOException {
+        List<String> valores = lerLinhaCsv(texto);
+        ObjectNode registro = objectMapper.createObjectNode();
+        for (int i = 0; i < cabecalho.size() && i < valores.size(); i++) {
+            // Colunas vazias ficam de fora para valerem os padrões da entidade
+            if (!valores.get(i).isEmpty()) {
+                registro.put(cabecalho.get(i), valores.get(i));
+            }
+        }
+        return objectMapper.treeToValue(registro, tipo);
+    }
+
+    /**
+     * Separa uma linha CSV, aceitando campos entre aspas com vírgulas e aspas duplicadas
+     */
+    private static List<String> lerLinhaCsv(String linha) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreAspas = false;
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == ',') {
+                campos.add(atual.toString().trim());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        campos.add(atual.toString().trim());
+        return campos;
+    }
+
+    private <T> void exportar(Stream<T> registros, OutputStream saida, Formato formato, List<String> colunas) {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        try {
+            if (formato == Formato.CSV) {
+                escritor.write(String.join(",", colunas));
+                escritor.write('\n');
+            }
+            for (T registro : (Iterable<T>) registros::iterator) {
+                if (formato == Formato.CSV) {
+                    JsonNode campos = objectMapper.valueToTree(registro);
+                    escritor.write(colunas.stream()
+                            .map(coluna -> escaparCsv(campos.path(coluna).asText("")))
+                            .collect(Collectors.joining(",")));
+                } else {
+                    escritor.write(objectMapper.writeValueAsString(registro));
+                }
+                escritor.write('\n');
+            }
+            escritor.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String escaparCsv(String valor) {
+        if (valor.contains(",") || valor.contains("\"") || valor.contains("\n")) {
+            return "\"" + valor.replace("\"", "\"\"") + "\"";
+        }
+        return valor;
+    }
+
+    private record Linha<T>(long numero, T registro) {}
+
+    private static class Relatorio {
+        private long totalRegistros;
+        private long importados;
+        private long falhas;
+        private final List<ErroImportacaoDTO> erros = new ArrayList<>();
+
+        void registrarErro(long linha, String mensagem) {
+            falhas++;
+            if (erros.size() < MAXIMO_ERROS_RELATADOS) {
+                erros.add(new ErroImportacaoDTO(linha, mensagem));
+            }
+        }
+
+        ImportacaoResultadoDTO toDTO() {
+            erros.sort(Comparator.comparingLong(ErroImportacaoDTO::linha));
+            return new ImportacaoResultadoDTO(totalRegistros, importados, falhas, erros);
+        }
+    }
+}
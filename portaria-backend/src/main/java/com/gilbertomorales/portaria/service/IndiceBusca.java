@@ -0,0 +1,399 @@
+package com.gilbertomorales.portaria.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido em memória para busca por prefixo, sem acentos e sem diferenciar maiúsculas.
+ * Os termos ficam num array ordenado (busca binária pelo início do prefixo) com a lista de
+ * documentos de cada termo; os documentos são numerados na ordem alfabética do campo principal,
+ * então os primeiros bits do resultado já são os primeiros em ordem.
+ * <p>
+ * Leituras não bloqueiam: o estado é imutável e trocado por inteiro. Alterações vão para uma
+ * camada pequena por cima da base, consultada por varredura, e a base é refeita quando essa
+ * camada passa de {@code limiteAlteracoes}.
+ * <p>
+ * A carga lê os documentos sem bloquear as alterações; as feitas durante a leitura são
+ * reaplicadas sobre a base nova, para que a leitura mais antiga não as desfaça.
+ */
+final class IndiceBusca<T> {
+
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{Alnum}]+");
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+    private final Function<T, String> id;
+    private final Function<T, List<String>> campos;
+    private final Comparator<T> ordem;
+    private final int limiteAlteracoes;
+
+    private volatile Estado<T> estado;
+
+    // Protegidos pelo monitor do índice: numeração das alterações e as feitas durante cargas em andamento
+    private long geracao;
+    private int cargasEmAndamento;
+    private final Map<String, Alteracao<T>> alteradosDuranteCarga = new HashMap<>();
+
+    IndiceBusca(Function<T, String> id, Function<T, String> campoPrincipal,
+                Function<T, List<String>> campos, int limiteAlteracoes) {
+        this.id = id;
+        this.campos = campos;
+        this.ordem = Comparator.comparing((T doc) -> normalizar(campoPrincipal.apply(doc))).thenComparing(id);
+        this.limiteAlteracoes = limiteAlteracoes;
+    }
+
+    boolean carregado() {
+        return estado != null;
+    }
+
+    int tamanho() {
+        Estado<T> atual = estado;
+        return atual == null ? 0 : atual.documentos().size();
+    }
+
+    /**
+     * Substitui a base pelos documentos lidos. A leitura roda fora do bloqueio; as alterações
+     * recebidas depois que ela começou valem sobre o que foi lido
+     */
+    void carregar(Supplier<? extends Collection<T>> leitura) {
+        long desde;
+        synchronized (this) {
+            desde = geracao;
+            cargasEmAndamento++;
+        }
+        Collection<T> documentos = null;
+        try {
+            documentos = leitura.get();
+        } finally {
+            synchronized (this) {
+                Map<String, T> posteriores = new HashMap<>();
+                alteradosDuranteCarga.forEach((chave, alteracao) -> {
+                    if (alteracao.geracao() > desde) {
+                        posteriores.put(chave, alteracao.documento());
+                    }
+                });
+                if (--cargasEmAndamento == 0) {
+                    alteradosDuranteCarga.clear();
+                }
+                if (documentos != null) {
+                    instalar(new Base<>(documentos, ordem, id, this::termosDe), posteriores);
+                }
+            }
+        }
+    }
+
+    synchronized void atualizar(T documento) {
+        alterar(id.apply(documento), documento);
+    }
+
+    synchronized void remover(String idDocumento) {
+        alterar(idDocumento, null);
+    }
+
+    /**
+     * Versão atual de um documento, se ele estiver no índice
+     */
+    T buscarPorId(String idDocumento) {
+        Estado<T> atual = estado;
+        if (atual == null) {
+            return null;
+        }
+        if (atual.alteracoes().containsKey(idDocumento)) {
+            return atual.alteracoes().get(idDocumento);
+        }
+        Integer posicao = atual.base().posicaoPorId.get(idDocumento);
+        return posicao != null ? atual.base().documentos.get(posicao) : null;
+    }
+
+    /**
+     * Documentos em que cada palavra da consulta é início de algum termo, em ordem alfabética.
+     * Uma palavra de 3 ou mais letras sem nenhum termo com esse início aceita um erro de digitação
+     */
+    List<T> buscar(String consulta, int limite) {
+        Estado<T> atual = estado;
+        List<String> palavras = tokenizar(consulta);
+        if (atual == null || palavras.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        List<T> encontrados = new ArrayList<>();
+        BitSet candidatos = atual.base().buscar(palavras);
+        for (int i = candidatos.nextSetBit(0); i >= 0 && encontrados.size() < limite; i = candidatos.nextSetBit(i + 1)) {
+            T documento = atual.base().documentos.get(i);
+            // Alterado ou removido depois da última reconstrução: vale a versão da camada de alterações
+            if (!atual.alteracoes().containsKey(id.apply(documento))) {
+                encontrados.add(documento);
+            }
+        }
+
+        // Com algum resultado exato na base, a camada de alterações também não aceita aproximação
+        boolean aproximar = candidatos.isEmpty();
+        boolean alterados = false;
+        for (T documento : atual.alteracoes().values()) {
+            if (documento != null && corresponde(termosDe(documento), palavras, aproximar)) {
+                encontrados.add(documento);
+                alterados = true;
+            }
+        }
+        if (alterados) {
+            encontrados.sort(ordem);
+        }
+        return encontrados.size() > limite ? encontrados.subList(0, limite) : encontrados;
+    }
+
+    private void alterar(String idDocumento, T documento) {
+        geracao++;
+        if (cargasEmAndamento > 0) {
+            alteradosDuranteCarga.put(idDocumento, new Alteracao<>(geracao, documento));
+        }
+        Estado<T> atual = estado;
+        if (atual == null) {
+            return;
+        }
+        Map<String, T> alteracoes = new HashMap<>(atual.alteracoes());
+        alteracoes.put(idDocumento, documento);
+        instalar(atual.base(), alteracoes);
+    }
+
+    private void instalar(Base<T> base, Map<String, T> alteracoes) {
+        if (alteracoes.size() <= limiteAlteracoes) {
+            estado = new Estado<>(base, alteracoes);
+            return;
+        }
+
+        Map<String, T> documentos = new LinkedHashMap<>();
+        base.documentos.forEach(doc -> documentos.put(id.apply(doc), doc));
+        alteracoes.forEach((chave, doc) -> {
+            if (doc == null) {
+                documentos.remove(chave);
+            } else {
+                documentos.put(chave, doc);
+            }
+        });
+        estado = new Estado<>(new Base<>(documentos.values(), ordem, id, this::termosDe), Map.of());
+    }
+
+    private List<String> termosDe(T documento) {
+        List<String> termos = new ArrayList<>();
+        for (String campo : campos.apply(documento)) {
+            termos.addAll(tokenizar(campo));
+        }
+        return termos;
+    }
+
+    private static boolean corresponde(List<String> termos, List<String> palavras, boolean aproximar) {
+        for (String palavra : palavras) {
+            boolean algum = false;
+            for (String termo : termos) {
+                if (termo.startsWith(palavra)) {
+                    algum = true;
+                    break;
+                }
+            }
+            if (!algum) {
+                algum = aproximar && palavra.length() >= 3 && termos.stream().anyMatch(termo -> prefixoAproximado(termo, palavra));
+            }
+            if (!algum) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        return MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> tokenizar(String texto) {
+        List<String> termos = new ArrayList<>();
+        for (String termo : SEPARADORES.split(normalizar(texto))) {
+            if (!termo.isEmpty()) {
+                termos.add(termo);
+            }
+        }
+        return termos;
+    }
+
+    /**
+     * Algum início do termo (do tamanho da palavra, com uma letra a mais ou a menos) está a
+     * no máximo uma edição da palavra
+     */
+    private static boolean prefixoAproximado(String termo, String palavra) {
+        for (int tamanho = palavra.length() - 1; tamanho <= palavra.length() + 1; tamanho++) {
+            if (tamanho > 0 && tamanho <= termo.length() && ateUmaEdicao(termo, tamanho, palavra)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compara os primeiros {@code tamanhoA} caracteres de {@code a} com {@code b}, sem criar substrings
+     */
+    private static boolean ateUmaEdicao(String a, int tamanhoA, String b) {
+        if (Math.abs(tamanhoA - b.length()) > 1) {
+            return false;
+        }
+        int i = 0;
+        int j = 0;
+        boolean editou = false;
+        while (i < tamanhoA && j < b.length()) {
+            if (a.charAt(i) == b.charAt(j)) {
+                i++;
+                j++;
+                continue;
+            }
+            if (editou) {
+                return false;
+            }
+            editou = true;
+            if (tamanhoA > b.length()) {
+                i++;
+            } else if (tamanhoA < b.length()) {
+                j++;
+            } else {
+                i++;
+                j++;
+            }
+        }
+        // Sobra no fim de uma das duas conta como a edição
+        return (editou ? 1 : 0) + (tamanhoA - i) + (b.length() - j) <= 1;
+    }
+
+    private record Alteracao<T>(long geracao, T documento) {
+    }
+
+    private record Estado<T>(Base<T> base, Map<String, T> alteracoes) {
+
+        List<T> documentos() {
+            return base.documentos;
+        }
+    }
+
+    private static final class Base<T> {
+
+        private final List<T> documentos;
+        private final Map<String, Integer> posicaoPorId;
+        private final String[] termos;
+        private final int[][] postagens;
+        private final char[] alfabeto;
+
+        private Base(Collection<T> origem, Comparator<T> ordem, Function<T, String> id,
+                     Function<T, List<String>> termosDe) {
+            List<T> ordenados = new ArrayList<>(origem);
+            ordenados.sort(ordem);
+            this.documentos = List.copyOf(ordenados);
+            this.posicaoPorId = new HashMap<>(ordenados.size() * 2);
+
+            Map<String, List<Integer>> porTermo = new HashMap<>();
+            for (int i = 0; i < ordenados.size(); i++) {
+                T documento = ordenados.get(i);
+                posicaoPorId.put(id.apply(documento), i);
+                for (String termo : termosDe.apply(documento)) {
+                    List<Integer> lista = porTermo.computeIfAbsent(termo, t -> new ArrayList<>());
+                    if (lista.isEmpty() || lista.get(lista.size() - 1) != i) {
+                        lista.add(i);
+                    }
+                }
+            }
+
+            this.termos = porTermo.keySet().toArray(String[]::new);
+            Arrays.sort(termos);
+            this.postagens = new int[termos.length][];
+            for (int t = 0; t < termos.length; t++) {
+                postagens[t] = porTermo.get(termos[t]).stream().mapToInt(Integer::intValue).toArray();
+            }
+            this.alfabeto = porTermo.keySet().stream()
+                    .flatMapToInt(String::chars)
+                    .distinct()
+                    .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
+                    .toString()
+                    .toCharArray();
+        }
+
+        private BitSet buscar(List<String> palavras) {
+            BitSet resultado = null;
+            for (String palavra : palavras) {
+                BitSet documentosDaPalavra = porPrefixo(palavra);
+                if (documentosDaPalavra.isEmpty() && palavra.length() >= 3) {
+                    documentosDaPalavra = porPrefixoAproximado(palavra);
+                }
+                if (resultado == null) {
+                    resultado = documentosDaPalavra;
+                } else {
+                    resultado.and(documentosDaPalavra);
+                }
+                if (resultado.isEmpty()) {
+                    break;
+                }
+            }
+            return resultado;
+        }
+
+        private BitSet porPrefixo(String prefixo) {
+            BitSet documentosComPrefixo = new BitSet(documentos.size());
+            marcarPrefixo(prefixo, documentosComPrefixo);
+            return documentosComPrefixo;
+        }
+
+        /**
+         * Em vez de comparar a palavra com cada termo, gera as variantes dela a uma edição (com as
+         * letras que aparecem nos termos) e procura cada variante como prefixo no array ordenado
+         */
+        private BitSet porPrefixoAproximado(String palavra) {
+            BitSet aproximados = new BitSet(documentos.size());
+            for (String variante : variantes(palavra)) {
+                marcarPrefixo(variante, aproximados);
+            }
+            return aproximados;
+        }
+
+        private void marcarPrefixo(String prefixo, BitSet destino) {
+            int inicio = Arrays.binarySearch(termos, prefixo);
+            if (inicio < 0) {
+                inicio = -inicio - 1;
+            }
+            for (int t = inicio; t < termos.length && termos[t].startsWith(prefixo); t++) {
+                for (int documento : postagens[t]) {
+                    destino.set(documento);
+                }
+            }
+        }
+
+        private Set<String> variantes(String palavra) {
+            Set<String> variantes = new HashSet<>();
+            StringBuilder sb = new StringBuilder(palavra.length() + 1);
+            for (int i = 0; i <= palavra.length(); i++) {
+                if (i < palavra.length()) {
+                    variantes.add(sb.append(palavra, 0, i).append(palavra, i + 1, palavra.length()).toString());
+                    sb.setLength(0);
+                }
+                for (char letra : alfabeto) {
+                    variantes.add(sb.append(palavra, 0, i).append(letra).append(palavra, i, palavra.length()).toString());
+                    sb.setLength(0);
+                    if (i < palavra.length() && letra != palavra.charAt(i)) {
+                        variantes.add(sb.append(palavra, 0, i).append(letra).append(palavra, i + 1, palavra.length()).toString());
+                        sb.setLength(0);
+                    }
+                }
+            }
+            return variantes;
+        }
+    }
+}
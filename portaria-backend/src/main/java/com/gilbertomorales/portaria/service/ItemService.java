@@ -1,26 +1,44 @@
 package com.gilbertomorales.portaria.service;
 
+import com.gilbertomorales.portaria.dto.ItemResumoDTO;
+import com.gilbertomorales.portaria.event.ItemDisponibilidadeEvent;
 import com.gilbertomorales.portaria.model.Item;
 import com.gilbertomorales.portaria.model.enums.TipoItem;
 import com.gilbertomorales.portaria.repository.ItemRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ItemService {
 
     private final ItemRepository itemRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VersaoCadastrosService versaoCadastrosService;
+    private final EstatisticasService estatisticasService;
+    private final BuscaService buscaService;
+    private final DisponibilidadeService disponibilidadeService;
+    private final PropagacaoNomesService propagacaoNomesService;
+    private final SincronizacaoService sincronizacaoService;
 
     public List<Item> findAll() {
         return itemRepository.findAll();
     }
 
+    /**
+     * Respondido pelo índice em memória de {@link DisponibilidadeService}
+     */
     public List<Item> findDisponiveis() {
-        return itemRepository.findByDisponivelTrue();
+        return disponibilidadeService.consultar().itens();
     }
 
     public List<Item> findByTipo(TipoItem tipo) {
@@ -28,40 +46,133 @@ public class ItemService {
     }
 
     public List<Item> findDisponiveisByTipo(TipoItem tipo) {
-        return itemRepository.findByDisponivelTrueAndTipo(tipo);
+        return disponibilidadeService.consultar(tipo).itens();
+    }
+
+    /**
+     * Lista resumida para seleções e tabelas, opcionalmente só com os itens disponíveis
+     */
+    public List<ItemResumoDTO> findResumo(Boolean disponivel) {
+        Sort porNome = Sort.by("nome");
+        return disponivel == null
+                ? itemRepository.findResumoBy(porNome)
+                : itemRepository.findResumoByDisponivel(disponivel, porNome);
     }
 
     public Optional<Item> findById(String id) {
         return itemRepository.findById(id);
     }
 
+    public List<Item> findAllById(Collection<String> ids) {
+        return itemRepository.findAllById(ids);
+    }
+
     public Item save(Item item) {
-        return itemRepository.save(item);
+        Optional<Item> anterior = item.getId() == null ? Optional.empty() : itemRepository.findById(item.getId());
+        Item salvo = itemRepository.save(item);
+        anterior.ifPresentOrElse(
+                existente -> {
+                    estatisticasService.itemAlterado(existente, salvo);
+                    propagacaoNomesService.itemAlterado(existente, salvo);
+                },
+                () -> estatisticasService.itemCadastrado(salvo));
+        buscaService.itemSalvo(salvo);
+        disponibilidadeService.itemSalvo(salvo);
+        publicarDisponibilidade(salvo);
+        return salvo;
     }
 
     public Item update(String id, Item item) {
-        if (!itemRepository.existsById(id)) {
-            throw new RuntimeException("Item não encontrado");
-        }
+        Item anterior = itemRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Item não encontrado"));
         item.setId(id);
-        return itemRepository.save(item);
+        Item atualizado = itemRepository.save(item);
+        estatisticasService.itemAlterado(anterior, atualizado);
+        propagacaoNomesService.itemAlterado(anterior, atualizado);
+        buscaService.itemSalvo(atualizado);
+        disponibilidadeService.itemSalvo(atualizado);
+        publicarDisponibilidade(atualizado);
+        return atualizado;
     }
 
     public void deleteById(String id) {
+        Optional<Item> removido = itemRepository.findById(id);
         itemRepository.deleteById(id);
+        removido.ifPresent(estatisticasService::itemRemovido);
+        versaoCadastrosService.itensAlterados();
+        buscaService.itemRemovido(id);
+        disponibilidadeService.itemRemovido(id);
+        sincronizacaoService.registrarRemocao(Item.class, id);
     }
 
     public Item marcarComoIndisponivel(String id) {
-        Item item = itemRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Item não encontrado"));
-        item.setDisponivel(false);
-        return itemRepository.save(item);
+        return marcarDisponibilidade(id, false);
     }
 
     public Item marcarComoDisponivel(String id) {
+        return marcarDisponibilidade(id, true);
+    }
+
+    /**
+     * Reserva o item de forma atômica: só altera se ele ainda estiver disponível
+     */
+    public Optional<Item> reservarSeDisponivel(String id) {
+        Optional<Item> item = itemRepository.reservarSeDisponivel(id);
+        item.ifPresent(reservado -> {
+            estatisticasService.disponibilidadeAlterada(reservado.getTipo(), false);
+            publicarDisponibilidade(reservado);
+        });
+        return item;
+    }
+
+    /**
+     * Devolve o item ao estado disponível com uma única escrita quando ele estava indisponível
+     */
+    public void liberar(String id) {
+        Optional<Item> liberado = itemRepository.alterarDisponibilidade(id, true);
+        if (liberado.isPresent()) {
+            estatisticasService.disponibilidadeAlterada(liberado.get().getTipo(), true);
+            publicarDisponibilidade(liberado.get());
+        } else if (!itemRepository.existsById(id)) {
+            throw new RuntimeException("Item não encontrado");
+        }
+    }
+
+    /**
+     * Altera, numa escrita condicional, a disponibilidade dos itens da lista que ainda não estão nesse
+     * estado; devolve os itens alterados por esta chamada. Com {@code false} serve para tomar vários
+     * itens de uma vez: de dois terminais pedindo o mesmo item, só um o recebe
+     */
+    public List<Item> atualizarDisponibilidade(Collection<String> ids, boolean disponivel) {
+        List<Item> alterados = itemRepository.atualizarDisponibilidade(ids, disponivel);
+        Map<TipoItem, Long> porTipo = alterados.stream()
+                .collect(Collectors.groupingBy(Item::getTipo, () -> new EnumMap<>(TipoItem.class), Collectors.counting()));
+        estatisticasService.disponibilidadeAlterada(porTipo, disponivel);
+        alterados.forEach(this::publicarDisponibilidade);
+        return alterados;
+    }
+
+    /**
+     * Quantidade de itens disponíveis por tipo, lida do documento de contadores
+     */
+    public Map<String, Long> contarDisponiveisPorTipo() {
+        return estatisticasService.getEstatisticas().getDisponiveisPorTipo();
+    }
+
+    private Item marcarDisponibilidade(String id, boolean disponivel) {
         Item item = itemRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Item não encontrado"));
-        item.setDisponivel(true);
-        return itemRepository.save(item);
+        boolean mudou = !Boolean.valueOf(disponivel).equals(item.getDisponivel());
+        item.setDisponivel(disponivel);
+        Item atualizado = itemRepository.save(item);
+        if (mudou) {
+            estatisticasService.disponibilidadeAlterada(atualizado.getTipo(), disponivel);
+        }
+        publicarDisponibilidade(atualizado);
+        return atualizado;
+    }
+
+    private void publicarDisponibilidade(Item item) {
+        eventPublisher.publishEvent(ItemDisponibilidadeEvent.de(item));
     }
 }
@@ -0,0 +1,65 @@
+package com.gilbertomorales.portaria.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.function.Supplier;
+
+/**
+ * Métricas das operações de reserva: tempo de cada operação (por resultado), falhas por motivo
+ * e o número de reservas ativas. As chamadas de repositório e os comandos do Mongo já são medidos
+ * pelo Spring Boot (spring.data.repository.invocations e mongodb.driver.commands).
+ */
+@Service
+@RequiredArgsConstructor
+public class MetricasService implements MeterBinder {
+
+    static final String TEMPO_OPERACAO = "portaria.reservas.operacao";
+    static final String FALHAS = "portaria.reservas.falhas";
+    static final String RESERVAS_ATIVAS = "portaria.reservas.ativas";
+
+    private final MeterRegistry registry;
+    private final EstatisticasService estatisticasService;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Lido a cada coleta do documento de contadores materializados
+        Gauge.builder(RESERVAS_ATIVAS, estatisticasService, EstatisticasService::reservasAtivas)
+                .description("Reservas ainda não devolvidas")
+                .register(registry);
+    }
+
+    /**
+     * Executa a operação medindo o tempo; exceções são contadas pelo motivo e repassadas
+     */
+    public <T> T medir(String operacao, Supplier<T> acao) {
+        Timer.Sample amostra = Timer.start(registry);
+        try {
+            T resultado = acao.get();
+            amostra.stop(registry.timer(TEMPO_OPERACAO, "operacao", operacao, "resultado", "sucesso"));
+            return resultado;
+        } catch (RuntimeException e) {
+            amostra.stop(registry.timer(TEMPO_OPERACAO, "operacao", operacao, "resultado", "falha"));
+            registrarFalha(operacao, motivo(e));
+            throw e;
+        }
+    }
+
+    public void registrarFalha(String operacao, String motivo) {
+        registry.counter(FALHAS, "operacao", operacao, "motivo", motivo).increment();
+    }
+
+    private static String motivo(RuntimeException e) {
+        // Regras de negócio lançam RuntimeException com a mensagem; o resto (ex.: erros do Mongo) vai pelo tipo
+        if (e.getClass() != RuntimeException.class || e.getMessage() == null) {
+            return e.getClass().getSimpleName();
+        }
+        // O que vem depois de ":" é dado da requisição (ex.: a matrícula) e não pode virar tag
+        int separador = e.getMessage().indexOf(':');
+        return separador < 0 ? e.getMessage() : e.getMessage().substring(0, separador);
+    }
+}
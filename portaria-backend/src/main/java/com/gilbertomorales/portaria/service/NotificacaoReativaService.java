@@ -0,0 +1,78 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.event.ItemDisponibilidadeEvent;
+import com.gilbertomorales.portaria.event.ReservaAtualizadaEvent;
+import com.gilbertomorales.portaria.event.ReservasLimpasEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versão reativa do {@link NotificacaoService}: os mesmos eventos, sem uma thread ou fila de envio
+ * por terminal. Cada conexão tem um buffer limitado; se ele encher, o terminal recebe "sincronizar"
+ * e a conexão é encerrada (o navegador reconecta sozinho).
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class NotificacaoReativaService {
+
+    private static final int CAPACIDADE_FILA = 256;
+    private static final Duration INTERVALO_HEARTBEAT = Duration.ofSeconds(25);
+
+    private final Sinks.Many<ServerSentEvent<Object>> eventos = Sinks.many().multicast().directBestEffort();
+    private final AtomicLong sequencia = new AtomicLong();
+
+    public Flux<ServerSentEvent<Object>> conectar() {
+        Flux<ServerSentEvent<Object>> heartbeat = Flux.interval(INTERVALO_HEARTBEAT)
+                .map(i -> ServerSentEvent.builder().comment("ping").build());
+
+        Flux<ServerSentEvent<Object>> mudancas = eventos.asFlux()
+                .mergeWith(heartbeat)
+                .onBackpressureBuffer(CAPACIDADE_FILA)
+                .onErrorResume(Exceptions::isOverflow,
+                        e -> Mono.just(evento("sincronizar", Map.of("motivo", "eventos descartados"))));
+
+        return Mono.fromSupplier(() -> evento("conectado", Map.of("terminais", eventos.currentSubscriberCount() + 1)))
+                .concatWith(mudancas);
+    }
+
+    public int getTerminaisConectados() {
+        return eventos.currentSubscriberCount();
+    }
+
+    @EventListener
+    public void onItemDisponibilidade(ItemDisponibilidadeEvent evento) {
+        publicar("item", evento);
+    }
+
+    @EventListener
+    public void onReservaAtualizada(ReservaAtualizadaEvent evento) {
+        publicar("reserva", evento.reserva());
+    }
+
+    @EventListener
+    public void onReservasLimpas(ReservasLimpasEvent evento) {
+        publicar("reservas-limpas", evento);
+    }
+
+    // O sink não aceita emissões concorrentes; os eventos chegam de várias requisições ao mesmo tempo
+    private synchronized void publicar(String nome, Object dados) {
+        eventos.tryEmitNext(evento(nome, dados));
+    }
+
+    private ServerSentEvent<Object> evento(String nome, Object dados) {
+        return ServerSentEvent.builder(dados)
+                .id(Long.toString(sequencia.incrementAndGet()))
+                .event(nome)
+                .build();
+    }
+}
@@ -0,0 +1,197 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.config.SchedulingConfig;
+import com.gilbertomorales.portaria.event.ItemDisponibilidadeEvent;
+import com.gilbertomorales.portaria.event.ReservaAtualizadaEvent;
+import com.gilbertomorales.portaria.event.ReservasLimpasEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Envia aos terminais conectados (Server-Sent Events) as mudanças de disponibilidade dos itens
+ * e de estado das reservas, para que não precisem recarregar as listas completas.
+ * <p>
+ * Cada terminal tem uma fila limitada própria: um terminal lento não atrasa os outros nem a
+ * requisição que gerou o evento. Se a fila encher, os eventos pendentes são descartados e o
+ * terminal recebe um evento "sincronizar" pedindo que recarregue o estado completo.
+ * <p>
+ * O envio ao socket é bloqueante, então cada terminal com eventos pendentes usa uma thread própria
+ * (no máximo uma por terminal conectado). Um terminal preso num envio por mais de
+ * {@link #TEMPO_MAXIMO_ENVIO} é desligado; o navegador reconecta e recarrega o estado.
+ */
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class NotificacaoService {
+
+    private static final long TIMEOUT_CONEXAO = Duration.ofMinutes(30).toMillis();
+    private static final int CAPACIDADE_FILA = 256;
+    private static final long TEMPO_MAXIMO_ENVIO = Duration.ofSeconds(10).toNanos();
+
+    private final Set<Terminal> terminais = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequencia = new AtomicLong();
+    private final ExecutorService envio = Executors.newCachedThreadPool(tarefa -> {
+        Thread thread = new Thread(tarefa, "sse-envio");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Registra um novo terminal; o navegador reconecta sozinho quando a conexão expira
+     */
+    public SseEmitter conectar() {
+        SseEmitter emitter = new SseEmitter(TIMEOUT_CONEXAO);
+        Terminal terminal = new Terminal(emitter);
+        terminais.add(terminal);
+
+        emitter.onCompletion(() -> terminais.remove(terminal));
+        emitter.onTimeout(() -> terminal.encerrar());
+        emitter.onError(erro -> terminal.encerrar());
+
+        terminal.enfileirar(evento("conectado", Map.of("terminais", terminais.size())));
+        return emitter;
+    }
+
+    public int getTerminaisConectados() {
+        return terminais.size();
+    }
+
+    @EventListener
+    public void onItemDisponibilidade(ItemDisponibilidadeEvent evento) {
+        publicar("item", evento);
+    }
+
+    @EventListener
+    public void onReservaAtualizada(ReservaAtualizadaEvent evento) {
+        publicar("reserva", evento.reserva());
+    }
+
+    @EventListener
+    public void onReservasLimpas(ReservasLimpasEvent evento) {
+        publicar("reservas-limpas", evento);
+    }
+
+    /**
+     * Comentário periódico para manter a conexão aberta em proxies e detectar terminais desconectados
+     */
+    @Scheduled(fixedDelay = 25000, scheduler = SchedulingConfig.AGENDADOR_RAPIDO)
+    public void enviarHeartbeat() {
+        terminais.forEach(terminal -> terminal.enfileirar(SseEmitter.event().comment("ping").build()));
+    }
+
+    /**
+     * Desliga os terminais presos num envio: param de receber eventos e a conexão é encerrada
+     * assim que o envio em andamento terminar ou falhar
+     */
+    @Scheduled(fixedDelay = 5000)
+    public void desligarLentos() {
+        long agora = System.nanoTime();
+        terminais.stream()
+                .filter(terminal -> terminal.enviandoDesde != 0 && agora - terminal.enviandoDesde > TEMPO_MAXIMO_ENVIO)
+                .forEach(terminal -> {
+                    log.debug("Terminal sem ler eventos há mais de {}s, desligado", Duration.ofNanos(TEMPO_MAXIMO_ENVIO).toSeconds());
+                    terminais.remove(terminal);
+                    terminal.fila.clear();
+                    // complete() espera o envio travado; roda na thread de envio, não na do agendador
+                    envio.execute(terminal::encerrar);
+                });
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        terminais.forEach(Terminal::encerrar);
+        envio.shutdownNow();
+    }
+
+    private void publicar(String nome, Object dados) {
+        // Cada terminal precisa do próprio conjunto de dados: o builder do Spring não é reutilizável
+        terminais.forEach(terminal -> terminal.enfileirar(evento(nome, dados)));
+    }
+
+    private Set<DataWithMediaType> evento(String nome, Object dados) {
+        return SseEmitter.event()
+                .id(Long.toString(sequencia.incrementAndGet()))
+                .name(nome)
+                .data(dados, MediaType.APPLICATION_JSON)
+                .build();
+    }
+
+    private final class Terminal {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> fila = new ArrayBlockingQueue<>(CAPACIDADE_FILA);
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        // Início do envio em andamento (System.nanoTime), 0 quando parado
+        private volatile long enviandoDesde;
+
+        private Terminal(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void enfileirar(Set<DataWithMediaType> evento) {
+            if (!fila.offer(evento)) {
+                log.debug("Fila de eventos cheia, terminal será ressincronizado");
+                fila.clear();
+                fila.offer(evento("sincronizar", Map.of("motivo", "eventos descartados")));
+            }
+            agendarEnvio();
+        }
+
+        private void agendarEnvio() {
+            if (enviando.compareAndSet(false, true)) {
+                envio.execute(this::enviarPendentes);
+            }
+        }
+
+        private void enviarPendentes() {
+            try {
+                Set<DataWithMediaType> evento;
+                while ((evento = fila.poll()) != null) {
+                    enviandoDesde = System.nanoTime();
+                    emitter.send(evento);
+                    enviandoDesde = 0;
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Conexão fechada pelo terminal
+                encerrar();
+                return;
+            } finally {
+                enviandoDesde = 0;
+                enviando.set(false);
+            }
+            // Evento que chegou entre o fim do laço e a liberação da flag
+            if (!fila.isEmpty()) {
+                agendarEnvio();
+            }
+        }
+
+        void encerrar() {
+            terminais.remove(this);
+            fila.clear();
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // Já encerrado
+            }
+        }
+    }
+}
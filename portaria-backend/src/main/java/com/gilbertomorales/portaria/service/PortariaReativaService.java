@@ -0,0 +1,198 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.dto.ReservaFiltroDTO;
+import com.gilbertomorales.portaria.dto.ReservaRequestDTO;
+import com.gilbertomorales.portaria.dto.ReservaResponseDTO;
+import com.gilbertomorales.portaria.dto.RetiradaDevolucaoDTO;
+import com.gilbertomorales.portaria.event.ItemDisponibilidadeEvent;
+import com.gilbertomorales.portaria.event.ReservaAtualizadaEvent;
+import com.gilbertomorales.portaria.model.Estatisticas;
+import com.gilbertomorales.portaria.model.EventoPortaria;
+import com.gilbertomorales.portaria.model.Item;
+import com.gilbertomorales.portaria.model.Reserva;
+import com.gilbertomorales.portaria.model.User;
+import com.gilbertomorales.portaria.model.enums.TipoEventoPortaria;
+import com.gilbertomorales.portaria.repository.ItemReativoRepository;
+import com.gilbertomorales.portaria.repository.ReservaReativaRepository;
+import com.gilbertomorales.portaria.repository.UserReativoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * Operações de portaria e reservas sem bloquear threads, para o perfil "reativo".
+ * As regras são as mesmas do {@link ReservaService}; os mesmos eventos de aplicação são publicados.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class PortariaReativaService {
+
+    private final ReservaReativaRepository reservaRepository;
+    private final ItemReativoRepository itemRepository;
+    private final UserReativoRepository userRepository;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EstatisticasService estatisticasService;
+    private final AtrasoService atrasoService;
+    private final EventoPortariaService eventoPortariaService;
+
+    public Mono<User> findUsuarioByMatricula(String matricula) {
+        return userRepository.findByMatricula(matricula);
+    }
+
+    // Mesmo corte das listagens do modo servlet: só as reservas mais recentes do filtro
+    public Flux<ReservaResponseDTO> findAll() {
+        return reservaRepository.buscarComHistorico(null)
+                .take(ReservaService.TAMANHO_MAXIMO_PAGINA)
+                .map(ReservaService::convertToResponseDTO);
+    }
+
+    public Flux<ReservaResponseDTO> exportar(ReservaFiltroDTO filtro) {
+        return reservaRepository.buscarComHistorico(filtro).map(ReservaService::convertToResponseDTO);
+    }
+
+    public Flux<ReservaResponseDTO> findByItemId(String itemId) {
+        return reservaRepository.buscarComHistorico(new ReservaFiltroDTO(null, itemId, null, null, null))
+                .take(ReservaService.TAMANHO_MAXIMO_PAGINA)
+                .map(ReservaService::convertToResponseDTO);
+    }
+
+    public Flux<ReservaResponseDTO> findByMatricula(String matricula) {
+        return reservaRepository.buscarComHistorico(new ReservaFiltroDTO(null, null, matricula, null, null))
+                .take(ReservaService.TAMANHO_MAXIMO_PAGINA)
+                .map(ReservaService::convertToResponseDTO);
+    }
+
+    public Flux<ReservaResponseDTO> findReservasAtivasByMatricula(String matricula) {
+        return reservaRepository.findByMatriculaUsuarioAndDataDevolucaoIsNull(matricula)
+                .map(ReservaService::convertToResponseDTO);
+    }
+
+    public Mono<ReservaResponseDTO> criarReserva(ReservaRequestDTO request) {
+        return userRepository.findByMatricula(request.matriculaUsuario())
+                .switchIfEmpty(Mono.error(() -> new RuntimeException(
+                        "Usuário não encontrado com a matrícula: " + request.matriculaUsuario())))
+                .flatMap(usuario -> reservarItem(request.itemId())
+                        .flatMap(item -> inserirReserva(item, usuario)));
+    }
+
+    public Mono<ReservaResponseDTO> registrarRetirada(String reservaId, RetiradaDevolucaoDTO request) {
+        return reservaRepository.findById(reservaId)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Reserva não encontrada")))
+                .flatMap(reserva -> {
+                    ReservaService.verificarRetirada(reserva, request.matriculaUsuario());
+                    // Escrita condicional só dos campos da retirada: de dois terminais, só um a registra
+                    LocalDateTime agora = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+                    LocalDateTime prazo = atrasoService.calcularPrazo(reserva, agora);
+                    return reservaRepository.registrarRetirada(reservaId, agora, prazo)
+                            .switchIfEmpty(Mono.error(() -> new RuntimeException("Item já foi retirado")));
+                })
+                .flatMap(reserva -> contar(EstatisticasService.variacaoReservas(
+                        EstatisticasService.RESERVADO, EstatisticasService.RETIRADO, 1)).thenReturn(reserva))
+                .flatMap(reserva -> registrarEvento(TipoEventoPortaria.RETIRADA, reserva))
+                .map(this::publicar);
+    }
+
+    public Mono<ReservaResponseDTO> registrarDevolucao(String reservaId, RetiradaDevolucaoDTO request) {
+        return reservaRepository.findById(reservaId)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Reserva não encontrada")))
+                .flatMap(reserva -> {
+                    ReservaService.verificarDevolucao(reserva, request.matriculaUsuario());
+                    LocalDateTime agora = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+                    return reservaRepository.registrarDevolucao(reservaId, agora)
+                            .switchIfEmpty(Mono.error(() -> new RuntimeException("Item já foi devolvido")));
+                })
+                .flatMap(reserva -> contar(EstatisticasService.variacaoReservas(
+                        EstatisticasService.RETIRADO, EstatisticasService.DEVOLVIDO, 1)).thenReturn(reserva))
+                .flatMap(reserva -> registrarEvento(TipoEventoPortaria.DEVOLUCAO, reserva))
+                // Marcar item como disponível novamente
+                .flatMap(reserva -> liberar(reserva.getItemId()).thenReturn(reserva))
+                .map(this::publicar);
+    }
+
+    /**
+     * Contadores do dashboard, lidos do documento de estatísticas materializadas
+     */
+    public Mono<Map<String, Object>> getDashboard() {
+        return mongoTemplate.findById(Estatisticas.ID, Estatisticas.class)
+                // Documento ainda não criado: a reconciliação (bloqueante) roda fora das threads do Netty
+                .switchIfEmpty(Mono.fromCallable(estatisticasService::reconciliar).subscribeOn(Schedulers.boundedElastic()))
+                .map(DashboardService::montarDashboard);
+    }
+
+    /**
+     * Marca o item como indisponível numa única operação atômica: se dois porteiros
+     * tentarem reservar o mesmo item ao mesmo tempo, apenas um consegue
+     */
+    private Mono<Item> reservarItem(String itemId) {
+        return itemRepository.reservarSeDisponivel(itemId)
+                .flatMap(item -> contar(EstatisticasService.variacaoDisponibilidade(item.getTipo(), false, 1)).thenReturn(item))
+                .doOnNext(item -> eventPublisher.publishEvent(ItemDisponibilidadeEvent.de(item)))
+                .switchIfEmpty(itemRepository.existsById(itemId)
+                        .flatMap(existe -> Mono.<Item>error(existe
+                                ? new RuntimeException("Item não está disponível para reserva")
+                                : new RuntimeException("Item não encontrado"))));
+    }
+
+    private Mono<ReservaResponseDTO> inserirReserva(Item item, User usuario) {
+        return reservaRepository.insert(ReservaService.novaReserva(item, usuario, LocalDateTime.now()))
+                .flatMap(reserva -> contar(EstatisticasService.variacaoReservas(null, EstatisticasService.RESERVADO, 1))
+                        .thenReturn(reserva))
+                .onErrorResume(e -> !(e instanceof DuplicateKeyException),
+                        e -> liberar(item.getId()).then(Mono.error(e)))
+                // O índice único de reserva ativa por item barrou a inserção: o item continua
+                // indisponível, pois já existe uma reserva em aberto para ele
+                .onErrorMap(DuplicateKeyException.class, e -> new RuntimeException("Item já possui uma reserva ativa"))
+                // Depois do tratamento de erro: a reserva já existe, uma falha ao gravar o evento não libera o item
+                .flatMap(reserva -> registrarEvento(TipoEventoPortaria.RESERVA, reserva))
+                .map(this::publicar);
+    }
+
+    private Mono<Reserva> registrarEvento(TipoEventoPortaria tipo, Reserva reserva) {
+        return eventoPortariaService.registrarReativo(EventoPortaria.de(tipo, reserva)).thenReturn(reserva);
+    }
+
+    private Mono<Void> liberar(String itemId) {
+        return itemRepository.alterarDisponibilidade(itemId, true)
+                .flatMap(item -> contar(EstatisticasService.variacaoDisponibilidade(item.getTipo(), true, 1))
+                        .then(Mono.fromRunnable(() -> eventPublisher.publishEvent(ItemDisponibilidadeEvent.de(item))))
+                        .thenReturn(true))
+                // Nada mudou: o item já estava disponível ou não existe
+                .switchIfEmpty(itemRepository.existsById(itemId))
+                .flatMap(encontrado -> encontrado
+                        ? Mono.<Void>empty()
+                        : Mono.error(new RuntimeException("Item não encontrado")));
+    }
+
+    /**
+     * Aplica o mesmo $inc do {@link EstatisticasService}; uma falha só é registrada, a reconciliação corrige
+     */
+    private Mono<Void> contar(Map<String, Long> variacoes) {
+        return mongoTemplate.updateFirst(EstatisticasService.documento(), EstatisticasService.atualizacao(variacoes),
+                        Estatisticas.class)
+                .onErrorResume(e -> {
+                    log.warn("Falha ao atualizar os contadores, corrigidos na próxima reconciliação: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private ReservaResponseDTO publicar(Reserva reserva) {
+        ReservaResponseDTO dto = ReservaService.convertToResponseDTO(reserva);
+        eventPublisher.publishEvent(new ReservaAtualizadaEvent(dto));
+        return dto;
+    }
+}
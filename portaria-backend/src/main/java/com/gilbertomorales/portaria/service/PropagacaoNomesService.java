@@ -0,0 +1,159 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.model.Item;
+import com.gilbertomorales.portaria.model.PropagacaoPendente;
+import com.gilbertomorales.portaria.model.User;
+import com.gilbertomorales.portaria.repository.ContadorVersoes;
+import com.gilbertomorales.portaria.repository.ReservaRepositoryCustom;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Leva às reservas (e ao histórico arquivado) o nome e a matrícula editados no cadastro. A edição
+ * só grava um pedido em {@code propagacoes}; a execução agendada atualiza as reservas com
+ * updateMulti em lotes de {@code tamanho-lote} ids e no máximo {@code lotes-por-execucao} lotes
+ * por execução, então uma edição de usuário com muito histórico não segura o banco de uma vez.
+ * <p>
+ * Os pedidos ficam no banco até serem concluídos e sobrevivem a um reinício. Até a propagação
+ * terminar, as reservas ainda mostram o nome e a matrícula anteriores. Um pedido só é concluído
+ * por uma execução que não encontra mais nada a atualizar: uma escrita que lia a reserva antes do
+ * lote e a gravou depois com o nome antigo é corrigida na execução seguinte.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PropagacaoNomesService {
+
+    private static final List<String> COLECOES = List.of("reservas", ReservaRepositoryCustom.COLECAO_HISTORICO);
+
+    private final MongoTemplate mongoTemplate;
+    private final ContadorVersoes contadorVersoes;
+
+    @Value("${portaria.propagacao.tamanho-lote:500}")
+    private int tamanhoLote;
+
+    @Value("${portaria.propagacao.lotes-por-execucao:20}")
+    private int lotesPorExecucao;
+
+    public void usuarioAlterado(User anterior, User atualizado) {
+        if (Objects.equals(anterior.getNome(), atualizado.getNome())
+                && Objects.equals(anterior.getMatricula(), atualizado.getMatricula())) {
+            return;
+        }
+        Map<String, String> valores = new LinkedHashMap<>();
+        valores.put("nomeUsuario", atualizado.getNome());
+        valores.put("matriculaUsuario", atualizado.getMatricula());
+        agendar("usuarioId", atualizado.getId(), valores);
+    }
+
+    public void itemAlterado(Item anterior, Item atualizado) {
+        if (Objects.equals(anterior.getNome(), atualizado.getNome())) {
+            return;
+        }
+        agendar("itemId", atualizado.getId(), Map.of("nomeItem", atualizado.getNome()));
+    }
+
+    private void agendar(String campo, String referencia, Map<String, String> valores) {
+        mongoTemplate.save(new PropagacaoPendente(campo + ":" + referencia, campo, referencia, valores, LocalDateTime.now()));
+    }
+
+    @Scheduled(fixedDelayString = "${portaria.propagacao.executar-a-cada:5s}",
+            initialDelayString = "${portaria.propagacao.executar-a-cada:5s}")
+    public void propagarPendentes() {
+        try {
+            long atualizadas = propagar();
+            if (atualizadas > 0) {
+                log.info("{} reserva(s) com nome ou matrícula atualizados", atualizadas);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Falha ao propagar nomes para as reservas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Processa os pedidos do mais antigo para o mais recente até esgotar os lotes desta execução;
+     * um pedido só sai da fila quando uma execução não encontra reserva desatualizada nas duas coleções
+     */
+    synchronized long propagar() {
+        List<PropagacaoPendente> pendentes = mongoTemplate.find(
+                new Query().with(Sort.by(Sort.Direction.ASC, "solicitadaEm")), PropagacaoPendente.class);
+        int lotesRestantes = lotesPorExecucao;
+        long atualizadas = 0;
+
+        for (PropagacaoPendente pendente : pendentes) {
+            boolean concluida = true;
+            long atualizadasDoPedido = 0;
+            for (String colecao : COLECOES) {
+                int noLote;
+                do {
+                    if (lotesRestantes == 0) {
+                        concluida = false;
+                        break;
+                    }
+                    noLote = propagarLote(pendente, colecao);
+                    lotesRestantes--;
+                    atualizadasDoPedido += noLote;
+                } while (noLote == tamanhoLote);
+                if (!concluida) {
+                    break;
+                }
+            }
+            atualizadas += atualizadasDoPedido;
+            if (!concluida) {
+                break;
+            }
+            if (atualizadasDoPedido > 0) {
+                // Confirmado só na próxima execução, que reaplica o que uma escrita concorrente desfez
+                continue;
+            }
+
+            // Uma edição feita durante a propagação trocou o pedido: ele fica para a próxima execução
+            mongoTemplate.remove(new Query(Criteria.where("id").is(pendente.getId())
+                    .and("solicitadaEm").is(pendente.getSolicitadaEm())), PropagacaoPendente.class);
+        }
+        return atualizadas;
+    }
+
+    /**
+     * Seleciona até um lote de reservas com algum valor diferente do cadastro e as atualiza com um updateMulti
+     */
+    private int propagarLote(PropagacaoPendente pendente, String colecao) {
+        Criteria[] diferentes = pendente.getValores().entrySet().stream()
+                .map(valor -> Criteria.where(valor.getKey()).ne(valor.getValue()))
+                .toArray(Criteria[]::new);
+        Query desatualizadas = new Query(Criteria.where(pendente.getCampo()).is(pendente.getReferencia())
+                .orOperator(diferentes))
+                .limit(tamanhoLote);
+        desatualizadas.fields().include("_id");
+
+        List<Object> ids = mongoTemplate.find(desatualizadas, Document.class, colecao).stream()
+                .map(documento -> documento.get("_id"))
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        contadorVersoes.escrever(versao -> {
+            Update update = new Update().set("versao", versao);
+            pendente.getValores().forEach(update::set);
+            return mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(ids)), update, colecao);
+        });
+        return ids.size();
+    }
+}
@@ -0,0 +1,328 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.model.EventoPortaria;
+import com.gilbertomorales.portaria.model.Item;
+import com.gilbertomorales.portaria.model.Reserva;
+import com.gilbertomorales.portaria.model.enums.TipoEventoPortaria;
+import com.gilbertomorales.portaria.repository.ContadorVersoes;
+import com.gilbertomorales.portaria.repository.ReservaRepository;
+import com.gilbertomorales.portaria.repository.ReservaRepositoryCustom;
+import com.mongodb.ErrorCategory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reconstrói as reservas e a disponibilidade dos itens repetindo os eventos de
+ * {@code eventos_portaria}. Sem aplicar, só informa o resultado, para comparar com o estado atual;
+ * aplicando, regrava cada reserva reconstruída e corrige a disponibilidade dos itens a partir das
+ * reservas que ficaram em aberto no banco.
+ * <p>
+ * Os eventos são lidos agrupados por reserva, então a memória usada não cresce com o histórico.
+ * A aplicação é recusada se algum evento não se encaixa (retirada ou devolução sem a reserva) ou
+ * se alguma reserva atual não tem o evento de criação, como as feitas antes de o registro de
+ * eventos existir: regravar só as reconstruídas perderia ou duplicaria essas reservas.
+ * <p>
+ * A portaria deve estar parada durante a aplicação. Uma reserva alterada depois do início não é
+ * sobrescrita (fica como está e é contada em {@code reservasMantidas}), mas a disponibilidade é
+ * recalculada no fim e pode não refletir operações simultâneas; {@code eventosDuranteAplicacao}
+ * informa quantas houve, e nesse caso a reconstrução deve ser repetida com a portaria parada.
+ * As reservas já arquivadas continuam só no histórico.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReconstrucaoService {
+
+    private static final int TAMANHO_LOTE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final ReservaRepository reservaRepository;
+    private final ItemService itemService;
+    private final EventoPortariaService eventoPortariaService;
+    private final EstatisticasService estatisticasService;
+    private final RelatorioUsoService relatorioUsoService;
+    private final ContadorVersoes contadorVersoes;
+
+    public synchronized Map<String, Object> reconstruir(boolean aplicar) {
+        // Eventos ainda na fila também contam
+        eventoPortariaService.gravarPendentes();
+
+        // Só os eventos depois da última limpeza contam; os posteriores ao início ficam de fora
+        EventoPortaria limpeza = ultimoEvento(TipoEventoPortaria.LIMPEZA);
+        EventoPortaria ultimo = ultimoEvento(null);
+        String desde = limpeza != null ? limpeza.getId() : null;
+        String ate = ultimo != null ? ultimo.getId() : null;
+
+        Repeticao simulacao = new Repeticao(null);
+        simulacao.repetir(desde, ate);
+        long semEvento = contarReservasSemEvento(desde);
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("eventos", simulacao.eventos);
+        resultado.put("eventosIgnorados", simulacao.ignorados);
+        resultado.put("reservas", simulacao.reservas);
+        resultado.put("reservasAtivas", simulacao.ativas);
+        resultado.put("reservasAtuais", reservaRepository.count());
+        resultado.put("reservasSemEvento", semEvento);
+        resultado.put("arquivadasMantidas", simulacao.arquivadas);
+        resultado.put("aplicado", false);
+
+        if (!aplicar) {
+            return resultado;
+        }
+        if (simulacao.ignorados > 0 || semEvento > 0) {
+            resultado.put("motivo", "Os eventos não cobrem todas as reservas: há eventos ignorados ou reservas sem o evento de criação");
+            log.warn("Reconstrução não aplicada: {} evento(s) ignorado(s), {} reserva(s) sem evento", simulacao.ignorados, semEvento);
+            return resultado;
+        }
+
+        // Reservas com versão acima desta foram alteradas depois do início e não são sobrescritas
+        Repeticao aplicacao = new Repeticao(maiorVersaoReservas());
+        aplicacao.repetir(desde, ate);
+        corrigirDisponibilidade();
+        estatisticasService.tentarReconciliar();
+        relatorioUsoService.reconstruir();
+
+        eventoPortariaService.gravarPendentes();
+        long durante = contarEventosApos(ate);
+        resultado.put("aplicado", true);
+        resultado.put("reservasMantidas", aplicacao.mantidas);
+        resultado.put("eventosDuranteAplicacao", durante);
+        if (durante > 0) {
+            log.warn("{} evento(s) da portaria durante a reconstrução: a disponibilidade pode não refletir essas operações", durante);
+        }
+        log.info("Reservas reconstruídas a partir de {} evento(s): {} reserva(s), {} ativa(s), {} mantida(s)",
+                aplicacao.eventos, aplicacao.reservas, aplicacao.ativas, aplicacao.mantidas);
+        return resultado;
+    }
+
+    /**
+     * Repete os eventos de cada reserva, lidos em grupos pela ordem inversa do índice
+     * {@code evento_reserva} (reservaId decrescente, _id crescente), e grava as reservas em lotes.
+     * Sem versão inicial, só conta
+     */
+    private final class Repeticao {
+
+        private final Long versaoInicial;
+        private final List<Reserva> lote = new ArrayList<>(TAMANHO_LOTE);
+
+        private long eventos;
+        private long ignorados;
+        private long reservas;
+        private long ativas;
+        private long arquivadas;
+        private long mantidas;
+
+        private Repeticao(Long versaoInicial) {
+            this.versaoInicial = versaoInicial;
+        }
+
+        private void repetir(String desde, String ate) {
+            if (ate == null) {
+                return;
+            }
+            Criteria criterio = Criteria.where("tipo").ne(TipoEventoPortaria.LIMPEZA);
+            criterio = desde != null ? criterio.and("_id").gt(desde).lte(ate) : criterio.and("_id").lte(ate);
+            Query query = new Query(criterio)
+                    .with(Sort.by(Sort.Direction.DESC, "reservaId").and(Sort.by(Sort.Direction.ASC, "_id")));
+
+            String reservaAtual = null;
+            Reserva reserva = null;
+            try (Stream<EventoPortaria> stream = mongoTemplate.stream(query, EventoPortaria.class)) {
+                for (EventoPortaria evento : (Iterable<EventoPortaria>) stream::iterator) {
+                    if (!evento.getReservaId().equals(reservaAtual)) {
+                        adicionar(reserva);
+                        reservaAtual = evento.getReservaId();
+                        reserva = null;
+                    }
+                    eventos++;
+                    reserva = aplicarEvento(reserva, evento);
+                }
+            }
+            adicionar(reserva);
+            gravarLote();
+        }
+
+        /**
+         * Aplica um evento à reserva do grupo; conta como ignorado o que não se encaixa
+         * (ex.: retirada de uma reserva criada antes do registro de eventos)
+         */
+        private Reserva aplicarEvento(Reserva reserva, EventoPortaria evento) {
+            if (evento.getTipo() == TipoEventoPortaria.RESERVA) {
+                return new Reserva(evento.getReservaId(), evento.getItemId(),
+                        evento.getUsuarioId(), evento.getOcorridoEm(), null, null, evento.getNomeItem(),
+                        evento.getNomeUsuario(), evento.getMatriculaUsuario(), evento.getTipoItem(),
+                        evento.getTipoUsuario(), null, null, null);
+            }
+            if (reserva == null) {
+                ignorados++;
+                return null;
+            }
+            if (evento.getTipo() == TipoEventoPortaria.RETIRADA) {
+                reserva.setDataRetirada(evento.getOcorridoEm());
+                reserva.setPrazoDevolucao(evento.getPrazoDevolucao());
+            } else if (evento.getTipo() == TipoEventoPortaria.DEVOLUCAO) {
+                reserva.setDataDevolucao(evento.getOcorridoEm());
+            } else {
+                ignorados++;
+            }
+            return reserva;
+        }
+
+        private void adicionar(Reserva reserva) {
+            if (reserva == null) {
+                return;
+            }
+            lote.add(reserva);
+            if (lote.size() >= TAMANHO_LOTE) {
+                gravarLote();
+            }
+        }
+
+        private void gravarLote() {
+            if (lote.isEmpty()) {
+                return;
+            }
+            Set<String> doHistorico = idsArquivados(lote.stream().map(Reserva::getId).collect(Collectors.toList()));
+            LocalDateTime agora = LocalDateTime.now();
+            List<Reserva> gravar = new ArrayList<>(lote.size());
+            for (Reserva reserva : lote) {
+                if (doHistorico.contains(reserva.getId())) {
+                    arquivadas++;
+                    continue;
+                }
+                reserva.setAtrasada(atrasada(reserva, agora));
+                reservas++;
+                if (reserva.getDataDevolucao() == null) {
+                    ativas++;
+                }
+                gravar.add(reserva);
+            }
+            lote.clear();
+            if (versaoInicial != null && !gravar.isEmpty()) {
+                mantidas += regravar(gravar, versaoInicial);
+            }
+        }
+    }
+
+    /**
+     * Substitui cada reserva pela reconstruída, ou a cria se não existir. Uma reserva com versão
+     * acima de {@code versaoInicial} foi alterada pela portaria depois do início: o filtro não a
+     * encontra, a inserção do upsert esbarra no _id e ela fica como está. Retorna quantas ficaram
+     */
+    private long regravar(List<Reserva> reservas, long versaoInicial) {
+        BulkOperations operacoes = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Reserva.class);
+        for (Reserva reserva : reservas) {
+            Query query = new Query(Criteria.where("_id").is(reserva.getId())
+                    .orOperator(Criteria.where("versao").lte(versaoInicial), Criteria.where("versao").exists(false)));
+            operacoes.replaceOne(query, reserva, FindAndReplaceOptions.options().upsert());
+        }
+        try {
+            operacoes.execute();
+            return 0;
+        } catch (BulkOperationException e) {
+            boolean todasDuplicadas = e.getErrors().stream()
+                    .allMatch(erro -> ErrorCategory.fromErrorCode(erro.getCode()) == ErrorCategory.DUPLICATE_KEY);
+            if (!todasDuplicadas) {
+                throw e;
+            }
+            return e.getErrors().size();
+        } finally {
+            contadorVersoes.liberarVersoes(reservas);
+        }
+    }
+
+    /**
+     * Disponibilidade a partir das reservas em aberto que estão no banco, não só das reconstruídas
+     */
+    private void corrigirDisponibilidade() {
+        Set<String> emUso = new HashSet<>(reservaRepository.resumirReservas().itensComReservaAtiva());
+        List<String> livres = itemService.findAll().stream()
+                .map(Item::getId)
+                .filter(id -> !emUso.contains(id))
+                .collect(Collectors.toList());
+        itemService.atualizarDisponibilidade(emUso, false);
+        itemService.atualizarDisponibilidade(livres, true);
+    }
+
+    /**
+     * Reservas atuais sem o evento de criação depois da última limpeza, conferidas em lotes
+     */
+    private long contarReservasSemEvento(String desde) {
+        Query query = new Query();
+        query.fields().include("_id");
+        long semEvento = 0;
+        List<String> lote = new ArrayList<>(TAMANHO_LOTE);
+        try (Stream<Document> ids = mongoTemplate.stream(query, Document.class, mongoTemplate.getCollectionName(Reserva.class))) {
+            for (Document documento : (Iterable<Document>) ids::iterator) {
+                lote.add(documento.get("_id").toString());
+                if (lote.size() >= TAMANHO_LOTE) {
+                    semEvento += semEvento(lote, desde);
+                    lote.clear();
+                }
+            }
+        }
+        return lote.isEmpty() ? semEvento : semEvento + semEvento(lote, desde);
+    }
+
+    private long semEvento(List<String> reservaIds, String desde) {
+        Criteria criterio = Criteria.where("tipo").is(TipoEventoPortaria.RESERVA).and("reservaId").in(reservaIds);
+        if (desde != null) {
+            criterio = criterio.and("_id").gt(desde);
+        }
+        List<String> comEvento = mongoTemplate.findDistinct(new Query(criterio), "reservaId", EventoPortaria.class, String.class);
+        return reservaIds.size() - comEvento.size();
+    }
+
+    private EventoPortaria ultimoEvento(TipoEventoPortaria tipo) {
+        Query query = tipo != null ? new Query(Criteria.where("tipo").is(tipo)) : new Query();
+        return mongoTemplate.findOne(query.with(Sort.by(Sort.Direction.DESC, "_id")).limit(1), EventoPortaria.class);
+    }
+
+    private long contarEventosApos(String ate) {
+        return mongoTemplate.count(ate != null ? new Query(Criteria.where("_id").gt(ate)) : new Query(), EventoPortaria.class);
+    }
+
+    private long maiorVersaoReservas() {
+        Query query = new Query().with(Sort.by(Sort.Direction.DESC, "versao")).limit(1);
+        query.fields().include("versao");
+        Reserva reserva = mongoTemplate.findOne(query, Reserva.class);
+        return reserva != null && reserva.getVersao() != null ? reserva.getVersao() : 0;
+    }
+
+    // Mesmo critério da verificação de atrasos: prazo vencido antes da devolução (ou até agora, se em aberto)
+    private static Boolean atrasada(Reserva reserva, LocalDateTime agora) {
+        if (reserva.getPrazoDevolucao() == null) {
+            return null;
+        }
+        LocalDateTime fim = reserva.getDataDevolucao() != null ? reserva.getDataDevolucao() : agora;
+        return fim.isAfter(reserva.getPrazoDevolucao()) ? Boolean.TRUE : null;
+    }
+
+    private Set<String> idsArquivados(List<String> reservaIds) {
+        Query query = new Query(Criteria.where("_id").in(reservaIds).and("dataDevolucao").ne(null));
+        query.fields().include("_id");
+        try (Stream<Document> ids = mongoTemplate.stream(query, Document.class, ReservaRepositoryCustom.COLECAO_HISTORICO)) {
+            return ids.map(documento -> documento.get("_id").toString()).collect(Collectors.toSet());
+        }
+    }
+}
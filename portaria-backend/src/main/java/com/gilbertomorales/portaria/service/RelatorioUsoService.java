@@ -0,0 +1,272 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.dto.UsoDTO;
+import com.gilbertomorales.portaria.model.MarcaProcessamento;
+import com.gilbertomorales.portaria.model.Reserva;
+import com.gilbertomorales.portaria.model.UsoDiario;
+import com.gilbertomorales.portaria.model.enums.DimensaoUso;
+import com.gilbertomorales.portaria.repository.ItemRepository;
+import com.gilbertomorales.portaria.repository.ReservaRepositoryCustom;
+import com.mongodb.ErrorCategory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Relatórios de uso servidos a partir dos rollups diários de {@link UsoDiario}. A atualização
+ * agendada agrega só as reservas devolvidas depois da última marca (índice reserva_devolucao)
+ * e soma o resultado nos rollups com $inc, então o custo de um relatório depende do número de
+ * dias consultados, não do tamanho do histórico.
+ * <p>
+ * Cada janela é somada uma vez só: o fim da janela é gravado na marca antes dos rollups, e cada
+ * rollup guarda a última janela que recebeu. Se a execução parar entre os rollups e a confirmação
+ * da marca, a seguinte repete a mesma janela e os rollups que já a receberam ficam como estão.
+ * <p>
+ * As devolvidas ficam na coleção principal por bem mais tempo que o intervalo da atualização;
+ * o histórico arquivado só é lido quando os rollups são (re)construídos do zero.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RelatorioUsoService {
+
+    static final String PROCESSAMENTO = "uso_diario";
+    static final String SEM_TIPO = "NAO_INFORMADO";
+
+    private final MongoTemplate mongoTemplate;
+    private final ItemRepository itemRepository;
+
+    // Devoluções gravadas com um horário anterior a este atraso já estão visíveis na leitura
+    @Value("${portaria.relatorios.margem:1m}")
+    private Duration margem;
+
+    public List<UsoDTO> consultar(DimensaoUso dimensao, LocalDate de, LocalDate ate) {
+        Criteria criteria = Criteria.where("dimensao").is(dimensao);
+        if (de != null || ate != null) {
+            Criteria dia = criteria.and("dia");
+            if (de != null) {
+                dia.gte(de);
+            }
+            if (ate != null) {
+                dia.lte(ate);
+            }
+        }
+
+        // Horas e dias em ordem cronológica; usuários, itens e tipos dos mais usados para os menos
+        Sort ordem = dimensao == DimensaoUso.HORA || dimensao == DimensaoUso.DIA
+                ? Sort.by(Sort.Direction.ASC, "_id")
+                : Sort.by(Sort.Direction.DESC, "emprestimos").and(Sort.by(Sort.Direction.ASC, "_id"));
+        TypedAggregation<UsoDiario> agg = Aggregation.newAggregation(UsoDiario.class,
+                Aggregation.match(criteria),
+                Aggregation.sort(Sort.Direction.ASC, "dia"),
+                Aggregation.group("chave")
+                        .sum("emprestimos").as("emprestimos")
+                        .sum("duracaoTotalMs").as("duracaoTotalMs")
+                        .last("descricao").as("descricao"),
+                Aggregation.sort(ordem));
+
+        return mongoTemplate.aggregate(agg, Document.class).getMappedResults().stream()
+                .map(grupo -> {
+                    long emprestimos = ((Number) grupo.get("emprestimos")).longValue();
+                    long duracaoTotal = ((Number) grupo.get("duracaoTotalMs")).longValue();
+                    double mediaMinutos = emprestimos > 0 ? duracaoTotal / (double) emprestimos / 60_000d : 0;
+                    return new UsoDTO(grupo.getString("_id"), grupo.getString("descricao"), emprestimos, mediaMinutos);
+                })
+                .collect(Collectors.toList());
+    }
+
+    @Scheduled(fixedDelayString = "${portaria.relatorios.atualizar-a-cada:10m}",
+            initialDelayString = "${portaria.relatorios.atualizar-a-cada:10m}")
+    public void atualizarRollups() {
+        try {
+            long processadas = processar(LocalDateTime.now().minus(margem).truncatedTo(ChronoUnit.MILLIS));
+            if (processadas > 0) {
+                log.info("{} reserva(s) devolvida(s) somada(s) aos rollups de uso", processadas);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Falha ao atualizar os rollups de uso: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Apaga os rollups e os recalcula a partir de todas as reservas devolvidas, inclusive as arquivadas
+     */
+    public synchronized long reconstruir() {
+        mongoTemplate.remove(new Query(), UsoDiario.class);
+        mongoTemplate.remove(new Query(Criteria.where("id").is(PROCESSAMENTO)), MarcaProcessamento.class);
+        return processar(LocalDateTime.now().minus(margem).truncatedTo(ChronoUnit.MILLIS));
+    }
+
+    /**
+     * Soma aos rollups as reservas devolvidas entre a marca anterior e {@code ate}; sem marca, processa
+     * todas (coleção principal e histórico). Uma janela interrompida é repetida antes de qualquer outra
+     */
+    synchronized long processar(LocalDateTime ate) {
+        MarcaProcessamento marca = mongoTemplate.findById(PROCESSAMENTO, MarcaProcessamento.class);
+        LocalDateTime desde = marca != null ? marca.getProcessadoAte() : null;
+        if (marca != null && marca.getEmAndamentoAte() != null) {
+            ate = marca.getEmAndamentoAte();
+        } else if (desde != null && !ate.isAfter(desde)) {
+            return 0;
+        } else {
+            mongoTemplate.save(new MarcaProcessamento(PROCESSAMENTO, desde, ate));
+        }
+
+        Criteria devolucao = Criteria.where("dataDevolucao");
+        if (desde != null) {
+            devolucao.gt(desde);
+        }
+        devolucao.lte(ate);
+        TypedAggregation<Reserva> agg = agregacaoPorEmprestimo(
+                new Criteria().andOperator(devolucao, Criteria.where("dataRetirada").ne(null)));
+
+        List<Document> grupos = new ArrayList<>(mongoTemplate.aggregate(agg, Document.class).getMappedResults());
+        if (desde == null) {
+            grupos.addAll(mongoTemplate.aggregate(agg, ReservaRepositoryCustom.COLECAO_HISTORICO, Document.class)
+                    .getMappedResults());
+        }
+
+        long processadas = somarNosRollups(grupos, ate);
+        mongoTemplate.save(new MarcaProcessamento(PROCESSAMENTO, ate, null));
+        return processadas;
+    }
+
+    /**
+     * Agrupa as reservas por dia e hora da retirada, usuário, item e tipo; as dimensões do rollup
+     * saem desses grupos, que são poucos por janela
+     */
+    private static TypedAggregation<Reserva> agregacaoPorEmprestimo(Criteria filtro) {
+        DateOperators.Timezone fuso = DateOperators.Timezone.fromZone(ZoneId.systemDefault());
+        return Aggregation.newAggregation(Reserva.class,
+                Aggregation.match(filtro),
+                Aggregation.project("matriculaUsuario", "nomeUsuario", "itemId", "nomeItem", "tipoItem")
+                        .and(DateOperators.DateToString.dateOf("dataRetirada").toString("%Y-%m-%d").withTimezone(fuso)).as("dia")
+                        .and(DateOperators.Hour.hourOf("dataRetirada").withTimezone(fuso)).as("hora")
+                        .and(ArithmeticOperators.Subtract.valueOf("dataDevolucao").subtract("dataRetirada")).as("duracao"),
+                Aggregation.group("dia", "hora", "matriculaUsuario", "itemId", "tipoItem")
+                        .count().as("n")
+                        .sum("duracao").as("duracao")
+                        .last("nomeUsuario").as("nomeUsuario")
+                        .last("nomeItem").as("nomeItem"));
+    }
+
+    private long somarNosRollups(List<Document> grupos, LocalDateTime janela) {
+        if (grupos.isEmpty()) {
+            return 0;
+        }
+
+        // Reservas anteriores à cópia do tipo na reserva: o tipo vem do item, se ele ainda existir
+        Set<String> semTipo = grupos.stream()
+                .map(grupo -> grupo.get("_id", Document.class))
+                .filter(chave -> chave.getString("tipoItem") == null)
+                .map(chave -> chave.getString("itemId"))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, String> tipoPorItem = new HashMap<>();
+        itemRepository.findAllById(semTipo).forEach(item -> tipoPorItem.put(item.getId(),
+                item.getTipo() != null ? item.getTipo().name() : SEM_TIPO));
+
+        Map<String, Acumulado> acumulados = new HashMap<>();
+        long processadas = 0;
+        for (Document grupo : grupos) {
+            Document chave = grupo.get("_id", Document.class);
+            LocalDate dia = LocalDate.parse(chave.getString("dia"));
+            long n = ((Number) grupo.get("n")).longValue();
+            long duracao = ((Number) grupo.get("duracao")).longValue();
+            String itemId = chave.getString("itemId");
+            String tipo = chave.getString("tipoItem") != null
+                    ? chave.getString("tipoItem")
+                    : tipoPorItem.getOrDefault(itemId, SEM_TIPO);
+
+            acumular(acumulados, dia, DimensaoUso.USUARIO, chave.getString("matriculaUsuario"), grupo.getString("nomeUsuario"), n, duracao);
+            acumular(acumulados, dia, DimensaoUso.ITEM, itemId, grupo.getString("nomeItem"), n, duracao);
+            acumular(acumulados, dia, DimensaoUso.TIPO_ITEM, tipo, null, n, duracao);
+            acumular(acumulados, dia, DimensaoUso.HORA, String.format("%02d", ((Number) chave.get("hora")).intValue()), null, n, duracao);
+            acumular(acumulados, dia, DimensaoUso.DIA, dia.toString(), null, n, duracao);
+            processadas += n;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UsoDiario.class);
+        acumulados.forEach((id, acumulado) -> {
+            Update update = new Update()
+                    .setOnInsert("dia", acumulado.dia)
+                    .setOnInsert("dimensao", acumulado.dimensao)
+                    .setOnInsert("chave", acumulado.chave)
+                    .inc("emprestimos", acumulado.emprestimos)
+                    .inc("duracaoTotalMs", acumulado.duracaoTotalMs)
+                    .set("ultimaJanela", janela);
+            if (acumulado.descricao != null) {
+                update.set("descricao", acumulado.descricao);
+            }
+            // Rollup que já recebeu esta janela não casa com o filtro; o upsert tenta inserir o mesmo id e falha
+            bulk.upsert(new Query(Criteria.where("id").is(id).and("ultimaJanela").not().gte(janela)), update);
+        });
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            boolean jaSomados = e.getErrors().stream()
+                    .allMatch(erro -> ErrorCategory.fromErrorCode(erro.getCode()) == ErrorCategory.DUPLICATE_KEY);
+            if (!jaSomados) {
+                throw e;
+            }
+        }
+        return processadas;
+    }
+
+    private static void acumular(Map<String, Acumulado> acumulados, LocalDate dia, DimensaoUso dimensao,
+                                 String chave, String descricao, long emprestimos, long duracao) {
+        if (chave == null) {
+            return;
+        }
+        Acumulado acumulado = acumulados.computeIfAbsent(UsoDiario.idDe(dia, dimensao, chave),
+                id -> new Acumulado(dia, dimensao, chave));
+        acumulado.emprestimos += emprestimos;
+        acumulado.duracaoTotalMs += duracao;
+        if (descricao != null) {
+            acumulado.descricao = descricao;
+        }
+    }
+
+    private static final class Acumulado {
+
+        private final LocalDate dia;
+        private final DimensaoUso dimensao;
+        private final String chave;
+        private String descricao;
+        private long emprestimos;
+        private long duracaoTotalMs;
+
+        private Acumulado(LocalDate dia, DimensaoUso dimensao, String chave) {
+            this.dia = dia;
+            this.dimensao = dimensao;
+            this.chave = chave;
+        }
+    }
+}
@@ -1,181 +1,525 @@
 package com.gilbertomorales.portaria.service;
 
+import com.gilbertomorales.portaria.dto.OperacaoLoteRequestDTO;
+import com.gilbertomorales.portaria.dto.OperacaoLoteResponseDTO;
+import com.gilbertomorales.portaria.dto.ReservaFiltroDTO;
+import com.gilbertomorales.portaria.dto.ReservaPaginaDTO;
 import com.gilbertomorales.portaria.dto.ReservaRequestDTO;
 import com.gilbertomorales.portaria.dto.ReservaResponseDTO;
+import com.gilbertomorales.portaria.dto.ResultadoItemLoteDTO;
 import com.gilbertomorales.portaria.dto.RetiradaDevolucaoDTO;
+import com.gilbertomorales.portaria.event.ReservaAtualizadaEvent;
+import com.gilbertomorales.portaria.event.ReservasLimpasEvent;
+import com.gilbertomorales.portaria.model.EventoPortaria;
 import com.gilbertomorales.portaria.model.Item;
 import com.gilbertomorales.portaria.model.Reserva;
 import com.gilbertomorales.portaria.model.User;
+import com.gilbertomorales.portaria.model.enums.TipoEventoPortaria;
 import com.gilbertomorales.portaria.repository.ReservaRepository;
+import com.gilbertomorales.portaria.repository.ReservaRepositoryCustom;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class ReservaService {
 
+    static final int TAMANHO_MAXIMO_PAGINA = 500;
+
     private final ReservaRepository reservaRepository;
     private final UserService userService;
     private final ItemService itemService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MetricasService metricasService;
+    private final EstatisticasService estatisticasService;
+    private final AtrasoService atrasoService;
+    private final RelatorioUsoService relatorioUsoService;
+    private final EventoPortariaService eventoPortariaService;
+    private final SincronizacaoService sincronizacaoService;
+
+    @Value("${portaria.reservas.arquivar-ao-limpar:false}")
+    private boolean arquivarAoLimpar;
 
-    public List<ReservaResponseDTO> findAll() {
-        return reservaRepository.findAll().stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+    /**
+     * Listagens antigas (sem paginação): devolvem só a primeira página, as {@value #TAMANHO_MAXIMO_PAGINA}
+     * reservas mais recentes do filtro; o cursor da página seguinte continua em /api/reservas/pagina
+     */
+    public ReservaPaginaDTO findAll() {
+        return buscarPagina(null, null, TAMANHO_MAXIMO_PAGINA);
     }
 
-    public List<ReservaResponseDTO> findByItemId(String itemId) {
-        return reservaRepository.findByItemId(itemId).stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+    public ReservaPaginaDTO findByItemId(String itemId) {
+        return buscarPagina(new ReservaFiltroDTO(null, itemId, null, null, null), null, TAMANHO_MAXIMO_PAGINA);
     }
 
-    public List<ReservaResponseDTO> findByMatricula(String matricula) {
-        return reservaRepository.findByMatriculaUsuario(matricula).stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+    public ReservaPaginaDTO findByMatricula(String matricula) {
+        return buscarPagina(new ReservaFiltroDTO(null, null, matricula, null, null), null, TAMANHO_MAXIMO_PAGINA);
     }
 
-    public ReservaResponseDTO criarReserva(ReservaRequestDTO request) {
-        // Buscar usuário pela matrícula
-        User usuario = userService.findByMatricula(request.matriculaUsuario())
-                .orElseThrow(() -> new RuntimeException("Usuário não encontrado com a matrícula: " + request.matriculaUsuario()));
+    /**
+     * Busca uma página do histórico de reservas usando paginação por cursor (dataReserva + id)
+     */
+    public ReservaPaginaDTO buscarPagina(ReservaFiltroDTO filtro, String cursor, int tamanho) {
+        return metricasService.medir("pagina", () -> {
+            int limite = Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA));
+
+            CursorReserva posicao = (cursor == null || cursor.isBlank())
+                    ? new CursorReserva(null, null)
+                    : decodificarCursor(cursor);
+
+            // Busca um a mais para saber se existe próxima página sem precisar contar
+            List<Reserva> reservas = reservaRepository.buscarPagina(filtro, posicao.dataReserva(), posicao.id(), limite + 1);
+            boolean temMais = reservas.size() > limite;
+            if (temMais) {
+                reservas = reservas.subList(0, limite);
+            }
 
-        // Buscar item
-        Item item = itemService.findById(request.itemId())
-                .orElseThrow(() -> new RuntimeException("Item não encontrado"));
+            String proximoCursor = null;
+            if (temMais) {
+                Reserva ultima = reservas.get(reservas.size() - 1);
+                proximoCursor = codificarCursor(ultima);
+            }
 
-        // Verificar se o item está disponível
-        if (!item.getDisponivel()) {
-            throw new RuntimeException("Item não está disponível para reserva");
-        }
+            List<ReservaResponseDTO> conteudo = reservas.stream()
+                    .map(ReservaService::convertToResponseDTO)
+                    .collect(Collectors.toList());
+            return new ReservaPaginaDTO(conteudo, proximoCursor, temMais);
+        });
+    }
 
-        // Verificar se já existe uma reserva ativa para este item
-        Optional<Reserva> reservaAtiva = reservaRepository.findByItemIdAndDataDevolucaoIsNull(request.itemId());
-        if (reservaAtiva.isPresent()) {
-            throw new RuntimeException("Item já possui uma reserva ativa");
+    /**
+     * Percorre todas as reservas do filtro sem carregá-las de uma vez na memória
+     */
+    public void exportar(ReservaFiltroDTO filtro, Consumer<ReservaResponseDTO> consumidor) {
+        try (Stream<Reserva> reservas = reservaRepository.streamByFiltro(filtro)) {
+            reservas.map(ReservaService::convertToResponseDTO).forEach(consumidor);
         }
+    }
 
-        // Criar a reserva
-        Reserva reserva = new Reserva();
-        reserva.setItemId(item.getId());
-        reserva.setUsuarioId(usuario.getId());
-        reserva.setDataReserva(LocalDateTime.now());
-        reserva.setNomeItem(item.getNome());
-        reserva.setNomeUsuario(usuario.getNome());
-        reserva.setMatriculaUsuario(usuario.getMatricula());
-
-        // Marcar item como indisponível
-        itemService.marcarComoIndisponivel(item.getId());
+    public ReservaResponseDTO criarReserva(ReservaRequestDTO request) {
+        return metricasService.medir("criar", () -> {
+            // Buscar usuário pela matrícula
+            User usuario = userService.findByMatricula(request.matriculaUsuario())
+                    .orElseThrow(() -> new RuntimeException("Usuário não encontrado com a matrícula: " + request.matriculaUsuario()));
+
+            // Marcar item como indisponível numa única operação atômica: se dois porteiros
+            // tentarem reservar o mesmo item ao mesmo tempo, apenas um consegue
+            Item item = itemService.reservarSeDisponivel(request.itemId())
+                    .orElseThrow(() -> itemService.findById(request.itemId()).isPresent()
+                            ? new RuntimeException("Item não está disponível para reserva")
+                            : new RuntimeException("Item não encontrado"));
+
+            // Criar a reserva
+            Reserva reserva = novaReserva(item, usuario, LocalDateTime.now());
+
+            Reserva reservaSalva;
+            try {
+                reservaSalva = reservaRepository.insert(reserva);
+                estatisticasService.reservasCriadas(1);
+            } catch (DuplicateKeyException e) {
+                // O índice único de reserva ativa por item barrou a inserção: o item continua
+                // indisponível, pois já existe uma reserva em aberto para ele
+                throw new RuntimeException("Item já possui uma reserva ativa");
+            } catch (RuntimeException e) {
+                itemService.liberar(item.getId());
+                throw e;
+            }
 
-        Reserva reservaSalva = reservaRepository.save(reserva);
-        return convertToResponseDTO(reservaSalva);
+            // Fora do try: a reserva já existe, uma falha ao gravar o evento não libera o item
+            eventoPortariaService.registrar(EventoPortaria.de(TipoEventoPortaria.RESERVA, reservaSalva));
+            return publicar(convertToResponseDTO(reservaSalva));
+        });
     }
 
     public ReservaResponseDTO registrarRetirada(String reservaId, RetiradaDevolucaoDTO request) {
-        Reserva reserva = reservaRepository.findById(reservaId)
-                .orElseThrow(() -> new RuntimeException("Reserva não encontrada"));
+        return metricasService.medir("retirada", () -> {
+            Reserva reserva = reservaRepository.findById(reservaId)
+                    .orElseThrow(() -> new RuntimeException("Reserva não encontrada"));
+            verificarRetirada(reserva, request.matriculaUsuario());
+
+            // Escrita condicional dos campos da retirada, como no lote: de dois terminais registrando a
+            // mesma retirada só um altera a reserva, e o restante do documento não é regravado
+            LocalDateTime agora = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+            LocalDateTime prazo = atrasoService.calcularPrazo(reserva, agora);
+            if (reservaRepository.registrarRetiradas(List.of(reservaId), agora, prazo) != 1) {
+                throw new RuntimeException("Item já foi retirado");
+            }
+            reserva.setDataRetirada(agora);
+            reserva.setPrazoDevolucao(prazo);
+            estatisticasService.reservasRetiradas(1);
+            eventoPortariaService.registrar(EventoPortaria.de(TipoEventoPortaria.RETIRADA, reserva));
 
-        // Verificar se a matrícula ta certa
-        if (!reserva.getMatriculaUsuario().equals(request.matriculaUsuario())) {
-            throw new RuntimeException("Matrícula não confere com a reserva");
-        }
+            return publicar(convertToResponseDTO(reserva));
+        });
+    }
 
-        // Verificar se já foi retirado
-        if (reserva.getDataRetirada() != null) {
-            throw new RuntimeException("Item já foi retirado");
+    public ReservaResponseDTO registrarDevolucao(String reservaId, RetiradaDevolucaoDTO request) {
+        return metricasService.medir("devolucao", () -> {
+            Reserva reserva = reservaRepository.findById(reservaId)
+                    .orElseThrow(() -> new RuntimeException("Reserva não encontrada"));
+            verificarDevolucao(reserva, request.matriculaUsuario());
+
+            // Só quem de fato registrou a devolução conta a estatística, grava o evento e libera o item
+            LocalDateTime agora = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+            if (reservaRepository.registrarDevolucoes(List.of(reservaId), agora) != 1) {
+                throw new RuntimeException("Item já foi devolvido");
+            }
+            reserva.setDataDevolucao(agora);
+            estatisticasService.reservasDevolvidas(1);
+            eventoPortariaService.registrar(EventoPortaria.de(TipoEventoPortaria.DEVOLUCAO, reserva));
+
+            // Marcar item como disponível novamente
+            itemService.liberar(reserva.getItemId());
+
+            return publicar(convertToResponseDTO(reserva));
+        });
+    }
+
+    /**
+     * Executa a mesma operação de portaria para vários IDs de uma vez (ex.: devolução de várias chaves
+     * no fechamento), com número constante de consultas ao banco independente do tamanho do lote
+     */
+    public OperacaoLoteResponseDTO processarLote(String matricula, OperacaoLoteRequestDTO request) {
+        String operacao = "lote-" + request.operacao().name().toLowerCase();
+        return metricasService.medir(operacao, () -> {
+            List<String> ids = new ArrayList<>(new LinkedHashSet<>(request.ids()));
+
+            Map<String, ResultadoItemLoteDTO> resultados = switch (request.operacao()) {
+                case RESERVAR -> reservarLote(matricula, ids);
+                case RETIRAR -> retirarLote(matricula, ids);
+                case DEVOLVER -> devolverLote(matricula, ids);
+            };
+
+            // Falhas de itens individuais não interrompem o lote, mas entram na contagem por motivo
+            resultados.values().stream()
+                    .filter(resultado -> !resultado.sucesso())
+                    .forEach(resultado -> metricasService.registrarFalha(operacao, resultado.erro()));
+
+            long sucessos = resultados.values().stream().filter(ResultadoItemLoteDTO::sucesso).count();
+            return new OperacaoLoteResponseDTO(request.operacao(), sucessos, resultados.size() - sucessos,
+                    new ArrayList<>(resultados.values()));
+        });
+    }
+
+    private Map<String, ResultadoItemLoteDTO> reservarLote(String matricula, List<String> itemIds) {
+        User usuario = userService.findByMatricula(matricula)
+                .orElseThrow(() -> new RuntimeException("Usuário não encontrado com a matrícula: " + matricula));
+
+        // Como em criarReserva, os itens são tomados primeiro numa escrita condicional (disponivel: true):
+        // de dois terminais reservando o mesmo item ao mesmo tempo, só um o recebe
+        Map<String, Item> reservados = itemService.atualizarDisponibilidade(itemIds, false).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        List<String> naoReservados = itemIds.stream().filter(id -> !reservados.containsKey(id)).toList();
+        Set<String> existentes = naoReservados.isEmpty() ? Set.of() : itemService.findAllById(naoReservados).stream()
+                .map(Item::getId)
+                .collect(Collectors.toSet());
+
+        Map<String, ResultadoItemLoteDTO> resultados = new LinkedHashMap<>();
+        List<Reserva> novas = new ArrayList<>();
+        LocalDateTime agora = LocalDateTime.now();
+
+        for (String itemId : itemIds) {
+            Item item = reservados.get(itemId);
+            if (item != null) {
+                resultados.put(itemId, null);
+                novas.add(novaReserva(item, usuario, agora));
+            } else if (existentes.contains(itemId)) {
+                resultados.put(itemId, falha(itemId, "Item não está disponível para reserva"));
+            } else {
+                resultados.put(itemId, falha(itemId, "Item não encontrado"));
+            }
         }
 
-        reserva.setDataRetirada(LocalDateTime.now());
-        Reserva reservaAtualizada = reservaRepository.save(reserva);
+        Set<Integer> rejeitadas = reservaRepository.inserirEmLote(novas);
+        Set<String> comReservaAtiva = rejeitadas.isEmpty() ? Set.of() : itensComReservaAtiva(novas, rejeitadas);
+        List<String> liberar = new ArrayList<>();
+        List<EventoPortaria> eventos = new ArrayList<>();
+        for (int i = 0; i < novas.size(); i++) {
+            Reserva reserva = novas.get(i);
+            String itemId = reserva.getItemId();
+            if (!rejeitadas.contains(i)) {
+                eventos.add(EventoPortaria.de(TipoEventoPortaria.RESERVA, reserva));
+                resultados.put(itemId, sucesso(itemId, reserva));
+            } else if (comReservaAtiva.contains(itemId)) {
+                // O índice único de reserva ativa por item barrou a inserção: o item continua indisponível
+                resultados.put(itemId, falha(itemId, "Item já possui uma reserva ativa"));
+            } else {
+                liberar.add(itemId);
+                resultados.put(itemId, falha(itemId, "Não foi possível gravar a reserva"));
+            }
+        }
+        estatisticasService.reservasCriadas(eventos.size());
+        eventoPortariaService.registrarTodos(eventos);
+        itemService.atualizarDisponibilidade(liberar, true);
 
-        return convertToResponseDTO(reservaAtualizada);
+        return resultados;
     }
 
-    public ReservaResponseDTO registrarDevolucao(String reservaId, RetiradaDevolucaoDTO request) {
-        Reserva reserva = reservaRepository.findById(reservaId)
-                .orElseThrow(() -> new RuntimeException("Reserva não encontrada"));
+    /**
+     * Só é chamado quando parte do bulk falhou: separa as rejeições do índice de reserva ativa por item
+     * das demais falhas, cujos itens precisam voltar a ficar disponíveis
+     */
+    private Set<String> itensComReservaAtiva(List<Reserva> novas, Set<Integer> rejeitadas) {
+        List<String> itemIds = rejeitadas.stream().map(i -> novas.get(i).getItemId()).toList();
+        return reservaRepository.findByItemIdInAndDataDevolucaoIsNull(itemIds).stream()
+                .map(Reserva::getItemId)
+                .collect(Collectors.toSet());
+    }
 
-        // Verificar se a matrícula ta certa
-        if (!reserva.getMatriculaUsuario().equals(request.matriculaUsuario())) {
-            throw new RuntimeException("Matrícula não confere com a reserva");
+    private Map<String, ResultadoItemLoteDTO> retirarLote(String matricula, List<String> reservaIds) {
+        Map<String, ResultadoItemLoteDTO> resultados = new LinkedHashMap<>();
+        List<Reserva> validas = validarReservasDoLote(matricula, reservaIds, resultados, reserva -> {
+            if (reserva.getDataRetirada() != null) {
+                return "Item já foi retirado";
+            }
+            return null;
+        });
+
+        // Datas gravadas no Mongo têm precisão de milissegundos
+        LocalDateTime agora = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<String> ids = validas.stream().map(Reserva::getId).collect(Collectors.toList());
+
+        // Uma escrita por prazo distinto (os prazos dependem dos tipos de item e de usuário)
+        Map<LocalDateTime, List<String>> idsPorPrazo = validas.stream().collect(Collectors.groupingBy(
+                reserva -> atrasoService.calcularPrazo(reserva, agora),
+                Collectors.mapping(Reserva::getId, Collectors.toList())));
+        long alteradas = idsPorPrazo.entrySet().stream()
+                .mapToLong(grupo -> reservaRepository.registrarRetiradas(grupo.getValue(), agora, grupo.getKey()))
+                .sum();
+
+        Set<String> confirmadas = alteradas == ids.size()
+                ? Set.copyOf(ids)
+                : confirmarAlteradas(ids, reserva -> agora.equals(reserva.getDataRetirada()));
+
+        List<EventoPortaria> eventos = new ArrayList<>();
+        for (Reserva reserva : validas) {
+            if (confirmadas.contains(reserva.getId())) {
+                reserva.setDataRetirada(agora);
+                reserva.setPrazoDevolucao(atrasoService.calcularPrazo(reserva, agora));
+                eventos.add(EventoPortaria.de(TipoEventoPortaria.RETIRADA, reserva));
+                resultados.put(reserva.getId(), sucesso(reserva.getId(), reserva));
+            } else {
+                resultados.put(reserva.getId(), falha(reserva.getId(), "Item já foi retirado"));
+            }
         }
+        estatisticasService.reservasRetiradas(confirmadas.size());
+        eventoPortariaService.registrarTodos(eventos);
+        return resultados;
+    }
 
-        // Verificar se foi retirado
-        if (reserva.getDataRetirada() == null) {
-            throw new RuntimeException("Item ainda não foi retirado");
+    private Map<String, ResultadoItemLoteDTO> devolverLote(String matricula, List<String> reservaIds) {
+        Map<String, ResultadoItemLoteDTO> resultados = new LinkedHashMap<>();
+        List<Reserva> validas = validarReservasDoLote(matricula, reservaIds, resultados, reserva -> {
+            if (reserva.getDataRetirada() == null) {
+                return "Item ainda não foi retirado";
+            }
+            if (reserva.getDataDevolucao() != null) {
+                return "Item já foi devolvido";
+            }
+            return null;
+        });
+
+        LocalDateTime agora = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<String> ids = validas.stream().map(Reserva::getId).collect(Collectors.toList());
+        long alteradas = reservaRepository.registrarDevolucoes(ids, agora);
+
+        Set<String> confirmadas = alteradas == ids.size()
+                ? Set.copyOf(ids)
+                : confirmarAlteradas(ids, reserva -> agora.equals(reserva.getDataDevolucao()));
+
+        List<String> itensLiberados = new ArrayList<>();
+        List<EventoPortaria> eventos = new ArrayList<>();
+        for (Reserva reserva : validas) {
+            if (confirmadas.contains(reserva.getId())) {
+                reserva.setDataDevolucao(agora);
+                eventos.add(EventoPortaria.de(TipoEventoPortaria.DEVOLUCAO, reserva));
+                itensLiberados.add(reserva.getItemId());
+                resultados.put(reserva.getId(), sucesso(reserva.getId(), reserva));
+            } else {
+                resultados.put(reserva.getId(), falha(reserva.getId(), "Item já foi devolvido"));
+            }
         }
 
-        // Verificar se já foi devolvido
-        if (reserva.getDataDevolucao() != null) {
-            throw new RuntimeException("Item já foi devolvido");
+        estatisticasService.reservasDevolvidas(itensLiberados.size());
+        eventoPortariaService.registrarTodos(eventos);
+
+        // Marcar os itens como disponíveis novamente, numa única escrita condicional com versão sobre os ids
+        itemService.atualizarDisponibilidade(itensLiberados, true);
+        return resultados;
+    }
+
+    /**
+     * Busca as reservas do lote com uma única consulta e aplica as mesmas verificações das operações individuais
+     */
+    private List<Reserva> validarReservasDoLote(String matricula, List<String> reservaIds,
+                                                Map<String, ResultadoItemLoteDTO> resultados,
+                                                Function<Reserva, String> verificacao) {
+        Map<String, Reserva> reservas = reservaRepository.findAllById(reservaIds).stream()
+                .collect(Collectors.toMap(Reserva::getId, Function.identity()));
+
+        List<Reserva> validas = new ArrayList<>();
+        for (String reservaId : reservaIds) {
+            Reserva reserva = reservas.get(reservaId);
+            String erro;
+            if (reserva == null) {
+                erro = "Reserva não encontrada";
+            } else if (!reserva.getMatriculaUsuario().equals(matricula)) {
+                erro = "Matrícula não confere com a reserva";
+            } else {
+                erro = verificacao.apply(reserva);
+            }
+
+            if (erro != null) {
+                resultados.put(reservaId, falha(reservaId, erro));
+            } else {
+                resultados.put(reservaId, null);
+                validas.add(reserva);
+            }
         }
+        return validas;
+    }
 
-        reserva.setDataDevolucao(LocalDateTime.now());
-        Reserva reservaAtualizada = reservaRepository.save(reserva);
+    /**
+     * Só é chamado quando outro terminal alterou parte do lote ao mesmo tempo: relê as reservas
+     * para descobrir quais foram de fato alteradas por esta operação
+     */
+    private Set<String> confirmarAlteradas(List<String> reservaIds, Predicate<Reserva> alteradaAgora) {
+        return reservaRepository.findAllById(reservaIds).stream()
+                .filter(alteradaAgora)
+                .map(Reserva::getId)
+                .collect(Collectors.toSet());
+    }
 
-        // Marcar item como disponível novamente
-        itemService.marcarComoDisponivel(reserva.getItemId());
+    private ResultadoItemLoteDTO sucesso(String id, Reserva reserva) {
+        return new ResultadoItemLoteDTO(id, true, publicar(convertToResponseDTO(reserva)), null);
+    }
 
-        return convertToResponseDTO(reservaAtualizada);
+    private static ResultadoItemLoteDTO falha(String id, String erro) {
+        return new ResultadoItemLoteDTO(id, false, null, erro);
     }
 
     public List<ReservaResponseDTO> findReservasAtivasByMatricula(String matricula) {
-        return reservaRepository.findByMatriculaUsuarioAndDataDevolucaoIsNull(matricula).stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+        return metricasService.medir("reservas-ativas", () -> {
+            return reservaRepository.findByMatriculaUsuarioAndDataDevolucaoIsNull(matricula).stream()
+                    .map(ReservaService::convertToResponseDTO)
+                    .collect(Collectors.toList());
+        });
     }
 
     /**
-     * Limpa todas as reservas (ativas e histórico) e marca todos os itens como disponíveis
+     * Limpa todas as reservas (ativas e histórico) e marca como disponíveis os itens que estavam reservados.
+     * Saem as reservas feitas até o início da limpeza; uma criada durante ela continua, com o item indisponível
      */
     public Map<String, Object> limparTodasReservas() {
-        // Buscar todas as reservas
-        List<Reserva> todasReservas = reservaRepository.findAll();
+        return metricasService.medir("limpar", () -> {
+            LocalDateTime inicio = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+            // Removidas em lotes e contadas à medida que saem, sem carregar todas as reservas; as devolvidas
+            // vão para o histórico antes, se configurado, senão o histórico também é apagado
+            ReservaRepositoryCustom.RemocaoReservas remocao = reservaRepository.removerAte(inicio, arquivarAoLimpar);
+            long removidasDoHistorico = arquivarAoLimpar ? 0 : reservaRepository.removerHistorico();
+
+            // Só os itens das reservas ativas removidas, numa única escrita condicional com versão sobre os ids
+            itemService.atualizarDisponibilidade(remocao.itensComReservaAtiva(), true);
+
+            sincronizacaoService.reservasApagadas();
+            // Contadores recalculados das coleções: as reservas mais novas que a limpeza continuam contando
+            estatisticasService.tentarReconciliar();
+            if (!arquivarAoLimpar) {
+                relatorioUsoService.reconstruir();
+            }
+            eventoPortariaService.registrar(EventoPortaria.limpeza());
+            eventPublisher.publishEvent(new ReservasLimpasEvent(remocao.total(), remocao.itensComReservaAtiva()));
+
+            return Map.of(
+                    "message", "Todas as reservas foram removidas com sucesso",
+                    "reservasAtivasRemovidas", remocao.ativas(),
+                    "totalReservasRemovidas", remocao.total() + removidasDoHistorico,
+                    "itensDisponibilizados", remocao.itensComReservaAtiva().size(),
+                    "reservasArquivadas", remocao.arquivadas(),
+                    "timestamp", LocalDateTime.now()
+            );
+        });
+    }
 
-        // Contar reservas ativas e total
-        long reservasAtivas = todasReservas.stream()
-                .filter(r -> r.getDataDevolucao() == null)
-                .count();
+    private ReservaResponseDTO publicar(ReservaResponseDTO reserva) {
+        eventPublisher.publishEvent(new ReservaAtualizadaEvent(reserva));
+        return reserva;
+    }
 
-        long totalReservas = todasReservas.size();
+    /**
+     * Regras da retirada, compartilhadas com a versão reativa
+     */
+    static void verificarRetirada(Reserva reserva, String matricula) {
+        // Verificar se a matrícula ta certa
+        if (!reserva.getMatriculaUsuario().equals(matricula)) {
+            throw new RuntimeException("Matrícula não confere com a reserva");
+        }
 
-        // Buscar todos os itens que estão em reservas ativas para disponibilizar
-        List<String> itensParaDisponibilizar = todasReservas.stream()
-                .filter(r -> r.getDataDevolucao() == null)
-                .map(Reserva::getItemId)
-                .distinct()
-                .collect(Collectors.toList());
+        // Verificar se já foi retirado
+        if (reserva.getDataRetirada() != null) {
+            throw new RuntimeException("Item já foi retirado");
+        }
+    }
 
-        // Marcar todos os itens como disponíveis
-        for (String itemId : itensParaDisponibilizar) {
-            try {
-                itemService.marcarComoDisponivel(itemId);
-            } catch (Exception e) {
-                // Log do erro mas continua o processo
-                System.err.println("Erro ao disponibilizar item " + itemId + ": " + e.getMessage());
-            }
+    /**
+     * Regras da devolução, compartilhadas com a versão reativa
+     */
+    static void verificarDevolucao(Reserva reserva, String matricula) {
+        // Verificar se a matrícula ta certa
+        if (!reserva.getMatriculaUsuario().equals(matricula)) {
+            throw new RuntimeException("Matrícula não confere com a reserva");
         }
 
-        // Deletar todas as reservas
-        reservaRepository.deleteAll();
+        // Verificar se foi retirado
+        if (reserva.getDataRetirada() == null) {
+            throw new RuntimeException("Item ainda não foi retirado");
+        }
 
-        return Map.of(
-                "message", "Todas as reservas foram removidas com sucesso",
-                "reservasAtivasRemovidas", reservasAtivas,
-                "totalReservasRemovidas", totalReservas,
-                "itensDisponibilizados", itensParaDisponibilizar.size(),
-                "timestamp", LocalDateTime.now()
-        );
+        // Verificar se já foi devolvido
+        if (reserva.getDataDevolucao() != null) {
+            throw new RuntimeException("Item já foi devolvido");
+        }
     }
 
-    private ReservaResponseDTO convertToResponseDTO(Reserva reserva) {
+    static Reserva novaReserva(Item item, User usuario, LocalDateTime dataReserva) {
+        Reserva reserva = new Reserva();
+        // ID gerado aqui para que as reservas inseridas em lote já saiam com ID na resposta
+        reserva.setId(new ObjectId().toHexString());
+        reserva.setItemId(item.getId());
+        reserva.setUsuarioId(usuario.getId());
+        reserva.setDataReserva(dataReserva);
+        reserva.setNomeItem(item.getNome());
+        reserva.setNomeUsuario(usuario.getNome());
+        reserva.setMatriculaUsuario(usuario.getMatricula());
+        reserva.setTipoItem(item.getTipo());
+        reserva.setTipoUsuario(usuario.getTipo());
+        return reserva;
+    }
+
+    static ReservaResponseDTO convertToResponseDTO(Reserva reserva) {
         // Determinar status do item
         String status;
         if (reserva.getDataDevolucao() != null) {
@@ -196,7 +540,29 @@ public class ReservaService {
                 reserva.getDataReserva(),
                 reserva.getDataRetirada(),
                 reserva.getDataDevolucao(),
-                status
+                status,
+                reserva.getPrazoDevolucao(),
+                Boolean.TRUE.equals(reserva.getAtrasada())
         );
     }
+
+    private static String codificarCursor(Reserva reserva) {
+        String valor = reserva.getDataReserva() + "|" + reserva.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static CursorReserva decodificarCursor(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split("\\|", 2);
+            if (partes.length != 2 || partes[1].isBlank()) {
+                throw new RuntimeException("Cursor inválido");
+            }
+            return new CursorReserva(LocalDateTime.parse(partes[0]), partes[1]);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new RuntimeException("Cursor inválido");
+        }
+    }
+
+    private record CursorReserva(LocalDateTime dataReserva, String id) {}
 }
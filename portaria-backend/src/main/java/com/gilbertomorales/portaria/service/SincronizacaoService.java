@@ -0,0 +1,173 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.dto.AlteracoesDTO;
+import com.gilbertomorales.portaria.dto.ReservaResponseDTO;
+import com.gilbertomorales.portaria.dto.SincronizacaoDTO;
+import com.gilbertomorales.portaria.model.Item;
+import com.gilbertomorales.portaria.model.Remocao;
+import com.gilbertomorales.portaria.model.Reserva;
+import com.gilbertomorales.portaria.model.User;
+import com.gilbertomorales.portaria.repository.ContadorVersoes;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Sincronização incremental dos terminais da portaria: usuários, itens e reservas ativas alterados
+ * desde a versão que o terminal já tem, com as remoções.
+ * <p>
+ * Usuários e itens removidos deixam uma {@link Remocao} guardada por {@code manter-remocoes}.
+ * Remoções sem marca (limpeza e reconstrução das reservas, arquivamento, marcas vencidas) avançam o
+ * horizonte da coleção, guardado em {@code sincronizacao}: quem está abaixo dele recebe a coleção completa.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SincronizacaoService {
+
+    private static final String HORIZONTE = "horizonte:";
+
+    private final MongoTemplate mongoTemplate;
+    private final ContadorVersoes contadorVersoes;
+
+    @Value("${portaria.sincronizacao.manter-remocoes:30d}")
+    private Duration manterRemocoes;
+
+    /**
+     * Alterações desde a versão informada; sem versão (ou abaixo do horizonte), a coleção completa
+     */
+    public SincronizacaoDTO sincronizar(Long desde) {
+        // Lida antes das consultas: o que for escrito durante a leitura volta de novo na próxima sincronização
+        long versao = contadorVersoes.versaoConsistente();
+        Map<String, Long> horizontes = horizontes();
+        return new SincronizacaoDTO(versao,
+                alteracoes(User.class, desde, versao, horizontes),
+                alteracoes(Item.class, desde, versao, horizontes),
+                reservas(desde, versao, horizontes));
+    }
+
+    public void registrarRemocao(Class<?> entidade, String id) {
+        String colecao = mongoTemplate.getCollectionName(entidade);
+        contadorVersoes.escrever(versao ->
+                mongoTemplate.save(new Remocao(colecao + ":" + id, colecao, id, versao, LocalDateTime.now())));
+    }
+
+    /**
+     * Reservas apagadas todas de uma vez (limpeza ou reconstrução)
+     */
+    public void reservasApagadas() {
+        String colecao = mongoTemplate.getCollectionName(Reserva.class);
+        contadorVersoes.escrever(versao -> {
+            avancarHorizonte(colecao, versao);
+            return null;
+        });
+    }
+
+    /**
+     * Reservas devolvidas, até a versão informada, que vão sair da coleção principal para o histórico
+     */
+    public void reservasArquivadas(long ateVersao) {
+        if (ateVersao > 0) {
+            avancarHorizonte(mongoTemplate.getCollectionName(Reserva.class), ateVersao);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${portaria.sincronizacao.limpar-remocoes-a-cada:1d}",
+            initialDelayString = "${portaria.sincronizacao.limpar-remocoes-a-cada:1d}")
+    public void limparRemocoes() {
+        try {
+            long removidas = removerMarcasAntigas(LocalDateTime.now().minus(manterRemocoes));
+            if (removidas > 0) {
+                log.info("{} marca(s) de remoção vencida(s) apagada(s)", removidas);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Falha ao apagar marcas de remoção vencidas: {}", e.getMessage());
+        }
+    }
+
+    long removerMarcasAntigas(LocalDateTime antesDe) {
+        long total = 0;
+        for (Class<?> entidade : List.of(User.class, Item.class)) {
+            String colecao = mongoTemplate.getCollectionName(entidade);
+            Criteria antigas = Criteria.where("colecao").is(colecao).and("removidaEm").lt(antesDe);
+            Remocao maisRecente = mongoTemplate.findOne(new Query(antigas)
+                    .with(Sort.by(Sort.Direction.DESC, "versao")).limit(1), Remocao.class);
+            if (maisRecente == null) {
+                continue;
+            }
+            // Sem a marca, quem sincronizou antes dela não saberia da remoção: passa a receber a coleção completa
+            avancarHorizonte(colecao, maisRecente.getVersao());
+            total += mongoTemplate.remove(new Query(antigas), Remocao.class).getDeletedCount();
+        }
+        return total;
+    }
+
+    private <T> AlteracoesDTO<T> alteracoes(Class<T> entidade, Long desde, long versao, Map<String, Long> horizontes) {
+        String colecao = mongoTemplate.getCollectionName(entidade);
+        if (precisaCompleto(desde, versao, horizontes.get(colecao))) {
+            return new AlteracoesDTO<>(true, mongoTemplate.findAll(entidade), List.of());
+        }
+        List<T> alterados = mongoTemplate.find(new Query(Criteria.where("versao").gt(desde)), entidade);
+        List<String> removidos = mongoTemplate.find(new Query(Criteria.where("colecao").is(colecao)
+                        .and("versao").gt(desde)), Remocao.class).stream()
+                .map(Remocao::getDocumentoId)
+                .collect(Collectors.toList());
+        return new AlteracoesDTO<>(false, alterados, removidos);
+    }
+
+    private AlteracoesDTO<ReservaResponseDTO> reservas(Long desde, long versao, Map<String, Long> horizontes) {
+        if (precisaCompleto(desde, versao, horizontes.get(mongoTemplate.getCollectionName(Reserva.class)))) {
+            List<ReservaResponseDTO> ativas = mongoTemplate.find(new Query(Criteria.where("dataDevolucao").is(null)), Reserva.class)
+                    .stream()
+                    .map(ReservaService::convertToResponseDTO)
+                    .collect(Collectors.toList());
+            return new AlteracoesDTO<>(true, ativas, List.of());
+        }
+
+        // Uma reserva devolvida deixa de ser ativa: para o terminal, é uma remoção
+        List<ReservaResponseDTO> ativas = new ArrayList<>();
+        List<String> encerradas = new ArrayList<>();
+        for (Reserva reserva : mongoTemplate.find(new Query(Criteria.where("versao").gt(desde)), Reserva.class)) {
+            if (reserva.getDataDevolucao() == null) {
+                ativas.add(ReservaService.convertToResponseDTO(reserva));
+            } else {
+                encerradas.add(reserva.getId());
+            }
+        }
+        return new AlteracoesDTO<>(false, ativas, encerradas);
+    }
+
+    // Documentos anteriores à sincronização incremental não têm versão: só a carga completa os traz
+    private static boolean precisaCompleto(Long desde, long versao, Long horizonte) {
+        return desde == null || desde <= 0 || desde > versao || (horizonte != null && desde < horizonte);
+    }
+
+    private Map<String, Long> horizontes() {
+        Map<String, Long> horizontes = new HashMap<>();
+        mongoTemplate.find(new Query(Criteria.where("_id").regex("^" + HORIZONTE)), Document.class, ContadorVersoes.COLECAO)
+                .forEach(documento -> horizontes.put(documento.getString("_id").substring(HORIZONTE.length()),
+                        documento.get("valor", Number.class).longValue()));
+        return horizontes;
+    }
+
+    private void avancarHorizonte(String colecao, long versao) {
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(HORIZONTE + colecao)),
+                new Update().max("valor", versao), ContadorVersoes.COLECAO);
+    }
+}
@@ -1,8 +1,13 @@
 package com.gilbertomorales.portaria.service;
 
+import com.gilbertomorales.portaria.config.CacheConfig;
+import com.gilbertomorales.portaria.dto.UsuarioResumoDTO;
 import com.gilbertomorales.portaria.model.User;
 import com.gilbertomorales.portaria.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -13,19 +18,32 @@ import java.util.Optional;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final VersaoCadastrosService versaoCadastrosService;
+    private final BuscaService buscaService;
+    private final PropagacaoNomesService propagacaoNomesService;
+    private final SincronizacaoService sincronizacaoService;
 
     public List<User> findAll() {
         return userRepository.findAll();
     }
 
+    public List<UsuarioResumoDTO> findResumo() {
+        return userRepository.findResumoBy(Sort.by("nome"));
+    }
+
     public Optional<User> findById(String id) {
         return userRepository.findById(id);
     }
 
+    /**
+     * Leitura de crachá: resultado mantido em cache, já que usuários quase nunca mudam
+     */
+    @Cacheable(cacheNames = CacheConfig.USUARIOS_POR_MATRICULA, unless = "#result == null")
     public Optional<User> findByMatricula(String matricula) {
         return userRepository.findByMatricula(matricula);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.USUARIOS_POR_MATRICULA, key = "#user.matricula")
     public User save(User user) {
         if (userRepository.existsByMatricula(user.getMatricula())) {
             throw new RuntimeException("Já existe um usuário com esta matrícula");
@@ -33,9 +51,14 @@ public class UserService {
         if (userRepository.existsByEmail(user.getEmail())) {
             throw new RuntimeException("Já existe um usuário com este email");
         }
-        return userRepository.save(user);
+        User salvo = userRepository.save(user);
+        versaoCadastrosService.usuariosAlterados();
+        buscaService.usuarioSalvo(salvo);
+        return salvo;
     }
 
+    // A matrícula pode mudar na atualização, então a chave antiga também precisa sair do cache
+    @CacheEvict(cacheNames = CacheConfig.USUARIOS_POR_MATRICULA, allEntries = true)
     public User update(String id, User user) {
         User existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
@@ -53,10 +76,18 @@ public class UserService {
         }
 
         user.setId(id);
-        return userRepository.save(user);
+        User atualizado = userRepository.save(user);
+        versaoCadastrosService.usuariosAlterados();
+        buscaService.usuarioSalvo(atualizado);
+        propagacaoNomesService.usuarioAlterado(existingUser, atualizado);
+        return atualizado;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.USUARIOS_POR_MATRICULA, allEntries = true)
     public void deleteById(String id) {
         userRepository.deleteById(id);
+        versaoCadastrosService.usuariosAlterados();
+        buscaService.usuarioRemovido(id);
+        sincronizacaoService.registrarRemocao(User.class, id);
     }
 }
@@ -0,0 +1,38 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.event.ItemDisponibilidadeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versão das listas de itens e usuários, usada como ETag dos endpoints de resumo.
+ * Toda escrita feita pela aplicação incrementa a versão correspondente; o prefixo gerado na
+ * inicialização invalida as ETags emitidas antes de um reinício.
+ */
+@Service
+public class VersaoCadastrosService {
+
+    private final String inicializacao = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong versaoItens = new AtomicLong();
+    private final AtomicLong versaoUsuarios = new AtomicLong();
+
+    public String etagItens() {
+        return "itens-" + inicializacao + "-" + versaoItens.get();
+    }
+
+    public String etagUsuarios() {
+        return "usuarios-" + inicializacao + "-" + versaoUsuarios.get();
+    }
+
+    // Cobre cadastro, edição, reserva e devolução, que já publicam a nova disponibilidade do item
+    @EventListener(ItemDisponibilidadeEvent.class)
+    public void itensAlterados() {
+        versaoItens.incrementAndGet();
+    }
+
+    public void usuariosAlterados() {
+        versaoUsuarios.incrementAndGet();
+    }
+}
@@ -0,0 +1,213 @@
+package com.gilbertomorales.portaria.carga;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Teste de carga dos endpoints de crachá ({@code /api/portaria/cracha/**}) contra uma instância já
+ * rodando. Mede vazão e latência (p50/p99) por endpoint, para comparar os modos de execução:
+ * <pre>
+ * java -jar target/portaria-*.jar                                               # threads de plataforma
+ * java -jar target/portaria-*.jar --spring.profiles.active=threads-virtuais     # threads virtuais (Java 21+)
+ * mvn -Pcarga verify -Dcarga.rotulo=plataforma -Dcarga.itens=id1,id2,...
+ * </pre>
+ * Cada usuário simulado lê o crachá e as reservas ativas; os que recebem um item da lista
+ * {@code carga.itens} também fazem o ciclo completo de reserva, retirada e devolução.
+ */
+public class CargaCracha {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpClient cliente = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String url = System.getProperty("carga.url", "http://localhost:8080/api/portaria");
+    private final String rotulo = System.getProperty("carga.rotulo", "sem rótulo");
+    private final int usuarios = Integer.getInteger("carga.usuarios", 200);
+    private final Duration aquecimento = Duration.ofSeconds(Integer.getInteger("carga.aquecimento", 10));
+    private final Duration duracao = Duration.ofSeconds(Integer.getInteger("carga.duracao", 60));
+    private final List<String> matriculas = lista(System.getProperty("carga.matriculas", "111"));
+    private final List<String> itens = lista(System.getProperty("carga.itens", ""));
+
+    public static void main(String[] args) throws InterruptedException {
+        new CargaCracha().executar();
+    }
+
+    private void executar() throws InterruptedException {
+        System.out.printf("Carga '%s': %d usuários, %ds de aquecimento, %ds de medição, %d itens em ciclo%n",
+                rotulo, usuarios, aquecimento.toSeconds(), duracao.toSeconds(), Math.min(itens.size(), usuarios));
+
+        long inicioMedicao = System.nanoTime() + aquecimento.toNanos();
+        long fim = inicioMedicao + duracao.toNanos();
+
+        List<Medicoes> porUsuario = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(usuarios);
+        CountDownLatch concluidos = new CountDownLatch(usuarios);
+
+        for (int i = 0; i < usuarios; i++) {
+            Medicoes medicoes = new Medicoes(inicioMedicao);
+            porUsuario.add(medicoes);
+            String matricula = matriculas.get(i % matriculas.size());
+            String item = i < itens.size() ? itens.get(i) : null;
+
+            executor.execute(() -> {
+                try {
+                    while (System.nanoTime() < fim) {
+                        iteracao(matricula, item, medicoes);
+                    }
+                } finally {
+                    concluidos.countDown();
+                }
+            });
+        }
+
+        concluidos.await();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        relatorio(porUsuario);
+    }
+
+    private void iteracao(String matricula, String item, Medicoes medicoes) {
+        chamar("GET /cracha/{m}", "GET", "/cracha/" + matricula, medicoes);
+        chamar("GET /cracha/{m}/reservas-ativas", "GET", "/cracha/" + matricula + "/reservas-ativas", medicoes);
+
+        if (item == null) {
+            return;
+        }
+        String reserva = chamar("POST /cracha/{m}/reservar", "POST",
+                "/cracha/" + matricula + "/reservar/" + item, medicoes);
+        String reservaId = extrairId(reserva);
+        if (reservaId == null) {
+            return;
+        }
+        chamar("POST /cracha/{m}/retirar", "POST", "/cracha/" + matricula + "/retirar/" + reservaId, medicoes);
+        chamar("POST /cracha/{m}/devolver", "POST", "/cracha/" + matricula + "/devolver/" + reservaId, medicoes);
+    }
+
+    private String chamar(String endpoint, String metodo, String caminho, Medicoes medicoes) {
+        HttpRequest requisicao = HttpRequest.newBuilder(URI.create(url + caminho))
+                .timeout(Duration.ofSeconds(30))
+                .method(metodo, HttpRequest.BodyPublishers.noBody())
+                .build();
+
+        long inicio = System.nanoTime();
+        try {
+            HttpResponse<String> resposta = cliente.send(requisicao, HttpResponse.BodyHandlers.ofString());
+            medicoes.registrar(endpoint, inicio, System.nanoTime(), resposta.statusCode());
+            return resposta.statusCode() < 400 ? resposta.body() : null;
+        } catch (Exception e) {
+            medicoes.registrar(endpoint, inicio, System.nanoTime(), 0);
+            return null;
+        }
+    }
+
+    private static String extrairId(String corpo) {
+        if (corpo == null) {
+            return null;
+        }
+        try {
+            return JSON.readTree(corpo).path("id").asText(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private void relatorio(List<Medicoes> porUsuario) {
+        Map<String, Resultado> resultados = new LinkedHashMap<>();
+        porUsuario.forEach(medicoes -> medicoes.resultados.forEach((endpoint, resultado) ->
+                resultados.computeIfAbsent(endpoint, e -> new Resultado()).somar(resultado)));
+
+        double segundos = duracao.toMillis() / 1000.0;
+        Resultado total = new Resultado();
+
+        System.out.printf("%n%-34s %10s %8s %10s %10s %9s %9s %9s%n",
+                "endpoint", "requisições", "erros", "recusadas", "req/s", "p50 ms", "p99 ms", "máx ms");
+        resultados.forEach((endpoint, resultado) -> {
+            imprimir(endpoint, resultado, segundos);
+            total.somar(resultado);
+        });
+        imprimir("total", total, segundos);
+    }
+
+    private static void imprimir(String endpoint, Resultado resultado, double segundos) {
+        long[] latencias = resultado.latencias.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(latencias);
+        System.out.printf("%-34s %10d %8d %10d %10.1f %9.1f %9.1f %9.1f%n",
+                endpoint, latencias.length, resultado.erros, resultado.recusadas, latencias.length / segundos,
+                percentil(latencias, 0.50), percentil(latencias, 0.99),
+                latencias.length == 0 ? 0 : latencias[latencias.length - 1] / 1e6);
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int indice = (int) Math.ceil(p * ordenadas.length) - 1;
+        return ordenadas[Math.max(indice, 0)] / 1e6;
+    }
+
+    private static List<String> lista(String valor) {
+        return Arrays.stream(valor.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Medições de um único usuário simulado (sem sincronização); descarta o aquecimento
+     */
+    private static final class Medicoes {
+
+        private final long inicioMedicao;
+        private final Map<String, Resultado> resultados = new LinkedHashMap<>();
+
+        private Medicoes(long inicioMedicao) {
+            this.inicioMedicao = inicioMedicao;
+        }
+
+        // status 0: sem resposta (timeout ou conexão recusada)
+        void registrar(String endpoint, long inicio, long fim, int status) {
+            if (inicio < inicioMedicao) {
+                return;
+            }
+            Resultado resultado = resultados.computeIfAbsent(endpoint, e -> new Resultado());
+            resultado.latencias.add(fim - inicio);
+            if (status == 503) {
+                // Recusada pelo controle de admissão: conta à parte dos erros
+                resultado.recusadas++;
+            } else if (status == 0 || status >= 400) {
+                resultado.erros++;
+            }
+        }
+    }
+
+    private static final class Resultado {
+
+        private final List<Long> latencias = new ArrayList<>();
+        private long erros;
+        private long recusadas;
+
+        void somar(Resultado outro) {
+            latencias.addAll(outro.latencias);
+            erros += outro.erros;
+            recusadas += outro.recusadas;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.config.AdmissaoProperties;
+import com.gilbertomorales.portaria.config.ClasseRequisicao;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissaoServiceTest {
+
+    // Alvos extremos: toda resposta passa de 1ns e nenhuma passa de 1h
+    private static final Duration LENTO = Duration.ofNanos(1);
+    private static final Duration RAPIDO = Duration.ofHours(1);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void encerrar() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void limiteCaiComRespostasLentasAteOMinimo() {
+        AdmissaoService admissao = servico(120, classe(10, 2, 20, LENTO, 10, 1.0));
+
+        admitir(admissao, ClasseRequisicao.PORTARIA).liberar();
+
+        assertThat(limite("portaria")).isEqualTo(9.0);
+
+        for (int i = 0; i < 30; i++) {
+            admitir(admissao, ClasseRequisicao.PORTARIA).liberar();
+        }
+
+        assertThat(limite("portaria")).isEqualTo(2.0);
+    }
+
+    @Test
+    void limiteSobeSoEnquantoEstaEmUso() {
+        AdmissaoService admissao = servico(120, classe(4, 1, 5, RAPIDO, 10, 1.0));
+
+        // Uma requisição por vez não chega à metade do limite
+        admitir(admissao, ClasseRequisicao.PORTARIA).liberar();
+
+        assertThat(limite("portaria")).isEqualTo(4.0);
+
+        AdmissaoService.Permissao primeira = admitir(admissao, ClasseRequisicao.PORTARIA);
+        AdmissaoService.Permissao segunda = admitir(admissao, ClasseRequisicao.PORTARIA);
+        primeira.liberar();
+
+        assertThat(limite("portaria")).isEqualTo(4.25);
+
+        segunda.liberar();
+        for (int i = 0; i < 40; i++) {
+            AdmissaoService.Permissao a = admitir(admissao, ClasseRequisicao.PORTARIA);
+            AdmissaoService.Permissao b = admitir(admissao, ClasseRequisicao.PORTARIA);
+            AdmissaoService.Permissao c = admitir(admissao, ClasseRequisicao.PORTARIA);
+            a.liberar();
+            b.liberar();
+            c.liberar();
+        }
+
+        assertThat(limite("portaria")).isEqualTo(5.0);
+    }
+
+    @Test
+    void liberarSemAmostraNaoMexeNoLimite() {
+        AdmissaoService admissao = servico(120, classe(10, 2, 20, LENTO, 10, 1.0));
+
+        AdmissaoService.Permissao permissao = admitir(admissao, ClasseRequisicao.PORTARIA);
+        permissao.liberarSemAmostra();
+        // Liberar de novo não tem efeito
+        permissao.liberar();
+
+        assertThat(limite("portaria")).isEqualTo(10.0);
+        assertThat(registry.get(AdmissaoService.ATIVAS).tag("classe", "portaria").gauge().value()).isZero();
+    }
+
+    @Test
+    void filaCheiaRecusaNaHora() {
+        AdmissaoService admissao = servico(120, classe(1, 1, 1, RAPIDO, 0, 1.0));
+
+        admitir(admissao, ClasseRequisicao.PORTARIA);
+
+        assertThat(admissao.admitir(ClasseRequisicao.PORTARIA)).isEmpty();
+        assertThat(registry.get(AdmissaoService.RECUSADAS).tags("classe", "portaria", "motivo", "fila_cheia")
+                .counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void vagaLiberadaVaiParaAClasseDeMaiorPrioridade() throws Exception {
+        AdmissaoService admissao = servico(2, classe(10, 1, 10, RAPIDO, 10, 1.0));
+
+        AdmissaoService.Permissao primeira = admitir(admissao, ClasseRequisicao.CADASTROS);
+        admitir(admissao, ClasseRequisicao.CADASTROS);
+
+        // O relatório chega primeiro à fila, mas a portaria tem prioridade
+        CompletableFuture<Optional<AdmissaoService.Permissao>> relatorio = esperarVaga(admissao, ClasseRequisicao.RELATORIOS);
+        aguardarFila("relatorios", 1);
+        CompletableFuture<Optional<AdmissaoService.Permissao>> portaria = esperarVaga(admissao, ClasseRequisicao.PORTARIA);
+        aguardarFila("portaria", 1);
+
+        primeira.liberar();
+
+        assertThat(portaria.get(5, TimeUnit.SECONDS)).isPresent();
+        assertThat(relatorio).isNotDone();
+
+        portaria.get().get().liberar();
+
+        assertThat(relatorio.get(5, TimeUnit.SECONDS)).isPresent();
+    }
+
+    @Test
+    void esperaEsgotadaRecusa() {
+        AdmissaoService admissao = servico(120, new AdmissaoProperties.Classe(1, 1, 1, RAPIDO, 10,
+                Duration.ofMillis(50), 1.0, Duration.ofSeconds(1)));
+
+        admitir(admissao, ClasseRequisicao.PORTARIA);
+
+        assertThat(admissao.admitir(ClasseRequisicao.PORTARIA)).isEmpty();
+        assertThat(registry.get(AdmissaoService.RECUSADAS).tags("classe", "portaria", "motivo", "espera_esgotada")
+                .counter().count()).isEqualTo(1.0);
+        assertThat(registry.get(AdmissaoService.FILA).tag("classe", "portaria").gauge().value()).isZero();
+    }
+
+    private AdmissaoService servico(int limiteGlobal, AdmissaoProperties.Classe classe) {
+        AdmissaoService admissao = new AdmissaoService(new AdmissaoProperties(true, limiteGlobal, Map.of(
+                ClasseRequisicao.PORTARIA, classe,
+                ClasseRequisicao.CADASTROS, classe,
+                ClasseRequisicao.RELATORIOS, classe)), registry);
+        admissao.bindTo(registry);
+        return admissao;
+    }
+
+    private static AdmissaoProperties.Classe classe(int inicial, int minimo, int maximo, Duration alvo, int fila,
+                                                    double fracaoGlobal) {
+        return new AdmissaoProperties.Classe(inicial, minimo, maximo, alvo, fila, Duration.ofSeconds(5),
+                fracaoGlobal, Duration.ofSeconds(1));
+    }
+
+    private static AdmissaoService.Permissao admitir(AdmissaoService admissao, ClasseRequisicao classe) {
+        Optional<AdmissaoService.Permissao> permissao = admissao.admitir(classe);
+        assertThat(permissao).isPresent();
+        return permissao.get();
+    }
+
+    private CompletableFuture<Optional<AdmissaoService.Permissao>> esperarVaga(AdmissaoService admissao,
+                                                                               ClasseRequisicao classe) {
+        return CompletableFuture.supplyAsync(() -> admissao.admitir(classe), executor);
+    }
+
+    private void aguardarFila(String classe, int tamanho) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get(AdmissaoService.FILA).tag("classe", classe).gauge().value() < tamanho) {
+            assertThat(System.nanoTime()).isLessThan(limite);
+            Thread.sleep(5);
+        }
+    }
+
+    private double limite(String classe) {
+        return registry.get(AdmissaoService.LIMITE).tag("classe", classe).gauge().value();
+    }
+}
@@ -0,0 +1,103 @@
+package com.gilbertomorales.portaria.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gilbertomorales.portaria.model.Item;
+import com.gilbertomorales.portaria.repository.ContadorVersoes;
+import com.gilbertomorales.portaria.repository.ItemRepository;
+import com.gilbertomorales.portaria.repository.UserRepository;
+import com.mongodb.bulk.BulkWriteResult;
+import jakarta.validation.Validation;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ImportacaoExportacaoServiceTest {
+
+    private static final String ITENS = """
+            {"nome": "Sala 101", "tipo": "CHAVE", "disponivel": true, "localizacao": "Bloco A"}
+            {"nome": "Projetor", "tipo": "CONTROLE", "disponivel": true, "localizacao": "Bloco B"}
+            """;
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final BulkOperations bulk = mock(BulkOperations.class);
+    private final ContadorVersoes contadorVersoes = new ContadorVersoes(mongoTemplate);
+    private final List<Item> inseridos = new ArrayList<>();
+
+    private final ImportacaoExportacaoService servico = new ImportacaoExportacaoService(
+            mock(UserRepository.class), mock(ItemRepository.class), mongoTemplate, new ObjectMapper(),
+            Validation.buildDefaultValidatorFactory().getValidator(), mock(VersaoCadastrosService.class),
+            mock(EstatisticasService.class), mock(BuscaService.class), mock(DisponibilidadeService.class),
+            contadorVersoes);
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(contadorVersoes, "tamanhoBloco", 1000);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq(ContadorVersoes.COLECAO))).thenReturn(new Document("valor", 1000L));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Item.class)).thenReturn(bulk);
+        // Como o VersaoCallback: cada documento do lote recebe uma versão reservada
+        when(bulk.insert(anyList())).thenAnswer(invocacao -> {
+            List<?> documentos = invocacao.getArgument(0);
+            documentos.forEach(documento -> {
+                Item item = (Item) documento;
+                item.setVersao(contadorVersoes.proxima());
+                inseridos.add(item);
+            });
+            return bulk;
+        });
+    }
+
+    @Test
+    void importacaoLiberaAsVersoesDoLote() {
+        BulkWriteResult resultado = mock(BulkWriteResult.class);
+        when(resultado.getInsertedCount()).thenReturn(2);
+        when(bulk.execute()).thenReturn(resultado);
+        long antes = contadorVersoes.versaoConsistente();
+
+        assertThat(servico.importarItens(ndjson(), ImportacaoExportacaoService.Formato.NDJSON).importados()).isEqualTo(2);
+
+        assertThat(inseridos).hasSize(2);
+        assertThat(contadorVersoes.versaoConsistente()).isEqualTo(antes + 2);
+
+        // Escritas seguintes continuam avançando a versão consistente
+        long versao = contadorVersoes.escrever(v -> v);
+        assertThat(contadorVersoes.versaoConsistente()).isEqualTo(versao);
+    }
+
+    @Test
+    void loteQueFalhaTambemLiberaAsVersoes() {
+        when(bulk.execute()).thenThrow(new DataAccessResourceFailureException("banco indisponível"));
+        long antes = contadorVersoes.versaoConsistente();
+
+        assertThatThrownBy(() -> servico.importarItens(ndjson(), ImportacaoExportacaoService.Formato.NDJSON))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+
+        assertThat(inseridos).hasSize(2);
+        assertThat(contadorVersoes.versaoConsistente()).isEqualTo(antes + 2);
+    }
+
+    private static InputStream ndjson() {
+        return new ByteArrayInputStream(ITENS.getBytes(StandardCharsets.UTF_8));
+    }
+}
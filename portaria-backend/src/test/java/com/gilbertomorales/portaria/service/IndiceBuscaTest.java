@@ -0,0 +1,130 @@
+package com.gilbertomorales.portaria.service;
+
+import com.gilbertomorales.portaria.model.Item;
+import com.gilbertomorales.portaria.model.enums.TipoItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndiceBuscaTest {
+
+    private final IndiceBusca<Item> indice = new IndiceBusca<>(Item::getId, Item::getNome,
+            item -> Arrays.asList(item.getNome(), item.getLocalizacao()), 2);
+
+    @Test
+    void buscaSemAcentosNemMaiusculas() {
+        indice.carregar(() -> List.of(item("1", "Laboratório de Química", "Prédio 1")));
+
+        assertThat(nomes("laboratorio quimica")).containsExactly("Laboratório de Química");
+        assertThat(nomes("PREDIO")).containsExactly("Laboratório de Química");
+    }
+
+    @Test
+    void buscaPorPrefixoEmOrdemAlfabetica() {
+        indice.carregar(() -> List.of(
+                item("1", "Sala 202", "Bloco B"),
+                item("2", "Auditório", "Bloco A"),
+                item("3", "Sala 101", "Bloco A")));
+
+        assertThat(nomes("sal")).containsExactly("Sala 101", "Sala 202");
+        assertThat(nomes("bloco a")).containsExactly("Auditório", "Sala 101");
+        assertThat(nomes("sala 3")).isEmpty();
+    }
+
+    @Test
+    void aceitaUmErroDeDigitacaoSoSemResultadoExato() {
+        indice.carregar(() -> List.of(item("1", "Projetor", "Sala 1"), item("2", "Protetor de tela", "Sala 2")));
+
+        assertThat(nomes("porjetor")).isEmpty();
+        assertThat(nomes("pxojxtor")).isEmpty();
+        assertThat(nomes("prjetor")).containsExactly("Projetor");
+        assertThat(nomes("projetor")).containsExactly("Projetor");
+        // "pro" é início exato dos dois termos: não entra aproximação
+        assertThat(nomes("pro")).containsExactly("Projetor", "Protetor de tela");
+        // Palavras curtas não aceitam erro
+        assertThat(nomes("px")).isEmpty();
+    }
+
+    @Test
+    void alteracoesValemSobreABase() {
+        indice.carregar(() -> List.of(item("1", "Sala 101", "Bloco A"), item("2", "Sala 202", "Bloco B")));
+
+        indice.atualizar(item("1", "Auditório", "Bloco A"));
+        indice.atualizar(item("3", "Sala 303", "Bloco C"));
+
+        assertThat(nomes("sala")).containsExactly("Sala 202", "Sala 303");
+        assertThat(nomes("bloco")).containsExactly("Auditório", "Sala 202", "Sala 303");
+        assertThat(indice.buscarPorId("1").getNome()).isEqualTo("Auditório");
+        assertThat(indice.tamanho()).isEqualTo(2);
+
+        // Passou do limite da camada de alterações: a base é refeita com elas
+        indice.atualizar(item("4", "Sala 404", "Bloco D"));
+
+        assertThat(indice.tamanho()).isEqualTo(4);
+        assertThat(nomes("sala")).containsExactly("Sala 202", "Sala 303", "Sala 404");
+    }
+
+    @Test
+    void removidosSaemDaBuscaEDaBase() {
+        indice.carregar(() -> List.of(item("1", "Sala 101", "Bloco A"), item("2", "Sala 202", "Bloco B")));
+
+        indice.remover("1");
+
+        assertThat(nomes("sala")).containsExactly("Sala 202");
+        assertThat(indice.buscarPorId("1")).isNull();
+
+        indice.atualizar(item("3", "Sala 303", "Bloco C"));
+        indice.atualizar(item("4", "Sala 404", "Bloco D"));
+
+        assertThat(indice.tamanho()).isEqualTo(3);
+        assertThat(nomes("sala")).containsExactly("Sala 202", "Sala 303", "Sala 404");
+    }
+
+    @Test
+    void cargaNaoDesfazAlteracoesFeitasDuranteALeitura() {
+        indice.carregar(() -> List.of(item("1", "Sala 101", "Bloco A"), item("2", "Sala 202", "Bloco B")));
+
+        indice.carregar(() -> {
+            // Leitura feita antes das alterações abaixo chegarem ao índice
+            List<Item> lidos = List.of(item("1", "Sala 101", "Bloco A"), item("2", "Sala 202", "Bloco B"));
+            indice.atualizar(item("1", "Auditório", "Bloco A"));
+            indice.remover("2");
+            return lidos;
+        });
+
+        assertThat(nomes("sala")).isEmpty();
+        assertThat(nomes("auditorio")).containsExactly("Auditório");
+
+        // Alterações anteriores à leitura já estão nela e não são reaplicadas
+        indice.carregar(() -> List.of(item("1", "Sala 101", "Bloco A")));
+
+        assertThat(nomes("sala")).containsExactly("Sala 101");
+    }
+
+    @Test
+    void cargaQueFalhaMantemOIndiceAtual() {
+        indice.carregar(() -> List.of(item("1", "Sala 101", "Bloco A")));
+
+        try {
+            indice.carregar(() -> {
+                throw new IllegalStateException("banco indisponível");
+            });
+        } catch (IllegalStateException e) {
+            // esperado
+        }
+        indice.atualizar(item("2", "Sala 202", "Bloco B"));
+
+        assertThat(nomes("sala")).containsExactly("Sala 101", "Sala 202");
+    }
+
+    private List<String> nomes(String consulta) {
+        return indice.buscar(consulta, 10).stream().map(Item::getNome).toList();
+    }
+
+    private static Item item(String id, String nome, String localizacao) {
+        return new Item(id, nome, TipoItem.CHAVE, true, localizacao, null);
+    }
+}
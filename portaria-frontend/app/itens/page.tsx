@@ -37,6 +37,7 @@ import {
   Radio,
   Box,
   MapPin,
+  Search,
 } from "lucide-react";
 
 export default function ItensPage() {
@@ -47,6 +48,8 @@ export default function ItensPage() {
   const [isDialogOpen, setIsDialogOpen] = useState(false);
   const [editingItem, setEditingItem] = useState<Item | null>(null);
   const [deletingItemId, setDeletingItemId] = useState<string | null>(null);
+  const [busca, setBusca] = useState("");
+  const [resultadosBusca, setResultadosBusca] = useState<Item[] | null>(null);
 
   const [formData, setFormData] = useState({
     nome: "",
@@ -59,6 +62,21 @@ export default function ItensPage() {
     fetchItens();
   }, []);
 
+  // Busca no servidor (prefixo, sem acentos) com espera curta entre as teclas
+  useEffect(() => {
+    if (!busca.trim()) {
+      setResultadosBusca(null);
+      return;
+    }
+    const timer = setTimeout(() => {
+      api
+        .buscarItens(busca)
+        .then(setResultadosBusca)
+        .catch((error) => console.error("Erro na busca:", error));
+    }, 250);
+    return () => clearTimeout(timer);
+  }, [busca, itens]);
+
   useEffect(() => {
     if (error || success) {
       const timer = setTimeout(() => {
@@ -69,6 +87,8 @@ export default function ItensPage() {
     }
   }, [error, success]);
 
+  const itensExibidos = resultadosBusca ?? itens;
+
   const fetchItens = async () => {
     try {
       setLoading(true);
@@ -395,8 +415,24 @@ export default function ItensPage() {
           </Card>
         </div>
 
+        <div className="relative mb-6">
+          <Search className="absolute left-3 top-1/2 -translate-y-1/2 h-4 w-4 text-gray-400" />
+          <Input
+            value={busca}
+            onChange={(e) => setBusca(e.target.value)}
+            placeholder="Buscar por nome ou localização"
+            className="pl-9 bg-white"
+          />
+        </div>
+
+        {resultadosBusca !== null && resultadosBusca.length === 0 && (
+          <p className="text-center text-gray-600 mb-6">
+            Nenhum item corresponde a "{busca}"
+          </p>
+        )}
+
         <div className="grid grid-cols-1 md:grid-cols-2 lg:grid-cols-3 gap-6">
-          {itens.map((item) => (
+          {itensExibidos.map((item) => (
             <Card
               key={item.id}
               className={`bg-white shadow-lg hover:shadow-xl transition-all duration-200 border-0 ${
@@ -41,6 +41,27 @@ export default function Dashboard() {
     };
 
     fetchDashboard();
+
+    // Recarrega os contadores quando algo muda, agrupando rajadas de eventos
+    let agendado: ReturnType<typeof setTimeout> | null = null;
+    const agendarAtualizacao = () => {
+      if (agendado) return;
+      agendado = setTimeout(() => {
+        agendado = null;
+        fetchDashboard();
+      }, 1000);
+    };
+
+    const encerrar = api.assinarEventos({
+      onItem: agendarAtualizacao,
+      onReserva: agendarAtualizacao,
+      onSincronizar: agendarAtualizacao,
+    });
+
+    return () => {
+      encerrar();
+      if (agendado) clearTimeout(agendado);
+    };
   }, []);
 
   if (loading) {
@@ -56,6 +56,50 @@ export default function PortariaPage() {
     }
   }, [error, success]);
 
+  // Mantém as listas do usuário atual em dia com o que acontece nos outros terminais
+  useEffect(() => {
+    if (!usuario) return;
+    const matriculaAtual = usuario.matricula;
+
+    const recarregar = async () => {
+      try {
+        const [reservas, itens] = await Promise.all([
+          api.consultarReservasAtivasPorCracha(matriculaAtual),
+          api.getAvailableItems(),
+        ]);
+        setReservasAtivas(reservas);
+        setItensDisponiveis(itens);
+      } catch (error) {
+        console.error("Erro ao sincronizar:", error);
+      }
+    };
+
+    return api.assinarEventos({
+      onItem: ({ itemId, disponivel, versao, item }) => {
+        setItensDisponiveis((atuais) => {
+          const atual = atuais.find((i) => i.id === itemId);
+          // Evento mais antigo que o item já na lista (chegou fora de ordem)
+          if (atual?.versao != null && versao != null && atual.versao > versao) {
+            return atuais;
+          }
+          const outros = atuais.filter((i) => i.id !== itemId);
+          return disponivel ? [...outros, item] : outros;
+        });
+      },
+      onReserva: (reserva) => {
+        if (reserva.matriculaUsuario !== matriculaAtual) return;
+        setReservasAtivas((atuais) => {
+          const outras = atuais.filter((r) => r.id !== reserva.id);
+          if (reserva.status === "DEVOLVIDO") return outras;
+          return atuais.some((r) => r.id === reserva.id)
+            ? atuais.map((r) => (r.id === reserva.id ? reserva : r))
+            : [...atuais, reserva];
+        });
+      },
+      onSincronizar: recarregar,
+    });
+  }, [usuario]);
+
   const resetToSearch = () => {
     setMatricula("");
     setUsuario(null);
@@ -110,12 +154,11 @@ export default function PortariaPage() {
       const reserva = await api.reservarPorCracha(usuario.matricula, itemId);
       setSuccess(`Reserva realizada: ${reserva.nomeItem}`);
 
-      const reservas = await api.consultarReservasAtivasPorCracha(
-        usuario.matricula
+      // As listas são atualizadas pelos eventos; aqui só aplicamos o resultado imediato
+      setReservasAtivas((atuais) =>
+        atuais.some((r) => r.id === reserva.id) ? atuais : [...atuais, reserva]
       );
-      const itens = await api.getAvailableItems();
-      setReservasAtivas(reservas);
-      setItensDisponiveis(itens);
+      setItensDisponiveis((atuais) => atuais.filter((i) => i.id !== itemId));
     } catch (error) {
       setError("Erro ao fazer reserva");
     } finally {
@@ -134,10 +177,9 @@ export default function PortariaPage() {
       const reserva = await api.retirarPorCracha(usuario.matricula, reservaId);
       setSuccess(`Retirada registrada: ${reserva.nomeItem}`);
 
-      const reservas = await api.consultarReservasAtivasPorCracha(
-        usuario.matricula
+      setReservasAtivas((atuais) =>
+        atuais.map((r) => (r.id === reserva.id ? reserva : r))
       );
-      setReservasAtivas(reservas);
     } catch (error) {
       setError("Erro ao registrar retirada");
     } finally {
@@ -156,12 +198,8 @@ export default function PortariaPage() {
       const reserva = await api.devolverPorCracha(usuario.matricula, reservaId);
       setSuccess(`Devolução registrada: ${reserva.nomeItem}`);
 
-      const reservas = await api.consultarReservasAtivasPorCracha(
-        usuario.matricula
-      );
-      const itens = await api.getAvailableItems();
-      setReservasAtivas(reservas);
-      setItensDisponiveis(itens);
+      // O item volta para a lista de disponíveis pelo evento de disponibilidade
+      setReservasAtivas((atuais) => atuais.filter((r) => r.id !== reserva.id));
     } catch (error) {
       setError("Erro ao registrar devolução");
     } finally {
@@ -344,6 +382,18 @@ export default function PortariaPage() {
                               )}
                             </p>
                           )}
+                          {reserva.status === "RETIRADO" && reserva.prazoDevolucao && (
+                            <p
+                              className={`text-sm mb-3 ${
+                                reserva.atrasada ? "text-red-600 font-medium" : "text-gray-600"
+                              }`}
+                            >
+                              {reserva.atrasada ? "Atrasada desde: " : "Devolver até: "}
+                              {new Date(reserva.prazoDevolucao).toLocaleString(
+                                "pt-BR"
+                              )}
+                            </p>
+                          )}
                           <div className="flex gap-2">
                             {reserva.status === "RESERVADO" && (
                               <Button
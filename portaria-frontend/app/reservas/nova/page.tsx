@@ -17,14 +17,14 @@ import {
 } from "@/components/ui/select";
 import { Label } from "@/components/ui/label";
 import { Header } from "@/components/header";
-import { api, type Item, type User } from "@/lib/api";
+import { api, type Item, type UserResumo } from "@/lib/api";
 import { Plus, CheckCircle, XCircle, UserIcon, Package } from "lucide-react";
 import { useRouter } from "next/navigation";
 
 export default function NovaReservaPage() {
   const router = useRouter();
   const [itensDisponiveis, setItensDisponiveis] = useState<Item[]>([]);
-  const [usuarios, setUsuarios] = useState<User[]>([]);
+  const [usuarios, setUsuarios] = useState<UserResumo[]>([]);
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState("");
   const [success, setSuccess] = useState("");
@@ -53,7 +53,7 @@ export default function NovaReservaPage() {
       setLoading(true);
       const [itens, users] = await Promise.all([
         api.getAvailableItems(),
-        api.getUsers(),
+        api.getUsersResumo(),
       ]);
       setItensDisponiveis(itens);
       setUsuarios(users);
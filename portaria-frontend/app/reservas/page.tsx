@@ -3,6 +3,7 @@
 import { useState, useEffect } from "react";
 import { Card, CardContent, CardHeader, CardTitle } from "@/components/ui/card";
 import { Badge } from "@/components/ui/badge";
+import { Button } from "@/components/ui/button";
 import { Alert, AlertDescription } from "@/components/ui/alert";
 import { Header } from "@/components/header";
 import { api, type ReservaResponse } from "@/lib/api";
@@ -15,9 +16,16 @@ import {
   Package,
 } from "lucide-react";
 
+// Devolvidas carregadas por vez no histórico
+const TAMANHO_PAGINA_HISTORICO = 50;
+
 export default function ReservasPage() {
-  const [reservas, setReservas] = useState<ReservaResponse[]>([]);
+  const [ativas, setAtivas] = useState<ReservaResponse[]>([]);
+  const [historico, setHistorico] = useState<ReservaResponse[]>([]);
+  const [cursorHistorico, setCursorHistorico] = useState<string | null>(null);
+  const [totalReservas, setTotalReservas] = useState(0);
   const [loading, setLoading] = useState(true);
+  const [carregandoHistorico, setCarregandoHistorico] = useState(false);
   const [error, setError] = useState("");
   const [success, setSuccess] = useState("");
 
@@ -35,27 +43,29 @@ export default function ReservasPage() {
     }
   }, [error, success]);
 
+  // Reservas em aberto completas; do histórico só a primeira página, o resto sob demanda
   const fetchReservas = async () => {
     try {
       setLoading(true);
-      const data = await api.getReservas();
-
-      const sortedData = [...data].sort((a, b) => {
-        if (a.status === "DEVOLVIDO" && b.status === "DEVOLVIDO") {
-          return (
-            new Date(b.dataDevolucao!).getTime() -
-            new Date(a.dataDevolucao!).getTime()
-          );
-        }
-        if (a.status === "DEVOLVIDO") return 1;
-        if (b.status === "DEVOLVIDO") return -1;
-
-        return (
-          new Date(b.dataReserva).getTime() - new Date(a.dataReserva).getTime()
-        );
-      });
+      const [abertas, pagina, dashboard] = await Promise.all([
+        api.getReservasAtivas(),
+        api.getReservasPagina({
+          status: "DEVOLVIDO",
+          tamanho: TAMANHO_PAGINA_HISTORICO,
+        }),
+        api.getDashboard(),
+      ]);
 
-      setReservas(sortedData);
+      setAtivas(
+        [...abertas].sort(
+          (a, b) =>
+            new Date(b.dataReserva).getTime() -
+            new Date(a.dataReserva).getTime()
+        )
+      );
+      setHistorico(pagina.conteudo);
+      setCursorHistorico(pagina.temMais ? pagina.proximoCursor : null);
+      setTotalReservas(dashboard.totalReservas);
     } catch (error) {
       setError("Erro ao carregar reservas");
     } finally {
@@ -63,6 +73,24 @@ export default function ReservasPage() {
     }
   };
 
+  const carregarMaisHistorico = async () => {
+    if (!cursorHistorico) return;
+    try {
+      setCarregandoHistorico(true);
+      const pagina = await api.getReservasPagina({
+        status: "DEVOLVIDO",
+        cursor: cursorHistorico,
+        tamanho: TAMANHO_PAGINA_HISTORICO,
+      });
+      setHistorico((atual) => [...atual, ...pagina.conteudo]);
+      setCursorHistorico(pagina.temMais ? pagina.proximoCursor : null);
+    } catch (error) {
+      setError("Erro ao carregar o histórico de reservas");
+    } finally {
+      setCarregandoHistorico(false);
+    }
+  };
+
   const getStatusColor = (status: string) => {
     switch (status) {
       case "RESERVADO":
@@ -99,20 +127,21 @@ export default function ReservasPage() {
     });
   };
 
-  const getReservasAtivas = () =>
-    reservas.filter((r) => r.status !== "DEVOLVIDO");
+  const getReservasAtivas = () => ativas;
 
+  // A página vem por data de reserva; dentro do que já foi carregado, mostra pela devolução
   const getReservasFinalizadas = () => {
-    return reservas
-      .filter((r) => r.status === "DEVOLVIDO")
-      .sort(
-        (a, b) =>
-          new Date(b.dataDevolucao!).getTime() -
-          new Date(a.dataDevolucao!).getTime()
-      );
+    return [...historico].sort(
+      (a, b) =>
+        new Date(b.dataDevolucao!).getTime() -
+        new Date(a.dataDevolucao!).getTime()
+    );
   };
 
-  if (loading && reservas.length === 0) {
+  // Total e devolvidas vêm dos contadores do servidor: o histórico é carregado aos poucos
+  const totalDevolvidas = Math.max(0, totalReservas - ativas.length);
+
+  if (loading && ativas.length === 0 && historico.length === 0) {
     return (
       <div className="min-h-screen bg-gradient-to-br from-blue-50 to-blue-100">
         <Header />
@@ -164,7 +193,7 @@ export default function ReservasPage() {
                 <div>
                   <p className="text-sm text-gray-600">Total</p>
                   <p className="text-2xl font-bold text-blue-600">
-                    {reservas.length}
+                    {totalReservas}
                   </p>
                 </div>
                 <Calendar className="h-8 w-8 text-blue-600" />
@@ -177,7 +206,7 @@ export default function ReservasPage() {
                 <div>
                   <p className="text-sm text-gray-600">Reservadas</p>
                   <p className="text-2xl font-bold text-yellow-600">
-                    {reservas.filter((r) => r.status === "RESERVADO").length}
+                    {ativas.filter((r) => r.status === "RESERVADO").length}
                   </p>
                 </div>
                 <Clock className="h-8 w-8 text-yellow-600" />
@@ -190,7 +219,7 @@ export default function ReservasPage() {
                 <div>
                   <p className="text-sm text-gray-600">Retiradas</p>
                   <p className="text-2xl font-bold text-blue-600">
-                    {reservas.filter((r) => r.status === "RETIRADO").length}
+                    {ativas.filter((r) => r.status === "RETIRADO").length}
                   </p>
                 </div>
                 <Package className="h-8 w-8 text-blue-600" />
@@ -203,7 +232,7 @@ export default function ReservasPage() {
                 <div>
                   <p className="text-sm text-gray-600">Devolvidas</p>
                   <p className="text-2xl font-bold text-green-600">
-                    {reservas.filter((r) => r.status === "DEVOLVIDO").length}
+                    {totalDevolvidas}
                   </p>
                 </div>
                 <CheckCircle className="h-8 w-8 text-green-600" />
@@ -278,7 +307,7 @@ export default function ReservasPage() {
           <CardHeader>
             <CardTitle className="flex items-center gap-2">
               <CheckCircle className="h-5 w-5 text-green-600" />
-              Histórico de Reservas ({getReservasFinalizadas().length})
+              Histórico de Reservas ({totalDevolvidas})
             </CardTitle>
           </CardHeader>
           <CardContent>
@@ -356,12 +385,23 @@ export default function ReservasPage() {
                     </CardContent>
                   </Card>
                 ))}
+                {cursorHistorico && (
+                  <div className="flex justify-center pt-2">
+                    <Button
+                      variant="outline"
+                      onClick={carregarMaisHistorico}
+                      disabled={carregandoHistorico}
+                    >
+                      {carregandoHistorico ? "Carregando..." : "Carregar mais"}
+                    </Button>
+                  </div>
+                )}
               </div>
             )}
           </CardContent>
         </Card>
 
-        {reservas.length === 0 && (
+        {ativas.length === 0 && historico.length === 0 && (
           <Card className="bg-white shadow-lg">
             <CardContent className="text-center py-12">
               <Calendar className="h-16 w-16 text-gray-400 mx-auto mb-4" />
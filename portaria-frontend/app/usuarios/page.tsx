@@ -38,6 +38,7 @@ import {
   GraduationCap,
   UserCheck,
   Shield,
+  Search,
 } from "lucide-react";
 
 export default function UsuariosPage() {
@@ -48,6 +49,8 @@ export default function UsuariosPage() {
   const [isDialogOpen, setIsDialogOpen] = useState(false);
   const [editingUser, setEditingUser] = useState<User | null>(null);
   const [deletingUserId, setDeletingUserId] = useState<string | null>(null);
+  const [busca, setBusca] = useState("");
+  const [resultadosBusca, setResultadosBusca] = useState<User[] | null>(null);
 
   const [formData, setFormData] = useState({
     nome: "",
@@ -60,6 +63,21 @@ export default function UsuariosPage() {
     fetchUsuarios();
   }, []);
 
+  // Busca no servidor (prefixo, sem acentos) com espera curta entre as teclas
+  useEffect(() => {
+    if (!busca.trim()) {
+      setResultadosBusca(null);
+      return;
+    }
+    const timer = setTimeout(() => {
+      api
+        .buscarUsuarios(busca)
+        .then(setResultadosBusca)
+        .catch((error) => console.error("Erro na busca:", error));
+    }, 250);
+    return () => clearTimeout(timer);
+  }, [busca, usuarios]);
+
   useEffect(() => {
     if (error || success) {
       const timer = setTimeout(() => {
@@ -70,6 +88,8 @@ export default function UsuariosPage() {
     }
   }, [error, success]);
 
+  const usuariosExibidos = resultadosBusca ?? usuarios;
+
   const fetchUsuarios = async () => {
     try {
       setLoading(true);
@@ -390,8 +410,24 @@ export default function UsuariosPage() {
           </Card>
         </div>
 
+        <div className="relative mb-6">
+          <Search className="absolute left-3 top-1/2 -translate-y-1/2 h-4 w-4 text-gray-400" />
+          <Input
+            value={busca}
+            onChange={(e) => setBusca(e.target.value)}
+            placeholder="Buscar por nome, matrícula ou email"
+            className="pl-9 bg-white"
+          />
+        </div>
+
+        {resultadosBusca !== null && resultadosBusca.length === 0 && (
+          <p className="text-center text-gray-600 mb-6">
+            Nenhum usuário corresponde a "{busca}"
+          </p>
+        )}
+
         <div className="grid grid-cols-1 md:grid-cols-2 lg:grid-cols-3 gap-6">
-          {usuarios.map((usuario) => (
+          {usuariosExibidos.map((usuario) => (
             <Card
               key={usuario.id}
               className={`bg-white shadow-lg hover:shadow-xl transition-all duration-200 border-0 ${
@@ -4,6 +4,27 @@ const API_BASE_URL =
   process.env.NEXT_PUBLIC_API_URL ||
   "https://c2c4-200-248-5-130.ngrok-free.app/api";
 
+// crypto.randomUUID só existe em contexto seguro (HTTPS ou localhost); a portaria
+// também roda pelo IP da rede local, então a chave é montada à mão nesse caso
+function gerarChaveIdempotencia(): string {
+  if (typeof crypto !== "undefined" && typeof crypto.randomUUID === "function") {
+    return crypto.randomUUID();
+  }
+  const bytes = new Uint8Array(16);
+  if (typeof crypto !== "undefined" && typeof crypto.getRandomValues === "function") {
+    crypto.getRandomValues(bytes);
+  } else {
+    for (let i = 0; i < bytes.length; i++) {
+      bytes[i] = Math.floor(Math.random() * 256);
+    }
+  }
+  // Versão 4 e variante RFC 4122, como o randomUUID
+  bytes[6] = (bytes[6] & 0x0f) | 0x40;
+  bytes[8] = (bytes[8] & 0x3f) | 0x80;
+  const hex = Array.from(bytes, (b) => b.toString(16).padStart(2, "0")).join("");
+  return `${hex.slice(0, 8)}-${hex.slice(8, 12)}-${hex.slice(12, 16)}-${hex.slice(16, 20)}-${hex.slice(20)}`;
+}
+
 export interface User {
   id: string;
   nome: string;
@@ -18,8 +39,13 @@ export interface Item {
   tipo: "CHAVE" | "CONTROLE" | "OUTRO";
   disponivel: boolean;
   localizacao: string;
+  versao?: number;
 }
 
+export type UserResumo = Pick<User, "id" | "nome" | "tipo" | "matricula">;
+
+export type ItemResumo = Pick<Item, "id" | "nome" | "tipo" | "disponivel">;
+
 export interface ReservaResponse {
   id: string;
   itemId: string;
@@ -31,6 +57,15 @@ export interface ReservaResponse {
   dataRetirada?: string;
   dataDevolucao?: string;
   status: "RESERVADO" | "RETIRADO" | "DEVOLVIDO";
+  prazoDevolucao?: string;
+  atrasada: boolean;
+}
+
+export interface ReservaPagina {
+  conteudo: ReservaResponse[];
+  // null quando não há mais páginas
+  proximoCursor: string | null;
+  temMais: boolean;
 }
 
 export interface ReservaRequest {
@@ -50,6 +85,21 @@ export interface LimparReservasResponse {
   timestamp: string;
 }
 
+export interface ItemDisponibilidadeEvento {
+  itemId: string;
+  disponivel: boolean;
+  versao?: number;
+  // Item como ficou depois da mudança, para atualizar a lista sem recarregá-la
+  item: Item;
+}
+
+export interface EventosHandlers {
+  onItem?: (evento: ItemDisponibilidadeEvento) => void;
+  onReserva?: (reserva: ReservaResponse) => void;
+  // Reservas limpas ou eventos descartados: recarregar o estado completo
+  onSincronizar?: () => void;
+}
+
 class ApiService {
   private async request<T>(
     endpoint: string,
@@ -61,13 +111,13 @@ class ApiService {
 
     try {
       const response = await fetch(url, {
+        ...options,
         headers: {
           "Content-Type": "application/json",
           "ngrok-skip-browser-warning": "true", // 🔥 HEADER OBRIGATÓRIO PARA NGROK
           Accept: "application/json",
           ...options?.headers,
         },
-        ...options,
       });
 
       console.log(
@@ -108,6 +158,31 @@ class ApiService {
     }
   }
 
+  /**
+   * POST de operação da portaria com Idempotency-Key: se a rede falhar antes da resposta,
+   * reenvia com a mesma chave e o backend devolve o resultado da primeira tentativa
+   */
+  private async requestIdempotente<T>(
+    endpoint: string,
+    tentativas = 3
+  ): Promise<T> {
+    const chave = gerarChaveIdempotencia();
+    for (let tentativa = 1; ; tentativa++) {
+      try {
+        return await this.request<T>(endpoint, {
+          method: "POST",
+          headers: { "Idempotency-Key": chave },
+        });
+      } catch (error) {
+        // Só falhas de rede (fetch rejeitado) são repetidas; erros HTTP são a resposta definitiva
+        if (!(error instanceof TypeError) || tentativa >= tentativas) {
+          throw error;
+        }
+        await new Promise((resolve) => setTimeout(resolve, 500 * tentativa));
+      }
+    }
+  }
+
   async getDashboard() {
     return this.request<{
       itensDisponiveis: number;
@@ -121,6 +196,29 @@ class ApiService {
     return this.request<User[]>("/users");
   }
 
+  // Busca por prefixo sem acentos; o servidor limita a quantidade de resultados
+  async buscarUsuarios(q: string, limite = 20): Promise<User[]> {
+    return this.request<User[]>(
+      `/users/buscar?q=${encodeURIComponent(q)}&limite=${limite}`
+    );
+  }
+
+  async buscarItens(q: string, limite = 20): Promise<Item[]> {
+    return this.request<Item[]>(
+      `/items/buscar?q=${encodeURIComponent(q)}&limite=${limite}`
+    );
+  }
+
+  // Listas resumidas com ETag: o navegador revalida e reaproveita a resposta em cache (304)
+  async getUsersResumo(): Promise<UserResumo[]> {
+    return this.request<UserResumo[]>("/users/resumo");
+  }
+
+  async getItemsResumo(disponivel?: boolean): Promise<ItemResumo[]> {
+    const query = disponivel === undefined ? "" : `?disponivel=${disponivel}`;
+    return this.request<ItemResumo[]>(`/items/resumo${query}`);
+  }
+
   async getUserById(id: string): Promise<User> {
     return this.request<User>(`/users/${id}`);
   }
@@ -190,8 +288,37 @@ class ApiService {
     });
   }
 
-  async getReservas(): Promise<ReservaResponse[]> {
-    return this.request<ReservaResponse[]>("/reservas");
+  // Uma página do histórico, a partir do cursor devolvido pela página anterior
+  async getReservasPagina(
+    filtros: {
+      status?: ReservaResponse["status"];
+      cursor?: string;
+      tamanho?: number;
+    } = {}
+  ): Promise<ReservaPagina> {
+    const params = new URLSearchParams();
+    if (filtros.status) params.set("status", filtros.status);
+    if (filtros.cursor) params.set("cursor", filtros.cursor);
+    if (filtros.tamanho) params.set("tamanho", String(filtros.tamanho));
+    return this.request<ReservaPagina>(`/reservas/pagina?${params}`);
+  }
+
+  // Todas as reservas em aberto (reservadas e retiradas), seguindo o cursor até a última página
+  async getReservasAtivas(): Promise<ReservaResponse[]> {
+    const ativas: ReservaResponse[] = [];
+    for (const status of ["RESERVADO", "RETIRADO"] as const) {
+      let cursor: string | undefined;
+      do {
+        const pagina = await this.getReservasPagina({
+          status,
+          cursor,
+          tamanho: 500,
+        });
+        ativas.push(...pagina.conteudo);
+        cursor = (pagina.temMais && pagina.proximoCursor) || undefined;
+      } while (cursor);
+    }
+    return ativas;
   }
 
   async getReservasByMatricula(matricula: string): Promise<ReservaResponse[]> {
@@ -208,6 +335,10 @@ class ApiService {
     );
   }
 
+  async getReservasAtrasadas(): Promise<ReservaResponse[]> {
+    return this.request<ReservaResponse[]>("/reservas/atrasadas");
+  }
+
   async createReserva(reserva: ReservaRequest): Promise<ReservaResponse> {
     return this.request<ReservaResponse>("/reservas", {
       method: "POST",
@@ -249,11 +380,8 @@ class ApiService {
     matricula: string,
     itemId: string
   ): Promise<ReservaResponse> {
-    return this.request<ReservaResponse>(
-      `/portaria/cracha/${matricula}/reservar/${itemId}`,
-      {
-        method: "POST",
-      }
+    return this.requestIdempotente<ReservaResponse>(
+      `/portaria/cracha/${matricula}/reservar/${itemId}`
     );
   }
 
@@ -261,11 +389,8 @@ class ApiService {
     matricula: string,
     reservaId: string
   ): Promise<ReservaResponse> {
-    return this.request<ReservaResponse>(
-      `/portaria/cracha/${matricula}/retirar/${reservaId}`,
-      {
-        method: "POST",
-      }
+    return this.requestIdempotente<ReservaResponse>(
+      `/portaria/cracha/${matricula}/retirar/${reservaId}`
     );
   }
 
@@ -273,11 +398,8 @@ class ApiService {
     matricula: string,
     reservaId: string
   ): Promise<ReservaResponse> {
-    return this.request<ReservaResponse>(
-      `/portaria/cracha/${matricula}/devolver/${reservaId}`,
-      {
-        method: "POST",
-      }
+    return this.requestIdempotente<ReservaResponse>(
+      `/portaria/cracha/${matricula}/devolver/${reservaId}`
     );
   }
 
@@ -288,6 +410,22 @@ class ApiService {
       `/portaria/cracha/${matricula}/reservas-ativas`
     );
   }
+
+  // Eventos em tempo real (SSE); retorna a função que encerra a assinatura
+  assinarEventos(handlers: EventosHandlers): () => void {
+    const source = new EventSource(`${API_BASE_URL}/eventos`);
+
+    source.addEventListener("item", (e) =>
+      handlers.onItem?.(JSON.parse((e as MessageEvent).data))
+    );
+    source.addEventListener("reserva", (e) =>
+      handlers.onReserva?.(JSON.parse((e as MessageEvent).data))
+    );
+    source.addEventListener("reservas-limpas", () => handlers.onSincronizar?.());
+    source.addEventListener("sincronizar", () => handlers.onSincronizar?.());
+
+    return () => source.close();
+  }
 }
 
 export const api = new ApiService();